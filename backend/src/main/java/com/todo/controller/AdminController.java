@@ -1,10 +1,19 @@
 package com.todo.controller;
 
-import com.todo.entity.Todo;
-import com.todo.repository.TodoRepository;
-import com.todo.repository.SubtaskRepository;
-import com.todo.service.UserService;
+import com.todo.dto.AdminTodoFilter;
+import com.todo.dto.AdminTodoView;
+import com.todo.security.PasswordHashingExecutor;
+import com.todo.security.PrincipalCache;
+import com.todo.security.RateLimitFilter;
+import com.todo.service.AdminStatsService;
+import com.todo.service.StorageLayoutMigrationService;
+import com.todo.service.SubtaskCounterService;
+import com.todo.service.ThumbnailService;
+import com.todo.service.TodoService;
+import com.todo.service.UploadSessionService;
+import com.todo.storage.StorageBackend;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -18,85 +27,120 @@ import java.util.Map;
 @PreAuthorize("hasRole('ADMIN')")
 public class AdminController {
 
+    private static final int RECENT_ACTIVITY_LIMIT = 10;
+
+    @Autowired
+    private TodoService todoService;
+
+    @Autowired
+    private AdminStatsService adminStatsService;
+
+    @Autowired
+    private PrincipalCache principalCache;
+
     @Autowired
-    private TodoRepository todoRepository;
+    private PasswordHashingExecutor passwordHashingExecutor;
 
     @Autowired
-    private SubtaskRepository subtaskRepository;
+    private RateLimitFilter rateLimitFilter;
 
     @Autowired
-    private UserService userService;
+    private SubtaskCounterService subtaskCounterService;
 
-    // Get all todos from all users
+    @Autowired
+    private StorageLayoutMigrationService storageLayoutMigrationService;
+
+    @Autowired
+    private ThumbnailService thumbnailService;
+
+    @Autowired
+    private StorageBackend storageBackend;
+
+    @Autowired
+    private UploadSessionService uploadSessionService;
+
+    // Get all todos from all users, newest first, one page at a time
     @GetMapping("/todos")
-    public ResponseEntity<List<Todo>> getAllTodos() {
-        List<Todo> todos = todoRepository.findAll();
-        return ResponseEntity.ok(todos);
+    public ResponseEntity<?> getAllTodos(@ModelAttribute AdminTodoFilter filter) {
+        try {
+            return ResponseEntity.ok(todoService.getAdminTodosPage(filter));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 
-    // Get todos by user ID
+    // Get todos by user ID (same paging and filters, scoped to one user)
     @GetMapping("/todos/user/{userId}")
-    public ResponseEntity<List<Todo>> getTodosByUserId(@PathVariable Integer userId) {
-        List<Todo> todos = todoRepository.findAll().stream()
-                .filter(todo -> todo.getUser() != null && todo.getUser().getId().equals(userId))
-                .toList();
-        return ResponseEntity.ok(todos);
+    public ResponseEntity<?> getTodosByUserId(@PathVariable Integer userId,
+                                              @ModelAttribute AdminTodoFilter filter) {
+        filter.setUserId(userId);
+        try {
+            return ResponseEntity.ok(todoService.getAdminTodosPage(filter));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 
-    // Get application statistics
+    // Get application statistics (aggregated in the database, briefly cached)
     @GetMapping("/stats")
     public ResponseEntity<Map<String, Object>> getAppStats() {
-        Map<String, Object> stats = new HashMap<>();
-
-        // User statistics
-        stats.put("totalUsers", userService.getTotalUsers());
-        stats.put("regularUsers", userService.getRegularUsersCount());
-        stats.put("adminUsers", userService.getAdminUsersCount());
-
-        // Todo statistics
-        long totalTodos = todoRepository.count();
-        long completedTodos = todoRepository.findAll().stream()
-                .filter(Todo::getIsCompleted)
-                .count();
-        long pendingTodos = totalTodos - completedTodos;
-
-        stats.put("totalTodos", totalTodos);
-        stats.put("completedTodos", completedTodos);
-        stats.put("pendingTodos", pendingTodos);
-        stats.put("completionRate", totalTodos > 0 ? (completedTodos * 100.0 / totalTodos) : 0);
-
-        // Subtask statistics
-        long totalSubtasks = subtaskRepository.count();
-        long completedSubtasks = subtaskRepository.findAll().stream()
-                .filter(subtask -> subtask.getIsCompleted())
-                .count();
-
-        stats.put("totalSubtasks", totalSubtasks);
-        stats.put("completedSubtasks", completedSubtasks);
-        stats.put("pendingSubtasks", totalSubtasks - completedSubtasks);
-
-        // Average todos per user
-        long totalUsersCount = userService.getTotalUsers();
-        stats.put("avgTodosPerUser", totalUsersCount > 0 ? (double) totalTodos / totalUsersCount : 0);
-
-        return ResponseEntity.ok(stats);
+        return ResponseEntity.ok(adminStatsService.getAppStats());
+    }
+
+    // Get runtime cache metrics
+    @GetMapping("/metrics")
+    public ResponseEntity<Map<String, Object>> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("principalCache", principalCache.getStats());
+        metrics.put("passwordHashing", passwordHashingExecutor.getStats());
+        metrics.put("rateLimit", rateLimitFilter.getStats());
+        metrics.put("thumbnails", thumbnailService.getStats());
+        metrics.put("storage", storageBackend.getStats());
+        metrics.put("uploadSessions", uploadSessionService.getStats());
+        return ResponseEntity.ok(metrics);
+    }
+
+    // Compare the todos' subtask counters with the subtasks table (run after deploys)
+    @GetMapping("/subtask-counters/check")
+    public ResponseEntity<Map<String, Object>> checkSubtaskCounters() {
+        return ResponseEntity.ok(subtaskCounterService.checkConsistency());
+    }
+
+    // Recompute the todos' subtask counters in parallel chunks
+    @PostMapping("/subtask-counters/repair")
+    public ResponseEntity<Map<String, Object>> repairSubtaskCounters() {
+        Map<String, Object> result = new HashMap<>();
+        result.put("repaired", subtaskCounterService.repairAll());
+        return ResponseEntity.ok(result);
+    }
+
+    // Start moving attachment files into the fan-out blob layout (runs in the background, app stays online)
+    @PostMapping("/storage/migrate")
+    public ResponseEntity<Map<String, Object>> startStorageMigration() {
+        boolean started = storageLayoutMigrationService.start();
+        return ResponseEntity.status(started ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT)
+                .body(storageLayoutMigrationService.getStatus());
+    }
+
+    // Progress of the storage layout migration
+    @GetMapping("/storage/migrate")
+    public ResponseEntity<Map<String, Object>> getStorageMigrationStatus() {
+        return ResponseEntity.ok(storageLayoutMigrationService.getStatus());
     }
 
     // Get recent activity (last 10 todos)
     @GetMapping("/activity/recent")
-    public ResponseEntity<List<Todo>> getRecentActivity() {
-        List<Todo> recentTodos = todoRepository.findAll().stream()
-                .sorted((t1, t2) -> t2.getCreatedAt().compareTo(t1.getCreatedAt()))
-                .limit(10)
-                .toList();
-        return ResponseEntity.ok(recentTodos);
+    public ResponseEntity<List<AdminTodoView>> getRecentActivity() {
+        AdminTodoFilter filter = new AdminTodoFilter();
+        filter.setLimit(RECENT_ACTIVITY_LIMIT);
+        return ResponseEntity.ok(todoService.getAdminTodosPage(filter).getItems());
     }
 
     // Delete any todo (admin privilege)
     @DeleteMapping("/todos/{id}")
     public ResponseEntity<Void> deleteTodo(@PathVariable Integer id) {
-        if (todoRepository.existsById(id)) {
-            todoRepository.deleteById(id);
+        // Goes through TodoService so the delete is logged for delta sync and removed from search
+        if (todoService.deleteTodo(id)) {
             return ResponseEntity.noContent().build();
         }
         return ResponseEntity.notFound().build();
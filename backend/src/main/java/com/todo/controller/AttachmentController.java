@@ -1,18 +1,35 @@
 package com.todo.controller;
 
 import com.todo.dto.AttachmentDTO;
+import com.todo.dto.UploadSessionRequest;
 import com.todo.entity.Attachment;
-import com.todo.entity.User;
+import com.todo.security.AuthenticatedUser;
+import com.todo.service.AttachmentDownloadService;
 import com.todo.service.AttachmentService;
-import com.todo.service.UserService;
+import com.todo.service.FileStorageService;
+import com.todo.service.OwnershipResolver;
+import com.todo.service.ThumbnailService;
+import com.todo.service.UploadSessionService;
+import com.todo.storage.StorageBusyException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/attachments")
@@ -22,7 +39,19 @@ public class AttachmentController {
     private AttachmentService attachmentService;
 
     @Autowired
-    private UserService userService;
+    private OwnershipResolver ownershipResolver;
+
+    @Autowired
+    private AttachmentDownloadService attachmentDownloadService;
+
+    @Autowired
+    private ThumbnailService thumbnailService;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private UploadSessionService uploadSessionService;
 
     /**
      * Upload attachment to a todo
@@ -31,49 +60,296 @@ public class AttachmentController {
     public ResponseEntity<?> uploadAttachment(
             @PathVariable Integer todoId,
             @RequestParam("file") MultipartFile file,
-            Authentication authentication
+            @AuthenticationPrincipal AuthenticatedUser currentUser
     ) {
-        if (authentication == null) {
+        if (currentUser == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Authentication required");
         }
 
-        String username = authentication.getName();
-        User user = userService.getUserByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        // Checked before the upload is stored, so rejected requests never touch the disk
+        ResponseEntity<?> denied = accessDenied(ownershipResolver.checkTodo(todoId, currentUser.getId()));
+        if (denied != null) {
+            return denied;
+        }
 
         AttachmentDTO attachment =
-                attachmentService.createAttachment(todoId, file, user.getId());
+                attachmentService.createAttachment(todoId, file, currentUser.getId());
 
         return new ResponseEntity<>(attachment, HttpStatus.CREATED);
     }
 
+    /**
+     * Start a resumable upload: returns the session id and chunk size; chunks are then PUT to
+     * /attachments/uploads/{uploadId}?offset=N and the upload finished with POST .../complete
+     */
+    @PostMapping("/todo/{todoId}/uploads")
+    public ResponseEntity<?> initiateUpload(
+            @PathVariable Integer todoId,
+            @RequestBody UploadSessionRequest uploadRequest,
+            @AuthenticationPrincipal AuthenticatedUser currentUser
+    ) throws IOException {
+        if (currentUser == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Authentication required");
+        }
+
+        ResponseEntity<?> denied = accessDenied(ownershipResolver.checkTodo(todoId, currentUser.getId()));
+        if (denied != null) {
+            return denied;
+        }
+
+        try {
+            return new ResponseEntity<>(uploadSessionService.initiate(todoId, uploadRequest, currentUser.getId()), HttpStatus.CREATED);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.INSUFFICIENT_STORAGE).body(e.getMessage());
+        } catch (UnsupportedOperationException e) {
+            return ResponseEntity.status(HttpStatus.NOT_IMPLEMENTED).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Resumable upload progress, including the chunks still missing
+     */
+    @GetMapping("/uploads/{uploadId}")
+    public ResponseEntity<?> getUpload(
+            @PathVariable String uploadId,
+            @AuthenticationPrincipal AuthenticatedUser currentUser
+    ) {
+        if (currentUser == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Authentication required");
+        }
+
+        try {
+            return ResponseEntity.ok(uploadSessionService.getStatus(uploadId, currentUser.getId()));
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Upload one chunk (raw request body) at the given offset; optional X-Chunk-Sha256 is verified
+     */
+    @PutMapping("/uploads/{uploadId}")
+    public ResponseEntity<?> uploadChunk(
+            @PathVariable String uploadId,
+            @RequestParam long offset,
+            @RequestHeader(value = "X-Chunk-Sha256", required = false) String chunkSha256,
+            @AuthenticationPrincipal AuthenticatedUser currentUser,
+            HttpServletRequest request
+    ) throws IOException {
+        if (currentUser == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Authentication required");
+        }
+
+        try {
+            return ResponseEntity.ok(uploadSessionService.writeChunk(uploadId, currentUser.getId(), offset,
+                    request.getContentLengthLong(), chunkSha256, request.getInputStream()));
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Finish a resumable upload once every chunk is in; creates the attachment
+     */
+    @PostMapping("/uploads/{uploadId}/complete")
+    public ResponseEntity<?> completeUpload(
+            @PathVariable String uploadId,
+            @AuthenticationPrincipal AuthenticatedUser currentUser
+    ) {
+        if (currentUser == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Authentication required");
+        }
+
+        try {
+            return new ResponseEntity<>(attachmentService.completeUpload(uploadId, currentUser.getId()), HttpStatus.CREATED);
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Cancel a resumable upload
+     */
+    @DeleteMapping("/uploads/{uploadId}")
+    public ResponseEntity<?> abortUpload(
+            @PathVariable String uploadId,
+            @AuthenticationPrincipal AuthenticatedUser currentUser
+    ) {
+        if (currentUser == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        try {
+            uploadSessionService.abort(uploadId, currentUser.getId());
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        }
+        return ResponseEntity.noContent().build();
+    }
+
     /**
      * Get all attachments for a todo
      */
     @GetMapping("/todo/{todoId}")
-    public ResponseEntity<List<AttachmentDTO>> getAttachments(@PathVariable Integer todoId) {
+    public ResponseEntity<?> getAttachments(
+            @PathVariable Integer todoId,
+            @AuthenticationPrincipal AuthenticatedUser currentUser
+    ) {
+        if (currentUser == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Authentication required");
+        }
+
+        ResponseEntity<?> denied = accessDenied(ownershipResolver.checkTodo(todoId, currentUser.getId()));
+        if (denied != null) {
+            return denied;
+        }
+
         return ResponseEntity.ok(
                 attachmentService.getAttachmentsByTodoId(todoId)
         );
     }
 
+    /**
+     * Download attachment, zero-copy, with Range / If-Range for partial and resumed downloads
+     */
+    @GetMapping("/{id}/download")
+    public ResponseEntity<?> downloadAttachment(
+            @PathVariable Integer id,
+            @AuthenticationPrincipal AuthenticatedUser currentUser,
+            HttpServletRequest request,
+            HttpServletResponse response
+    ) throws IOException {
+        if (currentUser == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Authentication required");
+        }
+
+        ResponseEntity<?> denied = accessDenied(ownershipResolver.checkAttachment(id, currentUser.getId()));
+        if (denied != null) {
+            return denied;
+        }
+
+        Optional<Attachment> attachment = attachmentService.getAttachment(id);
+        if (attachment.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        try {
+            attachmentDownloadService.send(attachment.get(), request, response);
+        } catch (NoSuchFileException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("File not found");
+        } catch (StorageBusyException e) {
+            // Nothing has been written yet; drop the download headers so the 503 is not saved as the file
+            response.reset();
+            return serviceUnavailable(e);
+        }
+        // Headers and body (or the sendfile hand-off) are already on the response
+        return null;
+    }
+
+    /**
+     * Image preview, 256px JPEG; built on demand if the background job has not produced it yet,
+     * 202 with Retry-After while that build is still running
+     */
+    @GetMapping("/{id}/thumbnail")
+    public ResponseEntity<?> getThumbnail(
+            @PathVariable Integer id,
+            @AuthenticationPrincipal AuthenticatedUser currentUser,
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch
+    ) {
+        if (currentUser == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Authentication required");
+        }
+
+        ResponseEntity<?> denied = accessDenied(ownershipResolver.checkAttachment(id, currentUser.getId()));
+        if (denied != null) {
+            return denied;
+        }
+
+        Optional<Attachment> attachment = attachmentService.getAttachment(id);
+        if (attachment.isEmpty() || !ThumbnailService.isThumbnailable(attachment.get().getFileType())) {
+            return ResponseEntity.notFound().build();
+        }
+
+        // The stored file never changes under an attachment, so neither does its thumbnail
+        String etag = "\"t" + id + "\"";
+        CacheControl cacheControl = CacheControl.maxAge(365, TimeUnit.DAYS).cachePrivate().immutable();
+        if (etag.equals(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+        }
+
+        InputStreamResource thumbnail;
+        try {
+            Optional<String> stored = thumbnailService.awaitThumbnail(attachment.get().getFilePath());
+            if (stored.isEmpty()) {
+                return ResponseEntity.status(HttpStatus.ACCEPTED)
+                        .header(HttpHeaders.RETRY_AFTER, "2")
+                        .cacheControl(CacheControl.noStore())
+                        .build();
+            }
+            thumbnail = new InputStreamResource(fileStorageService.openFile(stored.get()));
+        } catch (NoSuchFileException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("File not found");
+        } catch (StorageBusyException e) {
+            return serviceUnavailable(e);
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body("Could not create a preview of this image");
+        }
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.IMAGE_JPEG)
+                .eTag(etag)
+                .cacheControl(cacheControl)
+                .body(thumbnail);
+    }
+
     /**
      * Delete attachment
      */
     @DeleteMapping("/{id}")
     public ResponseEntity<?> deleteAttachment(
             @PathVariable Integer id,
-            Authentication authentication
+            @AuthenticationPrincipal AuthenticatedUser currentUser
     ) {
-        if (authentication == null) {
+        if (currentUser == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
 
-        String username = authentication.getName();
-        User user = userService.getUserByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        ResponseEntity<?> denied = accessDenied(ownershipResolver.checkAttachment(id, currentUser.getId()));
+        if (denied != null) {
+            return denied;
+        }
 
-        attachmentService.deleteAttachment(id, user.getId());
+        attachmentService.deleteAttachment(id, currentUser.getId());
         return ResponseEntity.noContent().build();
     }
+
+    private static ResponseEntity<?> serviceUnavailable(StorageBusyException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(e.getMessage());
+    }
+
+    /**
+     * null when the caller owns the todo, otherwise the 404/403 response to return
+     */
+    private static ResponseEntity<?> accessDenied(OwnershipResolver.Ownership ownership) {
+        switch (ownership) {
+            case NOT_FOUND:
+                return ResponseEntity.notFound().build();
+            case FORBIDDEN:
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Access denied");
+            default:
+                return null;
+        }
+    }
 }
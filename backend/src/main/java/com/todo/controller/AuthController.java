@@ -3,12 +3,18 @@ package com.todo.controller;
 import com.todo.dto.AuthResponse;
 import com.todo.dto.LoginRequest;
 import com.todo.dto.RegisterRequest;
+import com.todo.security.LoginThrottledException;
+import com.todo.security.PasswordHashingExecutor;
 import com.todo.service.AuthService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
 @RestController
 @RequestMapping("/auth")
 public class AuthController {
@@ -16,24 +22,32 @@ public class AuthController {
     @Autowired
     private AuthService authService;
 
+    @Autowired
+    private PasswordHashingExecutor passwordHashingExecutor;
+
+    // Both auth endpoints hash passwords, so they run on the bounded hashing pool
+    // and release the request thread while they wait (429 + Retry-After when it is full)
     @PostMapping("/register")
-    public ResponseEntity<?> register(@RequestBody RegisterRequest request) {
+    public CompletableFuture<ResponseEntity<?>> register(@RequestBody RegisterRequest request) {
         try {
-            AuthResponse response = authService.register(request);
-            return ResponseEntity.ok(response);
-        } catch (RuntimeException e) {
-            return ResponseEntity.badRequest().body(e.getMessage());
+            return passwordHashingExecutor.submit(() -> authService.register(request))
+                    .handle((response, e) -> e == null
+                            ? ResponseEntity.ok(response)
+                            : ResponseEntity.badRequest().body(unwrap(e).getMessage()));
+        } catch (LoginThrottledException e) {
+            return CompletableFuture.completedFuture(tooManyRequests(e));
         }
     }
 
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody LoginRequest request) {
+    public CompletableFuture<ResponseEntity<?>> login(@RequestBody LoginRequest request) {
         try {
-            AuthResponse response = authService.login(request);
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                    .body("Invalid username or password");
+            return passwordHashingExecutor.submit(() -> authService.login(request))
+                    .handle((response, e) -> e == null
+                            ? ResponseEntity.ok(response)
+                            : ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid username or password"));
+        } catch (LoginThrottledException e) {
+            return CompletableFuture.completedFuture(tooManyRequests(e));
         }
     }
 
@@ -42,4 +56,14 @@ public class AuthController {
         // If the request reaches here, the token is valid (filtered by JWT filter)
         return ResponseEntity.ok("Token is valid");
     }
-}
\ No newline at end of file
+
+    private static ResponseEntity<?> tooManyRequests(LoginThrottledException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(e.getMessage());
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+}
@@ -4,14 +4,13 @@ import com.todo.dto.CalendarAuthUrlResponse;
 import com.todo.dto.CalendarConnectionStatusResponse;
 import com.todo.dto.CalendarSyncResultResponse;
 import com.todo.entity.GoogleCalendarToken;
-import com.todo.entity.User;
+import com.todo.security.AuthenticatedUser;
 import com.todo.service.GoogleCalendarService;
-import com.todo.service.UserService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.view.RedirectView;
 
@@ -26,27 +25,20 @@ public class GoogleCalendarController {
     @Autowired
     private GoogleCalendarService calendarService;
 
-    @Autowired
-    private UserService userService;
-
     @GetMapping("/connect")
-    public ResponseEntity<CalendarAuthUrlResponse> connectCalendar(Authentication authentication) {
+    public ResponseEntity<CalendarAuthUrlResponse> connectCalendar(@AuthenticationPrincipal AuthenticatedUser currentUser) {
         try {
-            if (authentication == null) {
+            if (currentUser == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
             }
 
-            String username = authentication.getName();
-            User user = userService.getUserByUsername(username)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-
-            String authUrl = calendarService.getAuthorizationUrl(user.getId());
+            String authUrl = calendarService.getAuthorizationUrl(currentUser.getId());
 
             CalendarAuthUrlResponse response = new CalendarAuthUrlResponse();
             response.setAuthorizationUrl(authUrl);
             response.setMessage("Please visit this URL to authorize access to Google Calendar");
 
-            log.info("Generated auth URL for user: {}", username);
+            log.info("Generated auth URL for user: {}", currentUser.getUsername());
             return ResponseEntity.ok(response);
 
         } catch (Exception e) {
@@ -76,17 +68,13 @@ public class GoogleCalendarController {
     }
 
     @GetMapping("/status")
-    public ResponseEntity<CalendarConnectionStatusResponse> getConnectionStatus(Authentication authentication) {
+    public ResponseEntity<CalendarConnectionStatusResponse> getConnectionStatus(@AuthenticationPrincipal AuthenticatedUser currentUser) {
         try {
-            if (authentication == null) {
+            if (currentUser == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
             }
 
-            String username = authentication.getName();
-            User user = userService.getUserByUsername(username)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-
-            GoogleCalendarToken token = calendarService.getConnectionStatus(user.getId());
+            GoogleCalendarToken token = calendarService.getConnectionStatus(currentUser.getId());
 
             CalendarConnectionStatusResponse response = new CalendarConnectionStatusResponse();
 
@@ -111,18 +99,14 @@ public class GoogleCalendarController {
 
 
     @PostMapping("/sync")
-    public ResponseEntity<CalendarSyncResultResponse> syncAllTodos(Authentication authentication) {
+    public ResponseEntity<CalendarSyncResultResponse> syncAllTodos(@AuthenticationPrincipal AuthenticatedUser currentUser) {
         try {
-            if (authentication == null) {
+            if (currentUser == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
             }
 
-            String username = authentication.getName();
-            User user = userService.getUserByUsername(username)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-
             // Check if calendar is connected
-            if (!calendarService.isCalendarConnected(user.getId())) {
+            if (!calendarService.isCalendarConnected(currentUser.getId())) {
                 CalendarSyncResultResponse response = new CalendarSyncResultResponse();
                 response.setSuccess(false);
                 response.setMessage("Google Calendar not connected");
@@ -130,14 +114,14 @@ public class GoogleCalendarController {
                 return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
             }
 
-            int syncedCount = calendarService.syncAllTodos(user.getId());
+            int syncedCount = calendarService.syncAllTodos(currentUser.getId());
 
             CalendarSyncResultResponse response = new CalendarSyncResultResponse();
             response.setSuccess(true);
             response.setMessage("Successfully synced todos to Google Calendar");
             response.setSyncedCount(syncedCount);
 
-            log.info("Synced {} todos for user: {}", syncedCount, username);
+            log.info("Synced {} todos for user: {}", syncedCount, currentUser.getUsername());
             return ResponseEntity.ok(response);
 
         } catch (Exception e) {
@@ -156,22 +140,18 @@ public class GoogleCalendarController {
     @PutMapping("/sync/toggle")
     public ResponseEntity<?> toggleSync(
             @RequestBody Map<String, Boolean> request,
-            Authentication authentication) {
+            @AuthenticationPrincipal AuthenticatedUser currentUser) {
         try {
-            if (authentication == null) {
+            if (currentUser == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
             }
 
-            String username = authentication.getName();
-            User user = userService.getUserByUsername(username)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-
             Boolean enabled = request.get("enabled");
             if (enabled == null) {
                 return ResponseEntity.badRequest().body("Missing 'enabled' field");
             }
 
-            calendarService.updateSyncSettings(user.getId(), enabled);
+            calendarService.updateSyncSettings(currentUser.getId(), enabled);
 
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
@@ -190,23 +170,19 @@ public class GoogleCalendarController {
     }
 
     @DeleteMapping("/disconnect")
-    public ResponseEntity<?> disconnectCalendar(Authentication authentication) {
+    public ResponseEntity<?> disconnectCalendar(@AuthenticationPrincipal AuthenticatedUser currentUser) {
         try {
-            if (authentication == null) {
+            if (currentUser == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
             }
 
-            String username = authentication.getName();
-            User user = userService.getUserByUsername(username)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-
-            calendarService.disconnectCalendar(user.getId());
+            calendarService.disconnectCalendar(currentUser.getId());
 
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
             response.put("message", "Google Calendar disconnected successfully");
 
-            log.info("Disconnected calendar for user: {}", username);
+            log.info("Disconnected calendar for user: {}", currentUser.getUsername());
             return ResponseEntity.ok(response);
 
         } catch (Exception e) {
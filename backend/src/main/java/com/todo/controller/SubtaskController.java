@@ -1,52 +1,49 @@
 package com.todo.controller;
 
+import com.todo.dto.SubtaskOrderRequest;
+import com.todo.dto.SubtaskStats;
 import com.todo.entity.Subtask;
-import com.todo.entity.Todo;
-import com.todo.entity.User;
+import com.todo.security.AuthenticatedUser;
+import com.todo.service.DataVersionService;
+import com.todo.service.OwnershipResolver;
 import com.todo.service.SubtaskService;
-import com.todo.service.TodoService;
-import com.todo.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
 @RequestMapping("/subtasks")
 public class SubtaskController {
 
+    public static final int MAX_STATS_TODO_IDS = 500;
+
     @Autowired
     private SubtaskService subtaskService;
 
     @Autowired
-    private TodoService todoService;
+    private OwnershipResolver ownershipResolver;
 
     @Autowired
-    private UserService userService;
+    private DataVersionService dataVersionService;
 
     // CREATE - Add new subtask to a todo
     @PostMapping
-    public ResponseEntity<?> createSubtask(@RequestBody Subtask subtask, Authentication authentication) {
-        if (authentication == null) {
+    public ResponseEntity<?> createSubtask(@RequestBody Subtask subtask, @AuthenticationPrincipal AuthenticatedUser currentUser) {
+        if (currentUser == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("User not authenticated");
         }
 
-        // Verify the parent todo belongs to current user
-        Optional<Todo> todo = todoService.getTodoById(subtask.getTodoId());
-        if (todo.isEmpty()) {
-            return ResponseEntity.notFound().build();
-        }
-
-        String username = authentication.getName();
-        User user = userService.getUserByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
-        if (todo.get().getUser() == null || !todo.get().getUser().getId().equals(user.getId())) {
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Access denied");
+        // Verify the parent todo belongs to current user (one query, briefly cached)
+        ResponseEntity<?> denied = accessDenied(ownershipResolver.checkTodo(subtask.getTodoId(), currentUser.getId()));
+        if (denied != null) {
+            return denied;
         }
 
         Subtask createdSubtask = subtaskService.createSubtask(subtask);
@@ -55,53 +52,67 @@ public class SubtaskController {
 
     // READ - Get all subtasks for a specific todo
     @GetMapping("/todo/{todoId}")
-    public ResponseEntity<?> getSubtasksByTodoId(@PathVariable Integer todoId, Authentication authentication) {
-        if (authentication == null) {
+    public ResponseEntity<?> getSubtasksByTodoId(@PathVariable Integer todoId,
+                                                 @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                 @AuthenticationPrincipal AuthenticatedUser currentUser) {
+        if (currentUser == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("User not authenticated");
         }
 
-        // Verify the parent todo belongs to current user
-        Optional<Todo> todo = todoService.getTodoById(todoId);
-        if (todo.isEmpty()) {
-            return ResponseEntity.notFound().build();
+        // Verify the parent todo belongs to current user (one query, briefly cached)
+        ResponseEntity<?> denied = accessDenied(ownershipResolver.checkTodo(todoId, currentUser.getId()));
+        if (denied != null) {
+            return denied;
         }
 
-        String username = authentication.getName();
-        User user = userService.getUserByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
-        if (todo.get().getUser() == null || !todo.get().getUser().getId().equals(user.getId())) {
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Access denied");
+        // Nothing changed since the client's copy - skip the list query entirely
+        String etag = dataVersionService.etag(currentUser.getId());
+        if (DataVersionService.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
         }
 
         List<Subtask> subtasks = subtaskService.getSubtasksByTodoId(todoId);
-        return new ResponseEntity<>(subtasks, HttpStatus.OK);
+        return ResponseEntity.ok().eTag(etag).body(subtasks);
     }
 
-    // READ - Get a single subtask
-    @GetMapping("/{id}")
-    public ResponseEntity<?> getSubtaskById(@PathVariable Integer id, Authentication authentication) {
-        if (authentication == null) {
+    // REORDER - Set the order of all of a todo's subtasks in one request
+    @PutMapping("/todo/{todoId}/order")
+    public ResponseEntity<?> reorderSubtasks(@PathVariable Integer todoId,
+                                             @RequestBody SubtaskOrderRequest request,
+                                             @AuthenticationPrincipal AuthenticatedUser currentUser) {
+        if (currentUser == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("User not authenticated");
         }
 
-        Optional<Subtask> subtask = subtaskService.getSubtaskById(id);
-        if (subtask.isEmpty()) {
-            return ResponseEntity.notFound().build();
+        ResponseEntity<?> denied = accessDenied(ownershipResolver.checkTodo(todoId, currentUser.getId()));
+        if (denied != null) {
+            return denied;
         }
 
-        // Verify the parent todo belongs to current user
-        Optional<Todo> todo = todoService.getTodoById(subtask.get().getTodoId());
-        if (todo.isEmpty()) {
-            return ResponseEntity.notFound().build();
+        try {
+            subtaskService.reorderSubtasks(todoId, request.getSubtaskIds());
+            return ResponseEntity.noContent().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // READ - Get a single subtask
+    @GetMapping("/{id}")
+    public ResponseEntity<?> getSubtaskById(@PathVariable Integer id, @AuthenticationPrincipal AuthenticatedUser currentUser) {
+        if (currentUser == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("User not authenticated");
         }
 
-        String username = authentication.getName();
-        User user = userService.getUserByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        // Verify the subtask's todo belongs to current user (one query, briefly cached)
+        ResponseEntity<?> denied = accessDenied(ownershipResolver.checkSubtask(id, currentUser.getId()));
+        if (denied != null) {
+            return denied;
+        }
 
-        if (todo.get().getUser() == null || !todo.get().getUser().getId().equals(user.getId())) {
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Access denied");
+        Optional<Subtask> subtask = subtaskService.getSubtaskById(id);
+        if (subtask.isEmpty()) {
+            return ResponseEntity.notFound().build();
         }
 
         return new ResponseEntity<>(subtask.get(), HttpStatus.OK);
@@ -111,28 +122,15 @@ public class SubtaskController {
     @PutMapping("/{id}")
     public ResponseEntity<?> updateSubtask(@PathVariable Integer id,
                                            @RequestBody Subtask subtaskDetails,
-                                           Authentication authentication) {
-        if (authentication == null) {
+                                           @AuthenticationPrincipal AuthenticatedUser currentUser) {
+        if (currentUser == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("User not authenticated");
         }
 
-        Optional<Subtask> existingSubtask = subtaskService.getSubtaskById(id);
-        if (existingSubtask.isEmpty()) {
-            return ResponseEntity.notFound().build();
-        }
-
-        // Verify the parent todo belongs to current user
-        Optional<Todo> todo = todoService.getTodoById(existingSubtask.get().getTodoId());
-        if (todo.isEmpty()) {
-            return ResponseEntity.notFound().build();
-        }
-
-        String username = authentication.getName();
-        User user = userService.getUserByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
-        if (todo.get().getUser() == null || !todo.get().getUser().getId().equals(user.getId())) {
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Access denied");
+        // Verify the subtask's todo belongs to current user (one query, briefly cached)
+        ResponseEntity<?> denied = accessDenied(ownershipResolver.checkSubtask(id, currentUser.getId()));
+        if (denied != null) {
+            return denied;
         }
 
         Subtask updatedSubtask = subtaskService.updateSubtask(id, subtaskDetails);
@@ -145,28 +143,15 @@ public class SubtaskController {
 
     // DELETE - Delete a subtask
     @DeleteMapping("/{id}")
-    public ResponseEntity<?> deleteSubtask(@PathVariable Integer id, Authentication authentication) {
-        if (authentication == null) {
+    public ResponseEntity<?> deleteSubtask(@PathVariable Integer id, @AuthenticationPrincipal AuthenticatedUser currentUser) {
+        if (currentUser == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("User not authenticated");
         }
 
-        Optional<Subtask> existingSubtask = subtaskService.getSubtaskById(id);
-        if (existingSubtask.isEmpty()) {
-            return ResponseEntity.notFound().build();
-        }
-
-        // Verify the parent todo belongs to current user
-        Optional<Todo> todo = todoService.getTodoById(existingSubtask.get().getTodoId());
-        if (todo.isEmpty()) {
-            return ResponseEntity.notFound().build();
-        }
-
-        String username = authentication.getName();
-        User user = userService.getUserByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
-        if (todo.get().getUser() == null || !todo.get().getUser().getId().equals(user.getId())) {
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Access denied");
+        // Verify the subtask's todo belongs to current user (one query, briefly cached)
+        ResponseEntity<?> denied = accessDenied(ownershipResolver.checkSubtask(id, currentUser.getId()));
+        if (denied != null) {
+            return denied;
         }
 
         boolean deleted = subtaskService.deleteSubtask(id);
@@ -179,26 +164,52 @@ public class SubtaskController {
 
     // GET - Get completion stats for a todo
     @GetMapping("/todo/{todoId}/stats")
-    public ResponseEntity<?> getSubtaskStats(@PathVariable Integer todoId, Authentication authentication) {
-        if (authentication == null) {
+    public ResponseEntity<?> getSubtaskStats(@PathVariable Integer todoId, @AuthenticationPrincipal AuthenticatedUser currentUser) {
+        if (currentUser == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("User not authenticated");
         }
 
-        // Verify the parent todo belongs to current user
-        Optional<Todo> todo = todoService.getTodoById(todoId);
-        if (todo.isEmpty()) {
-            return ResponseEntity.notFound().build();
+        // Verify the parent todo belongs to current user (one query, briefly cached)
+        ResponseEntity<?> denied = accessDenied(ownershipResolver.checkTodo(todoId, currentUser.getId()));
+        if (denied != null) {
+            return denied;
         }
 
-        String username = authentication.getName();
-        User user = userService.getUserByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        SubtaskStats stats = subtaskService.getSubtaskStats(todoId);
+        return new ResponseEntity<>(stats, HttpStatus.OK);
+    }
+
+    // GET - Completion stats for many todos at once (todoIds=1,2,3), or for all of the user's todos
+    @GetMapping("/stats")
+    public ResponseEntity<?> getSubtaskStatsBulk(@RequestParam(required = false) List<Integer> todoIds,
+                                                 @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                 @AuthenticationPrincipal AuthenticatedUser currentUser) {
+        if (currentUser == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("User not authenticated");
+        }
+        if (todoIds != null && todoIds.size() > MAX_STATS_TODO_IDS) {
+            return ResponseEntity.badRequest().body("At most " + MAX_STATS_TODO_IDS + " todo ids per request");
+        }
 
-        if (todo.get().getUser() == null || !todo.get().getUser().getId().equals(user.getId())) {
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Access denied");
+        String etag = dataVersionService.etag(currentUser.getId());
+        if (DataVersionService.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
         }
 
-        SubtaskService.SubtaskStats stats = subtaskService.getSubtaskStats(todoId);
-        return new ResponseEntity<>(stats, HttpStatus.OK);
+        // Ownership is part of the counter query, so ids of other users' todos are simply absent
+        Map<Integer, SubtaskStats> stats = subtaskService.getSubtaskStatsForUser(currentUser.getId(), todoIds);
+        return ResponseEntity.ok().eTag(etag).body(stats);
+    }
+
+    // null when the caller owns the resource, otherwise the 404/403 response to return
+    private static ResponseEntity<?> accessDenied(OwnershipResolver.Ownership ownership) {
+        switch (ownership) {
+            case NOT_FOUND:
+                return ResponseEntity.notFound().build();
+            case FORBIDDEN:
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Access denied");
+            default:
+                return null;
+        }
     }
-}
\ No newline at end of file
+}
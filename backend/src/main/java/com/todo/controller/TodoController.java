@@ -1,15 +1,28 @@
 package com.todo.controller;
 
+import com.todo.dto.TodoBatchRequest;
+import com.todo.dto.TodoBatchResult;
+import com.todo.dto.TodoPageResponse;
 import com.todo.entity.Todo;
 import com.todo.entity.User;
+import com.todo.dto.TodoChangesResponse;
+import com.todo.security.AuthenticatedUser;
+import com.todo.service.DataVersionService;
+import com.todo.service.SubtaskService;
+import com.todo.service.TodoExportService;
+import com.todo.service.TodoSyncService;
 import com.todo.service.TodoService;
 import com.todo.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,59 +36,147 @@ public class TodoController {
     @Autowired
     UserService userService;
 
+    @Autowired
+    TodoExportService todoExportService;
+
+    @Autowired
+    TodoSyncService todoSyncService;
+
+    @Autowired
+    DataVersionService dataVersionService;
+
+    @Autowired
+    SubtaskService subtaskService;
+
     // CREATE - POST endpoint (works for both guest and authenticated users)
     @PostMapping
-    public ResponseEntity<?> createTodo(@RequestBody Todo todo, Authentication authentication) {
+    public ResponseEntity<?> createTodo(@RequestBody Todo todo, @AuthenticationPrincipal AuthenticatedUser currentUser) {
         // Guest mode - return the todo without saving to database
-        if (authentication == null) {
+        if (currentUser == null) {
             // Generate temporary ID (negative to distinguish from DB IDs)
             todo.setId(-(int)(System.currentTimeMillis() % 100000));
             return new ResponseEntity<>(todo, HttpStatus.CREATED);
         }
 
         // Authenticated user - save to database
-        String username = authentication.getName();
-        User user = userService.getUserByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
 
-        todo.setUser(user);
+        todo.setUser(userService.getUserReference(currentUser.getId()));
         Todo createdTodo = todoService.createTodo(todo);
         return new ResponseEntity<>(createdTodo, HttpStatus.CREATED);
     }
 
+    // READ - GET todos, one keyset page at a time (pass all=true for the full unpaginated list,
+    // includeStats=true to get each todo's subtask progress inline from its counters)
     @GetMapping
-    public ResponseEntity<?> getAllTodos(Authentication authentication, @RequestParam(required = false) String name) {
-        if (authentication == null) {
-            return ResponseEntity.ok(List.of());
+    public ResponseEntity<?> getAllTodos(@AuthenticationPrincipal AuthenticatedUser currentUser,
+                                         @RequestParam(required = false) String name,
+                                         @RequestParam(required = false) String cursor,
+                                         @RequestParam(required = false) Integer limit,
+                                         @RequestParam(defaultValue = "false") boolean all,
+                                         @RequestParam(defaultValue = "false") boolean includeStats,
+                                         @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (currentUser == null) {
+            return all ? ResponseEntity.ok(List.of())
+                    : ResponseEntity.ok(new TodoPageResponse(List.of(), null, false));
         }
 
-        String username = authentication.getName();
-        User user = userService.getUserByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        // Nothing changed since the client's copy - skip the list query entirely
+        String etag = dataVersionService.etag(currentUser.getId());
+        if (DataVersionService.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
 
-        List<Todo> todos = todoService.getTodosByUserId(user.getId(), name);
-        return new ResponseEntity<>(todos, HttpStatus.OK);
+        if (all) {
+            List<Todo> todos = todoService.getTodosByUserId(currentUser.getId(), name);
+            if (includeStats) {
+                subtaskService.attachSubtaskStats(todos);
+            }
+            return ResponseEntity.ok().eTag(etag).body(todos);
+        }
+
+        try {
+            TodoPageResponse page = todoService.getTodosPage(currentUser.getId(), name, cursor, limit);
+            if (includeStats) {
+                subtaskService.attachSubtaskStats(page.getItems());
+            }
+            return ResponseEntity.ok().eTag(etag).body(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // BATCH - Apply queued offline edits (create/update/delete) in one request
+    @PostMapping("/batch")
+    public ResponseEntity<?> applyBatch(@RequestBody TodoBatchRequest request, @AuthenticationPrincipal AuthenticatedUser currentUser) {
+        if (currentUser == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("User not authenticated");
+        }
+        if (request.getOperations() == null || request.getOperations().isEmpty()) {
+            return ResponseEntity.badRequest().body("No operations given");
+        }
+        if (request.getOperations().size() > TodoService.MAX_BATCH_SIZE) {
+            return ResponseEntity.badRequest().body("At most " + TodoService.MAX_BATCH_SIZE + " operations per batch");
+        }
+
+        User user = userService.getUserReference(currentUser.getId());
+        List<TodoBatchResult> results = todoService.applyBatch(user, request.getOperations());
+        return new ResponseEntity<>(results, HttpStatus.OK);
+    }
+
+    // SYNC - Todos changed and deleted since the token from the previous call
+    @GetMapping("/changes")
+    public ResponseEntity<?> getChanges(@AuthenticationPrincipal AuthenticatedUser currentUser, @RequestParam(required = false) String since) {
+        if (currentUser == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("User not authenticated");
+        }
+
+        try {
+            TodoChangesResponse changes = todoSyncService.getChangesSince(currentUser.getId(), since);
+            return new ResponseEntity<>(changes, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // EXPORT - Stream all of the user's todos with subtasks and attachment metadata
+    @GetMapping("/export")
+    public ResponseEntity<?> exportTodos(@AuthenticationPrincipal AuthenticatedUser currentUser,
+                                         @RequestParam(defaultValue = TodoExportService.FORMAT_NDJSON) String format) {
+        if (currentUser == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("User not authenticated");
+        }
+        if (!TodoExportService.FORMAT_NDJSON.equals(format) && !TodoExportService.FORMAT_CSV.equals(format)) {
+            return ResponseEntity.badRequest().body("Unsupported export format: " + format);
+        }
+
+        Integer userId = currentUser.getId();
+        StreamingResponseBody body = out -> todoExportService.exportTodos(userId, format, out);
+
+        MediaType contentType = TodoExportService.FORMAT_CSV.equals(format)
+                ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                : new MediaType("application", "x-ndjson", StandardCharsets.UTF_8);
+
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"todos." + format + "\"")
+                .body(body);
     }
 
     // READ - GET single todo
     @GetMapping("/{id}")
-    public ResponseEntity<?> getTodoById(@PathVariable Integer id, Authentication authentication) {
+    public ResponseEntity<?> getTodoById(@PathVariable Integer id, @AuthenticationPrincipal AuthenticatedUser currentUser) {
         // Guest mode - frontend handles in-memory todos
-        if (authentication == null) {
+        if (currentUser == null) {
             return ResponseEntity.ok().build();
         }
 
-        String username = authentication.getName();
-        User user = userService.getUserByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
         Optional<Todo> todo = todoService.getTodoById(id);
 
         if (todo.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
 
-        if (todo.get().getUser() == null || !todo.get().getUser().getId().equals(user.getId())) {
+        if (todo.get().getUser() == null || !todo.get().getUser().getId().equals(currentUser.getId())) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Access denied");
         }
 
@@ -86,17 +187,13 @@ public class TodoController {
     @PutMapping("/{id}")
     public ResponseEntity<?> updateTodo(@PathVariable Integer id,
                                         @RequestBody Todo todoDetails,
-                                        Authentication authentication) {
+                                        @AuthenticationPrincipal AuthenticatedUser currentUser) {
         // Guest mode - return updated todo without saving
-        if (authentication == null) {
+        if (currentUser == null) {
             todoDetails.setId(id);
             return new ResponseEntity<>(todoDetails, HttpStatus.OK);
         }
 
-        String username = authentication.getName();
-        User user = userService.getUserByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
         Optional<Todo> existingTodo = todoService.getTodoById(id);
 
         if (existingTodo.isEmpty()) {
@@ -104,7 +201,7 @@ public class TodoController {
         }
 
         if (existingTodo.get().getUser() == null ||
-                !existingTodo.get().getUser().getId().equals(user.getId())) {
+                !existingTodo.get().getUser().getId().equals(currentUser.getId())) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Access denied");
         }
 
@@ -118,16 +215,12 @@ public class TodoController {
 
     // DELETE - DELETE endpoint
     @DeleteMapping("/{id}")
-    public ResponseEntity<?> deleteTodo(@PathVariable Integer id, Authentication authentication) {
+    public ResponseEntity<?> deleteTodo(@PathVariable Integer id, @AuthenticationPrincipal AuthenticatedUser currentUser) {
         // Guest mode - return success (frontend handles deletion)
-        if (authentication == null) {
+        if (currentUser == null) {
             return new ResponseEntity<>(HttpStatus.NO_CONTENT);
         }
 
-        String username = authentication.getName();
-        User user = userService.getUserByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
         Optional<Todo> existingTodo = todoService.getTodoById(id);
 
         if (existingTodo.isEmpty()) {
@@ -135,7 +228,7 @@ public class TodoController {
         }
 
         if (existingTodo.get().getUser() == null ||
-                !existingTodo.get().getUser().getId().equals(user.getId())) {
+                !existingTodo.get().getUser().getId().equals(currentUser.getId())) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Access denied");
         }
 
@@ -1,6 +1,7 @@
 package com.todo.controller;
 
 import com.todo.dto.UserDTO;
+import com.todo.entity.Role;
 import com.todo.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -48,6 +49,24 @@ public class UserController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    // Change user role (Admin only)
+    @PutMapping("/{id}/role")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<UserDTO> updateRole(@PathVariable Integer id, @RequestParam Role role) {
+        return userService.updateRole(id, role)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    // Activate or deactivate user (Admin only)
+    @PutMapping("/{id}/active")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<UserDTO> setActive(@PathVariable Integer id, @RequestParam boolean active) {
+        return userService.setActive(id, active)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     // Delete user (Admin only)
     @DeleteMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN')")
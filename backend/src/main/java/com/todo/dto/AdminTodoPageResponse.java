@@ -0,0 +1,16 @@
+package com.todo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AdminTodoPageResponse {
+    private List<AdminTodoView> items;
+    private String nextCursor;
+    private boolean hasMore;
+}
@@ -0,0 +1,26 @@
+package com.todo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lightweight admin listing row. description holds only the first
+ * characters of the todo description.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AdminTodoView {
+    private Integer id;
+    private String title;
+    private String description;
+    private Boolean isCompleted;
+    private LocalDateTime dueDate;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private Integer userId;
+    private String username;
+}
@@ -13,6 +13,7 @@ import java.time.LocalDateTime;
 public class AttachmentDTO {
 
 
+    private Integer id;
     private String fileName;
     private Long fileSize;
     private String fileType;
@@ -21,6 +22,7 @@ public class AttachmentDTO {
     private LocalDateTime createdAt;
 
     public AttachmentDTO(Attachment attachment, UserDTO user) {
+        this.setId(attachment.getId());
         this.setFileName(attachment.getFileName());
         this.setFileSize(attachment.getFileSize());
         this.setFileType(attachment.getFileType());
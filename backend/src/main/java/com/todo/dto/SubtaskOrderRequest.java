@@ -0,0 +1,11 @@
+package com.todo.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class SubtaskOrderRequest {
+    // Every subtask id of the todo, in the new order
+    private List<Integer> subtaskIds;
+}
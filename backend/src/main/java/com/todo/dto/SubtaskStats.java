@@ -0,0 +1,18 @@
+package com.todo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Subtask progress of one todo
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SubtaskStats {
+    private long total;
+    private long completed;
+
+    public double getPercentage() {
+        return total == 0 ? 0 : (completed * 100.0) / total;
+    }
+}
@@ -0,0 +1,26 @@
+package com.todo.dto;
+
+import com.todo.entity.Todo;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One queued client edit inside a POST /todos/batch request.
+ * CREATE uses todo, UPDATE uses id and todo, DELETE uses id.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TodoBatchOperation {
+
+    public enum Type {
+        CREATE,
+        UPDATE,
+        DELETE
+    }
+
+    private Type op;
+    private Integer id;
+    private Todo todo;
+}
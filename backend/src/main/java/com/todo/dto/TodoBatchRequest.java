@@ -0,0 +1,10 @@
+package com.todo.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class TodoBatchRequest {
+    private List<TodoBatchOperation> operations;
+}
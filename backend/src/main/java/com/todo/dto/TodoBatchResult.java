@@ -0,0 +1,29 @@
+package com.todo.dto;
+
+import com.todo.entity.Todo;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of a single batch operation, reported with an HTTP-style status code
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TodoBatchResult {
+    private int index;
+    private TodoBatchOperation.Type op;
+    private Integer id;
+    private int status;
+    private Todo todo;
+    private String error;
+
+    public static TodoBatchResult success(int index, TodoBatchOperation.Type op, Integer id, int status, Todo todo) {
+        return new TodoBatchResult(index, op, id, status, todo, null);
+    }
+
+    public static TodoBatchResult failure(int index, TodoBatchOperation.Type op, Integer id, int status, String error) {
+        return new TodoBatchResult(index, op, id, status, null, error);
+    }
+}
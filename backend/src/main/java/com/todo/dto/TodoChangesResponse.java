@@ -0,0 +1,22 @@
+package com.todo.dto;
+
+import com.todo.entity.Todo;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Delta-sync payload. When reset is true the client must replace its local
+ * copy with changed; otherwise it upserts changed and drops the deleted IDs.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TodoChangesResponse {
+    private List<Todo> changed;
+    private List<Integer> deleted;
+    private String nextToken;
+    private boolean reset;
+}
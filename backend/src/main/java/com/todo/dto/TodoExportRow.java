@@ -0,0 +1,57 @@
+package com.todo.dto;
+
+import com.todo.entity.Attachment;
+import com.todo.entity.Subtask;
+import com.todo.entity.Todo;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * One exported todo together with its subtasks and attachment metadata
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TodoExportRow {
+    private Integer id;
+    private String title;
+    private String description;
+    private Boolean isCompleted;
+    private LocalDateTime dueDate;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private List<Subtask> subtasks;
+    private List<AttachmentMetadata> attachments;
+
+    public TodoExportRow(Todo todo, List<Subtask> subtasks, List<AttachmentMetadata> attachments) {
+        this.id = todo.getId();
+        this.title = todo.getTitle();
+        this.description = todo.getDescription();
+        this.isCompleted = todo.getIsCompleted();
+        this.dueDate = todo.getDueDate();
+        this.createdAt = todo.getCreatedAt();
+        this.updatedAt = todo.getUpdatedAt();
+        this.subtasks = subtasks;
+        this.attachments = attachments;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class AttachmentMetadata {
+        private Integer id;
+        private String fileName;
+        private Long fileSize;
+        private String fileType;
+        private LocalDateTime createdAt;
+
+        public AttachmentMetadata(Attachment attachment) {
+            this(attachment.getId(), attachment.getFileName(), attachment.getFileSize(),
+                    attachment.getFileType(), attachment.getCreatedAt());
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.todo.dto;
+
+import com.todo.entity.Todo;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TodoPageResponse {
+    private List<Todo> items;
+    private String nextCursor;
+    private boolean hasMore;
+}
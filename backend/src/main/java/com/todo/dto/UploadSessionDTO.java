@@ -0,0 +1,24 @@
+package com.todo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// State of a resumable upload: chunks are PUT at offsets that are multiples of chunkSize
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadSessionDTO {
+    private String uploadId;
+    private Integer todoId;
+    private String fileName;
+    private long fileSize;
+    private long chunkSize;
+    private long receivedBytes;
+    // Indexes of chunks still to send (offset = index * chunkSize)
+    private List<Integer> missingChunks;
+    private LocalDateTime expiresAt;
+}
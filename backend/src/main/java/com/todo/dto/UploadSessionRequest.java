@@ -0,0 +1,12 @@
+package com.todo.dto;
+
+import lombok.Data;
+
+@Data
+public class UploadSessionRequest {
+    private String fileName;
+    private Long fileSize;
+    private String contentType;
+    // Optional SHA-256 (hex) of the whole file, checked when the upload completes
+    private String sha256;
+}
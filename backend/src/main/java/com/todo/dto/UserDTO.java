@@ -20,6 +20,13 @@ public class UserDTO {
     private Integer todoCount;
     private String profilePictureUrl;
 
+    // todoCount is passed in rather than read from user.getTodos(), which would load the whole collection
+    public UserDTO(User user, long todoCount) {
+        this(user);
+        this.todoCount = (int) todoCount;
+    }
+
+    // Without a todo count (left null), for places that only need to say who the user is
     public UserDTO(User user) {
         this.id = user.getId();
         this.username = user.getUsername();
@@ -30,8 +37,14 @@ public class UserDTO {
             this.role = "ADMIN";
         }
 
+        this.isActive = user.getIsActive();
         this.createdAt = user.getCreatedAt();
-        this.todoCount = user.getTodos().size();
         this.profilePictureUrl = user.getProfilePictureUrl();
     }
+
+    // Used by the JPQL constructor expression in UserRepository.findAllWithTodoCounts
+    public UserDTO(Integer id, String username, String email, Role role, Boolean isActive,
+                   LocalDateTime createdAt, Long todoCount, String profilePictureUrl) {
+        this(id, username, email, role.name(), isActive, createdAt, todoCount.intValue(), profilePictureUrl);
+    }
 }
\ No newline at end of file
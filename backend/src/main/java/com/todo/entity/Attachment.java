@@ -9,7 +9,9 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "attachments")
+@Table(name = "attachments", indexes = {
+        @Index(name = "idx_attachments_file_path", columnList = "file_path")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -22,6 +24,7 @@ public class Attachment {
     @Column(name = "file_name", nullable = false, length = 255)
     private String fileName;
 
+    // Shared content-addressed blob (see AttachmentBlob); older uploads still point at their own file
     @Column(name = "file_path", nullable = false, length = 500)
     private String filePath;
 
@@ -1,5 +1,6 @@
 package com.todo.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -8,7 +9,10 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "subtasks")
+@Table(name = "subtasks", indexes = {
+        @Index(name = "idx_subtasks_completed", columnList = "is_completed"),
+        @Index(name = "idx_subtasks_todo_order", columnList = "todo_id, order_key")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -27,8 +31,14 @@ public class Subtask {
     @Column(name = "is_completed", nullable = false)
     private Boolean isCompleted = false;
 
-    @Column(name = "position")
-    private Integer position = 0;
+    // Sparse sort key (gaps of SubtaskService.ORDER_KEY_GAP) - a move or insert rewrites only this row
+    @JsonIgnore
+    @Column(name = "order_key", nullable = false)
+    private Long orderKey = 0L;
+
+    // Index within the todo's list: filled on reads, on writes the slot to insert or move to
+    @Transient
+    private Integer position;
 
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
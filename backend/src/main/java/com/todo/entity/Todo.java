@@ -2,6 +2,9 @@ package com.todo.entity;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.todo.dto.SubtaskStats;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -10,14 +13,21 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "todos")
+@Table(name = "todos", indexes = {
+        @Index(name = "idx_todos_user_created", columnList = "user_id, created_at, id"),
+        @Index(name = "idx_todos_user_change", columnList = "user_id, change_version"),
+        @Index(name = "idx_todos_completed", columnList = "is_completed, created_at, id"),
+        @Index(name = "idx_todos_created", columnList = "created_at, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Todo {
 
+    // Pooled sequence (a table on MySQL) instead of IDENTITY so inserts can be JDBC-batched
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "todo_seq")
+    @SequenceGenerator(name = "todo_seq", sequenceName = "todo_seq", allocationSize = 50)
     private Integer id;
 
     @Column(nullable = false)
@@ -46,6 +56,25 @@ public class Todo {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    // Owner's data version at the last write of this row (see DataVersionService), read by delta sync
+    @Column(name = "change_version", nullable = false)
+    @JsonIgnore
+    private Long changeVersion = 0L;
+
+    // Subtask counters - only changed through TodoRepository's relative UPDATEs, never by saving the entity
+    @Column(name = "subtask_total", nullable = false, updatable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Integer subtaskTotal = 0;
+
+    @Column(name = "subtask_completed", nullable = false, updatable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Integer subtaskCompleted = 0;
+
+    // Only filled when a list request asks for subtask stats inline
+    @Transient
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private SubtaskStats subtaskStats;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -0,0 +1,51 @@
+package com.todo.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Tombstone for a hard-deleted todo, so delta sync can tell clients what to drop
+ */
+@Entity
+@Table(name = "todo_deletions", indexes = {
+        @Index(name = "idx_todo_deletions_user_change", columnList = "user_id, change_version")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TodoDeletion {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "todo_id", nullable = false)
+    private Integer todoId;
+
+    @Column(name = "user_id", nullable = false)
+    private Integer userId;
+
+    @Column(name = "deleted_at", nullable = false)
+    private LocalDateTime deletedAt;
+
+    // Owner's data version of the deleting write, read by delta sync
+    @Column(name = "change_version", nullable = false)
+    private Long changeVersion;
+
+    @PrePersist
+    protected void onCreate() {
+        if (deletedAt == null) {
+            deletedAt = LocalDateTime.now();
+        }
+    }
+
+    public TodoDeletion(Integer todoId, Integer userId, long changeVersion) {
+        this.todoId = todoId;
+        this.userId = userId;
+        this.changeVersion = changeVersion;
+    }
+}
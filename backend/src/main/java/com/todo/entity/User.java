@@ -50,6 +50,12 @@ public class User {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    // Bumped by every write to this user's todos, subtasks and attachments (used as ETag).
+    // Only changed through DataVersionService's relative UPDATE, never by saving the entity.
+    @Column(name = "data_version", nullable = false, updatable = false)
+    @JsonIgnore
+    private Long dataVersion = 0L;
+
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, orphanRemoval = true)
     @JsonIgnore
     private List<Todo> todos;
@@ -0,0 +1,76 @@
+package com.todo.repository;
+
+import com.todo.entity.AttachmentBlob;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface AttachmentBlobRepository extends JpaRepository<AttachmentBlob, String> {
+
+    /**
+     * Create the blob row or take one more reference on it; the row stays locked until commit
+     */
+    @Modifying
+    @Query(value = "INSERT INTO attachment_blobs (content_hash, file_path, file_size, ref_count, created_at) " +
+                   "VALUES (:hash, :path, :size, 1, NOW()) ON DUPLICATE KEY UPDATE ref_count = ref_count + 1",
+           nativeQuery = true)
+    int addReference(@Param("hash") String hash, @Param("path") String path, @Param("size") long size);
+
+    /**
+     * Where the blob's single copy lives (new uploads go wherever an existing blob already is)
+     */
+    @Query("SELECT b.filePath FROM AttachmentBlob b WHERE b.contentHash = :hash")
+    Optional<String> findFilePathByContentHash(@Param("hash") String hash);
+
+    /**
+     * Point the blob row at its new location (layout migration, under the row lock)
+     */
+    @Modifying
+    @Query("UPDATE AttachmentBlob b SET b.filePath = :path WHERE b.contentHash = :hash")
+    int updateFilePath(@Param("hash") String hash, @Param("path") String path);
+
+    /**
+     * Drop one reference (never below zero)
+     */
+    @Modifying
+    @Query("UPDATE AttachmentBlob b SET b.refCount = b.refCount - 1 WHERE b.contentHash = :hash AND b.refCount > 0")
+    int removeReference(@Param("hash") String hash);
+
+    /**
+     * Row-locked read, so a purge and a new upload of the same content never interleave
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM AttachmentBlob b WHERE b.contentHash = :hash")
+    Optional<AttachmentBlob> findByContentHashForUpdate(@Param("hash") String hash);
+
+    /**
+     * Next hashes in key order after the given one (the upper bound of one recount chunk)
+     */
+    @Query(value = "SELECT content_hash FROM attachment_blobs WHERE content_hash > :after " +
+                   "ORDER BY content_hash LIMIT :limit",
+           nativeQuery = true)
+    List<String> findContentHashesAfter(@Param("after") String after, @Param("limit") int limit);
+
+    /**
+     * Reset the reference counts of blobs with from < hash <= to from the attachments table
+     * (catches rows removed by FK cascades); only that key range is locked
+     */
+    @Modifying
+    @Query(value = "UPDATE attachment_blobs b SET b.ref_count = " +
+                   "(SELECT COUNT(*) FROM attachments a WHERE a.file_path = b.file_path) " +
+                   "WHERE b.content_hash > :from AND b.content_hash <= :to " +
+                   "AND b.ref_count <> (SELECT COUNT(*) FROM attachments a WHERE a.file_path = b.file_path)",
+           nativeQuery = true)
+    int recountReferences(@Param("from") String from, @Param("to") String to);
+
+    @Query("SELECT b.contentHash FROM AttachmentBlob b WHERE b.refCount = 0")
+    List<String> findUnreferencedHashes();
+}
@@ -1,11 +1,17 @@
 package com.todo.repository;
 
 import com.todo.entity.Attachment;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface AttachmentRepository extends JpaRepository<Attachment, Integer> {
@@ -15,6 +21,37 @@ public interface AttachmentRepository extends JpaRepository<Attachment, Integer>
      */
     List<Attachment> findByTodo_IdOrderByCreatedAtDesc(Integer todoId);
 
+    /**
+     * Find attachments for a batch of todos in one query
+     */
+    List<Attachment> findByTodo_IdInOrderByCreatedAtDesc(Collection<Integer> todoIds);
+
+    /**
+     * Owner of the attachment's todo (0 when the todo has no user), one primary-key join
+     */
+    @Query("SELECT COALESCE(t.user.id, 0) FROM Attachment a JOIN a.todo t WHERE a.id = :id")
+    Optional<Integer> findOwnerIdById(@Param("id") Integer id);
+
+    /**
+     * Next batch of attachments, by id, whose file is not yet in the fan-out blob layout
+     */
+    @Query("SELECT a.id, a.filePath FROM Attachment a WHERE a.id > :afterId " +
+           "AND a.filePath NOT LIKE 'blobs/__/__/%' ORDER BY a.id")
+    List<Object[]> findUnshardedAfter(@Param("afterId") Integer afterId, Pageable pageable);
+
+    /**
+     * Repoint attachments at a moved file - compare-and-set, so rows changed meanwhile are left alone
+     */
+    @Modifying
+    @Query("UPDATE Attachment a SET a.filePath = :newPath WHERE a.filePath = :oldPath")
+    int updateFilePath(@Param("oldPath") String oldPath, @Param("newPath") String newPath);
+
+    @Modifying
+    @Query("UPDATE Attachment a SET a.filePath = :newPath WHERE a.id = :id AND a.filePath = :oldPath")
+    int updateFilePathById(@Param("id") Integer id, @Param("oldPath") String oldPath, @Param("newPath") String newPath);
+
+    boolean existsByFilePath(String filePath);
+
     /**
      * Delete all attachments for a specific todo
      */
@@ -1,22 +1,48 @@
 package com.todo.repository;
 
 import com.todo.entity.Subtask;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface SubtaskRepository extends JpaRepository<Subtask, Integer> {
 
-    // Find all subtasks for a specific todo
-    List<Subtask> findByTodoIdOrderByPositionAsc(Integer todoId);
+    // Find all subtasks for a specific todo, in list order (served by idx_subtasks_todo_order)
+    @Query("SELECT s FROM Subtask s WHERE s.todoId = :todoId ORDER BY s.orderKey ASC, s.id ASC")
+    List<Subtask> findByTodoIdOrderByPositionAsc(@Param("todoId") Integer todoId);
+
+    // Current (id, orderKey) pairs of a todo's subtasks in list order, read from the index alone
+    @Query("SELECT s.id, s.orderKey FROM Subtask s WHERE s.todoId = :todoId ORDER BY s.orderKey ASC, s.id ASC")
+    List<Object[]> findOrderKeysByTodoId(@Param("todoId") Integer todoId);
+
+    // Find subtasks for a batch of todos in one query
+    @Query("SELECT s FROM Subtask s WHERE s.todoId IN :todoIds ORDER BY s.todoId ASC, s.orderKey ASC, s.id ASC")
+    List<Subtask> findByTodoIdInOrderByTodoIdAscPositionAsc(@Param("todoIds") Collection<Integer> todoIds);
+
+    // Row-locked read for writes that adjust the parent todo's counters from the current completion state
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM Subtask s WHERE s.id = :id")
+    Optional<Subtask> findByIdForUpdate(@Param("id") Integer id);
+
+    // Parent todo id only, so writes can lock the todo before the subtask row
+    @Query("SELECT s.todoId FROM Subtask s WHERE s.id = :id")
+    Optional<Integer> findTodoIdById(@Param("id") Integer id);
+
+    // Ownership check - owner of the parent todo, one primary-key join
+    @Query("SELECT COALESCE(t.user.id, 0) FROM Subtask s JOIN Todo t ON t.id = s.todoId WHERE s.id = :id")
+    Optional<Integer> findOwnerIdById(@Param("id") Integer id);
 
     // Delete all subtasks for a specific todo
     void deleteByTodoId(Integer todoId);
 
-    // Count total subtasks for a todo
-    long countByTodoId(Integer todoId);
-
-    // Count completed subtasks for a todo
-    long countByTodoIdAndIsCompletedTrue(Integer todoId);
+    // Admin stats - (isCompleted, count) rows across all subtasks
+    @Query("SELECT s.isCompleted, COUNT(s) FROM Subtask s GROUP BY s.isCompleted")
+    List<Object[]> countGroupedByCompletion();
 }
\ No newline at end of file
@@ -0,0 +1,28 @@
+package com.todo.repository;
+
+import com.todo.entity.TodoDeletion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface TodoDeletionRepository extends JpaRepository<TodoDeletion, Long> {
+
+    // IDs of a user's todos deleted by writes with since < version <= upTo
+    @Query("SELECT DISTINCT d.todoId FROM TodoDeletion d WHERE d.userId = :userId " +
+            "AND d.changeVersion > :since AND d.changeVersion <= :upTo")
+    List<Integer> findDeletedTodoIdsBetween(@Param("userId") Integer userId, @Param("since") long since,
+                                            @Param("upTo") long upTo);
+
+    // Purge tombstones older than the retention window
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM TodoDeletion d WHERE d.deletedAt < :cutoff")
+    int deleteOlderThan(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -1,13 +1,125 @@
 package com.todo.repository;
 
+import com.todo.dto.AdminTodoView;
 import com.todo.entity.Todo;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.QueryHint;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface TodoRepository extends JpaRepository<Todo, Integer> {
     List<Todo> findTodosByTitleContainingIgnoreCaseAndUserIdIs(String title, Integer user_id);
     List<Todo> findTodosByUserIdIs(Integer user_id);
-}
\ No newline at end of file
+
+    // Served from the (user_id, ...) indexes, no rows loaded
+    long countByUserId(Integer userId);
+
+    @Query("SELECT DISTINCT t.user.id FROM Todo t WHERE t.user IS NOT NULL")
+    List<Integer> findDistinctUserIds();
+
+    // Subtask counters - relative updates, so concurrent subtask writes never lose an increment.
+    // The counters are part of the todo's JSON, so both also stamp the row for delta sync (version = owner's bump)
+    @Modifying
+    @Query("UPDATE Todo t SET t.subtaskTotal = t.subtaskTotal + :total, " +
+           "t.subtaskCompleted = t.subtaskCompleted + :completed, " +
+           "t.updatedAt = CURRENT_TIMESTAMP, t.changeVersion = :version WHERE t.id = :id")
+    int adjustSubtaskCounters(@Param("id") Integer id, @Param("total") int total, @Param("completed") int completed,
+                              @Param("version") long version);
+
+    @Modifying
+    @Query("UPDATE Todo t SET t.subtaskTotal = 0, t.subtaskCompleted = 0, " +
+           "t.updatedAt = CURRENT_TIMESTAMP, t.changeVersion = :version WHERE t.id = :id")
+    int resetSubtaskCounters(@Param("id") Integer id, @Param("version") long version);
+
+    // (id, subtaskTotal, subtaskCompleted) rows - progress without touching the subtasks table
+    @Query("SELECT t.id, t.subtaskTotal, t.subtaskCompleted FROM Todo t WHERE t.id IN :ids")
+    List<Object[]> findSubtaskCountersByIds(@Param("ids") Collection<Integer> ids);
+
+    @Query("SELECT t.id, t.subtaskTotal, t.subtaskCompleted FROM Todo t WHERE t.user.id = :userId")
+    List<Object[]> findSubtaskCountersByUserId(@Param("userId") Integer userId);
+
+    @Query("SELECT t.id, t.subtaskTotal, t.subtaskCompleted FROM Todo t WHERE t.user.id = :userId AND t.id IN :ids")
+    List<Object[]> findSubtaskCountersByUserIdAndIds(@Param("userId") Integer userId, @Param("ids") Collection<Integer> ids);
+
+    // Keyset pagination - first page, backed by idx_todos_user_created (user_id, created_at, id)
+    @Query("SELECT t FROM Todo t WHERE t.user.id = :userId ORDER BY t.createdAt ASC, t.id ASC")
+    List<Todo> findFirstPageByUserId(@Param("userId") Integer userId, Pageable pageable);
+
+    // Keyset pagination - rows strictly after the (createdAt, id) cursor
+    @Query("SELECT t FROM Todo t WHERE t.user.id = :userId " +
+            "AND (t.createdAt > :createdAt OR (t.createdAt = :createdAt AND t.id > :id)) " +
+            "ORDER BY t.createdAt ASC, t.id ASC")
+    List<Todo> findPageByUserIdAfter(@Param("userId") Integer userId,
+                                     @Param("createdAt") LocalDateTime createdAt,
+                                     @Param("id") Integer id,
+                                     Pageable pageable);
+
+    // Calendar event id of a synced todo - targeted UPDATE, so it never overwrites fields changed meanwhile
+    @Modifying
+    @Query("UPDATE Todo t SET t.googleCalendarEventId = :eventId, t.updatedAt = CURRENT_TIMESTAMP, " +
+           "t.changeVersion = :version WHERE t.id = :id")
+    int updateGoogleCalendarEventId(@Param("id") Integer id, @Param("eventId") String eventId,
+                                    @Param("version") long version);
+
+    // Row lock on the todo that serializes writes to its subtasks' order keys (held until commit)
+    @Query(value = "SELECT id FROM todos WHERE id = :id FOR UPDATE", nativeQuery = true)
+    Optional<Integer> lockById(@Param("id") Integer id);
+
+    // Ownership check - owner id only (0 when the todo has no user), primary-key lookup
+    @Query("SELECT COALESCE(t.user.id, 0) FROM Todo t WHERE t.id = :id")
+    Optional<Integer> findOwnerIdById(@Param("id") Integer id);
+
+    // Admin browsing - newest first, keyset on (createdAt, id); every filter is optional.
+    // Uses idx_todos_user_created, idx_todos_completed or idx_todos_created depending on the filters.
+    @Query("SELECT new com.todo.dto.AdminTodoView(t.id, t.title, SUBSTRING(t.description, 1, 200), " +
+            "t.isCompleted, t.dueDate, t.createdAt, t.updatedAt, u.id, u.username) " +
+            "FROM Todo t LEFT JOIN t.user u " +
+            "WHERE (:userId IS NULL OR t.user.id = :userId) " +
+            "AND (:completed IS NULL OR t.isCompleted = :completed) " +
+            "AND (:createdFrom IS NULL OR t.createdAt >= :createdFrom) " +
+            "AND (:createdTo IS NULL OR t.createdAt < :createdTo) " +
+            "AND (:dueFrom IS NULL OR t.dueDate >= :dueFrom) " +
+            "AND (:dueTo IS NULL OR t.dueDate < :dueTo) " +
+            "AND (:beforeCreatedAt IS NULL OR t.createdAt < :beforeCreatedAt " +
+            "     OR (t.createdAt = :beforeCreatedAt AND t.id < :beforeId)) " +
+            "ORDER BY t.createdAt DESC, t.id DESC")
+    List<AdminTodoView> findAdminPage(@Param("userId") Integer userId,
+                                      @Param("completed") Boolean completed,
+                                      @Param("createdFrom") LocalDateTime createdFrom,
+                                      @Param("createdTo") LocalDateTime createdTo,
+                                      @Param("dueFrom") LocalDateTime dueFrom,
+                                      @Param("dueTo") LocalDateTime dueTo,
+                                      @Param("beforeCreatedAt") LocalDateTime beforeCreatedAt,
+                                      @Param("beforeId") Integer beforeId,
+                                      Pageable pageable);
+
+    // Admin stats - (isCompleted, count) rows, served from idx_todos_completed
+    @Query("SELECT t.isCompleted, COUNT(t) FROM Todo t GROUP BY t.isCompleted")
+    List<Object[]> countGroupedByCompletion();
+
+    // Delta sync - todos written with since < version <= upTo, backed by idx_todos_user_change
+    @Query("SELECT t FROM Todo t WHERE t.user.id = :userId " +
+            "AND t.changeVersion > :since AND t.changeVersion <= :upTo ORDER BY t.changeVersion ASC, t.id ASC")
+    List<Todo> findChangedBetween(@Param("userId") Integer userId, @Param("since") long since,
+                                  @Param("upTo") long upTo);
+
+    // Export - read through a server-side cursor instead of materializing the whole list
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.fetchSize", value = "500"),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")
+    })
+    @Query("SELECT t FROM Todo t WHERE t.user.id = :userId ORDER BY t.id ASC")
+    Stream<Todo> streamByUserId(@Param("userId") Integer userId);
+}
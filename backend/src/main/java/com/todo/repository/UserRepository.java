@@ -1,9 +1,12 @@
 package com.todo.repository;
 
+import com.todo.dto.UserDTO;
 import com.todo.entity.User;
 import com.todo.entity.Role;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.util.Optional;
 import java.util.List;
@@ -29,7 +32,43 @@ public interface UserRepository extends JpaRepository<User, Integer> {
     @Query("SELECT COUNT(u) FROM User u WHERE u.role = 'ADMIN'")
     long countAdmins();
 
+    // (role, count) rows for the admin dashboard
+    @Query("SELECT u.role, COUNT(u) FROM User u GROUP BY u.role")
+    List<Object[]> countGroupedByRole();
+
     Optional<User> findByProviderAndProviderId(String provider, String providerId);
 
     Boolean existsByProviderAndProviderId(String provider, String providerId);
+
+    // Every user with their todo count in one grouped query
+    @Query("SELECT new com.todo.dto.UserDTO(u.id, u.username, u.email, u.role, u.isActive, " +
+            "u.createdAt, COUNT(t.id), u.profilePictureUrl) " +
+            "FROM User u LEFT JOIN u.todos t " +
+            "GROUP BY u.id, u.username, u.email, u.role, u.isActive, u.createdAt, u.profilePictureUrl " +
+            "ORDER BY u.id")
+    List<UserDTO> findAllWithTodoCounts();
+
+    // (role, isActive) of one user - primary-key read that confirms a cached principal is still current
+    @Query("SELECT u.role, u.isActive FROM User u WHERE u.id = :id")
+    List<Object[]> findRoleAndActiveById(@Param("id") Integer id);
+
+    @Query("SELECT u.dataVersion FROM User u WHERE u.id = :id")
+    Optional<Long> findDataVersionById(@Param("id") Integer id);
+
+    @Query("SELECT t.user.dataVersion FROM Todo t WHERE t.id = :todoId")
+    Optional<Long> findDataVersionByTodoId(@Param("todoId") Integer todoId);
+
+    // Transparent rehash on login - touches only the password column
+    @Modifying
+    @Query("UPDATE User u SET u.password = :password WHERE u.username = :username")
+    int updatePasswordByUsername(@Param("username") String username, @Param("password") String password);
+
+    @Modifying
+    @Query("UPDATE User u SET u.dataVersion = u.dataVersion + 1 WHERE u.id = :id")
+    int incrementDataVersion(@Param("id") Integer id);
+
+    @Modifying
+    @Query("UPDATE User u SET u.dataVersion = u.dataVersion + 1 " +
+            "WHERE u.id = (SELECT t.user.id FROM Todo t WHERE t.id = :todoId)")
+    int incrementDataVersionByTodoId(@Param("todoId") Integer todoId);
 }
\ No newline at end of file
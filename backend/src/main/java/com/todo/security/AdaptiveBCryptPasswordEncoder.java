@@ -0,0 +1,78 @@
+package com.todo.security;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * BCrypt encoder that, for a pinned cost, asks for a rehash whenever a stored
+ * hash was made with a different cost (the stock encoder only upgrades to a
+ * higher cost), so lowering the configured cost also takes effect. A calibrated
+ * cost only upgrades, since it can differ between machines. Spring Security's
+ * DaoAuthenticationProvider performs the rehash on the next successful login
+ * through UserDetailsPasswordService.
+ */
+public class AdaptiveBCryptPasswordEncoder extends BCryptPasswordEncoder {
+
+    public static final int MIN_STRENGTH = 10;
+    public static final int MAX_STRENGTH = 16;
+
+    private final int strength;
+
+    // false = only rehash hashes below strength
+    private final boolean rehashOnAnyChange;
+
+    public AdaptiveBCryptPasswordEncoder(int strength) {
+        this(strength, true);
+    }
+
+    public AdaptiveBCryptPasswordEncoder(int strength, boolean rehashOnAnyChange) {
+        super(strength);
+        this.strength = strength;
+        this.rehashOnAnyChange = rehashOnAnyChange;
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        Integer storedStrength = strengthOf(encodedPassword);
+        if (storedStrength == null) {
+            return false;
+        }
+        return rehashOnAnyChange ? storedStrength != strength : storedStrength < strength;
+    }
+
+    /**
+     * Opt-in tuning aid: picks the cost whose hash time is closest to targetMs without going
+     * under it, by timing MIN_STRENGTH on this machine and doubling from there
+     * (each cost step doubles the work).
+     */
+    public static int calibrate(long targetMs) {
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(MIN_STRENGTH);
+        probe.encode("calibration-warmup");
+
+        long start = System.nanoTime();
+        probe.encode("calibration-probe");
+        double elapsedMs = Math.max((System.nanoTime() - start) / 1_000_000.0, 1.0);
+
+        int strength = MIN_STRENGTH;
+        while (strength < MAX_STRENGTH && elapsedMs < targetMs) {
+            elapsedMs *= 2;
+            strength++;
+        }
+        return strength;
+    }
+
+    // "$2a$10$..." -> 10
+    static Integer strengthOf(String encodedPassword) {
+        if (encodedPassword == null || encodedPassword.length() < 7 || encodedPassword.charAt(0) != '$') {
+            return null;
+        }
+        try {
+            return Integer.parseInt(encodedPassword.substring(4, 6));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.todo.security;
+
+import com.todo.entity.Role;
+import com.todo.entity.User;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Immutable snapshot of the user fields needed to authorize a request.
+ * Holds no password hash, so it is safe to keep in the principal cache.
+ */
+public final class AuthenticatedUser implements UserDetails {
+
+    private final Integer id;
+    private final String username;
+    private final Role role;
+    private final boolean active;
+    private final Collection<? extends GrantedAuthority> authorities;
+
+    public AuthenticatedUser(Integer id, String username, Role role, boolean active) {
+        this.id = id;
+        this.username = username;
+        this.role = role;
+        this.active = active;
+        this.authorities = Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role.name()));
+    }
+
+    public static AuthenticatedUser from(User user) {
+        return new AuthenticatedUser(user.getId(), user.getUsername(), user.getRole(),
+                Boolean.TRUE.equals(user.getIsActive()));
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public Role getRole() {
+        return role;
+    }
+
+    @Override
+    public String getUsername() {
+        return username;
+    }
+
+    @Override
+    public String getPassword() {
+        return null;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return active;
+    }
+}
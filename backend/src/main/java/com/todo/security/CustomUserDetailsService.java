@@ -6,19 +6,25 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 
 @Service
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private PrincipalCache principalCache;
+
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         User user = userRepository.findByUsername(username)
@@ -35,6 +41,45 @@ public class CustomUserDetailsService implements UserDetailsService {
         );
     }
 
+    // Called by the authentication provider after a successful login when the stored hash used another BCrypt cost
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        userRepository.updatePasswordByUsername(user.getUsername(), newPassword);
+        return org.springframework.security.core.userdetails.User.withUserDetails(user)
+                .password(newPassword)
+                .build();
+    }
+
+    // Principal for an already-issued token: served from the cache, no password hash loaded.
+    // A hit is confirmed with a primary-key read of role and active flag, since another node
+    // may have demoted, deactivated or deleted the user and only invalidated its own cache
+    public AuthenticatedUser loadPrincipal(String username) throws UsernameNotFoundException {
+        AuthenticatedUser cached = principalCache.get(username);
+        if (cached != null) {
+            if (isCurrent(cached)) {
+                return cached;
+            }
+            principalCache.invalidate(username);
+        }
+
+        long generation = principalCache.generation();
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
+        AuthenticatedUser principal = AuthenticatedUser.from(user);
+        principalCache.put(principal, generation);
+        return principal;
+    }
+
+    private boolean isCurrent(AuthenticatedUser cached) {
+        List<Object[]> rows = userRepository.findRoleAndActiveById(cached.getId());
+        if (rows.isEmpty()) {
+            return false;
+        }
+        Object[] row = rows.get(0);
+        return row[0] == cached.getRole() && Boolean.TRUE.equals(row[1]) == cached.isEnabled();
+    }
+
     private Collection<? extends GrantedAuthority> getAuthorities(User user) {
         return Collections.singletonList(
                 new SimpleGrantedAuthority("ROLE_" + user.getRole().name())
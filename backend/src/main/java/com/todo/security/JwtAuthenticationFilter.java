@@ -7,7 +7,6 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
@@ -32,12 +31,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             String jwt = extractJwtFromRequest(request);
 
             if (StringUtils.hasText(jwt)) {
-                String username = jwtUtil.extractUsername(jwt);
+                // One parse verifies signature and expiry and yields every claim
+                TokenClaims claims = jwtUtil.parseToken(jwt);
 
-                if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                    UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                if (claims.getUsername() != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+                    // Role and active flag come from the principal cache so admin changes apply immediately
+                    AuthenticatedUser userDetails = userDetailsService.loadPrincipal(claims.getUsername());
 
-                    if (jwtUtil.validateToken(jwt, userDetails)) {
+                    if (userDetails.isEnabled() && claims.belongsTo(userDetails)) {
                         UsernamePasswordAuthenticationToken authentication =
                                 new UsernamePasswordAuthenticationToken(
                                         userDetails,
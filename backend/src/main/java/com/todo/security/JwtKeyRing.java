@@ -0,0 +1,153 @@
+package com.todo.security;
+
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.WeakKeyException;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+
+/**
+ * Shared HMAC signing keys for JWTs, loaded from a properties file so every
+ * backend instance signs and verifies with the same keys across restarts.
+ *
+ * <pre>
+ * key.&lt;kid&gt;.secret=&lt;base64, at least 32 bytes&gt;
+ * key.&lt;kid&gt;.not-before=2026-01-01T00:00:00Z   (optional: start signing from here)
+ * key.&lt;kid&gt;.not-after=2026-04-01T00:00:00Z    (optional: stop accepting after)
+ * </pre>
+ *
+ * To rotate, publish the new key with a future not-before on every node first,
+ * then set the old key's not-after to at least its last use plus jwt.expiration.
+ * The file is re-read when it changes; without a file an ephemeral key is used.
+ */
+@Component
+@Slf4j
+public class JwtKeyRing {
+
+    private static final String EPHEMERAL_KID = "ephemeral";
+
+    @Value("${jwt.keyring.file:}")
+    private String keyRingFile;
+
+    private volatile Map<String, JwtSigningKey> keys = Map.of();
+    private volatile long loadedModifiedTime = -1;
+
+    @PostConstruct
+    public void init() {
+        if (keyRingFile == null || keyRingFile.isBlank()) {
+            byte[] secret = new byte[32];
+            new SecureRandom().nextBytes(secret);
+            keys = Map.of(EPHEMERAL_KID, new JwtSigningKey(EPHEMERAL_KID, Keys.hmacShaKeyFor(secret), null, null));
+            log.warn("jwt.keyring.file is not set - using an ephemeral signing key; tokens will not survive a restart");
+            return;
+        }
+        load();
+    }
+
+    // Picks up rotated keys without a restart
+    @Scheduled(fixedDelayString = "${jwt.keyring.reload-interval-ms:60000}")
+    public void reloadIfChanged() {
+        if (keyRingFile == null || keyRingFile.isBlank()) {
+            return;
+        }
+        try {
+            if (Files.getLastModifiedTime(Paths.get(keyRingFile)).toMillis() != loadedModifiedTime) {
+                load();
+            }
+        } catch (Exception e) {
+            log.error("Could not reload JWT key ring {} - keeping the current keys", keyRingFile, e);
+        }
+    }
+
+    /**
+     * Key to sign new tokens with: the most recently activated key that is
+     * inside its validity window.
+     */
+    public JwtSigningKey currentSigningKey() {
+        Instant now = Instant.now();
+        JwtSigningKey current = null;
+        for (JwtSigningKey key : keys.values()) {
+            if (key.canSignAt(now) && (current == null || key.activatesAfter(current))) {
+                current = key;
+            }
+        }
+        if (current == null) {
+            throw new IllegalStateException("No JWT signing key is currently valid");
+        }
+        return current;
+    }
+
+    /**
+     * Key for verifying a token signed with the given kid, or null if the kid
+     * is unknown or retired. not-before is not checked here, so a node whose
+     * clock runs slightly ahead can already sign with a newly published key.
+     */
+    public SecretKey verificationKey(String kid) {
+        JwtSigningKey key = kid == null ? null : keys.get(kid);
+        return key != null && key.canVerifyAt(Instant.now()) ? key.getKey() : null;
+    }
+
+    // The current keys are only replaced by a ring that can sign right now; anything else throws and keeps them
+    private synchronized void load() {
+        Path path = Paths.get(keyRingFile);
+        try {
+            long modifiedTime = Files.getLastModifiedTime(path).toMillis();
+            Properties properties = new Properties();
+            try (Reader reader = Files.newBufferedReader(path)) {
+                properties.load(reader);
+            }
+
+            Map<String, JwtSigningKey> loaded = parse(properties);
+            Instant now = Instant.now();
+            if (loaded.values().stream().noneMatch(key -> key.canSignAt(now))) {
+                throw new IllegalStateException("JWT key ring " + keyRingFile
+                        + (loaded.isEmpty() ? " contains no keys" : " has no key that can sign now " + loaded.keySet()));
+            }
+            keys = Collections.unmodifiableMap(loaded);
+            loadedModifiedTime = modifiedTime;
+            log.info("Loaded JWT key ring {} with key ids {}", keyRingFile, loaded.keySet());
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read JWT key ring " + keyRingFile, e);
+        }
+    }
+
+    static Map<String, JwtSigningKey> parse(Properties properties) {
+        Set<String> kids = new TreeSet<>();
+        for (String name : properties.stringPropertyNames()) {
+            if (name.startsWith("key.") && name.endsWith(".secret")) {
+                kids.add(name.substring("key.".length(), name.length() - ".secret".length()));
+            }
+        }
+
+        Map<String, JwtSigningKey> loaded = new HashMap<>();
+        for (String kid : kids) {
+            String prefix = "key." + kid + ".";
+            try {
+                SecretKey secret = Keys.hmacShaKeyFor(Base64.getDecoder().decode(properties.getProperty(prefix + "secret").trim()));
+                loaded.put(kid, new JwtSigningKey(kid, secret,
+                        parseInstant(properties.getProperty(prefix + "not-before")),
+                        parseInstant(properties.getProperty(prefix + "not-after"))));
+            } catch (IllegalArgumentException | WeakKeyException | DateTimeParseException e) {
+                throw new IllegalStateException("Invalid JWT key '" + kid + "': " + e.getMessage(), e);
+            }
+        }
+        return loaded;
+    }
+
+    private static Instant parseInstant(String value) {
+        return value == null || value.isBlank() ? null : Instant.parse(value.trim());
+    }
+}
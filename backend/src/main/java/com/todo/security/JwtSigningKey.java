@@ -0,0 +1,45 @@
+package com.todo.security;
+
+import javax.crypto.SecretKey;
+import java.time.Instant;
+
+/**
+ * One entry of the JWT key ring. A null notBefore or notAfter means the
+ * window is open on that side.
+ */
+public final class JwtSigningKey {
+
+    private final String kid;
+    private final SecretKey key;
+    private final Instant notBefore;
+    private final Instant notAfter;
+
+    public JwtSigningKey(String kid, SecretKey key, Instant notBefore, Instant notAfter) {
+        this.kid = kid;
+        this.key = key;
+        this.notBefore = notBefore;
+        this.notAfter = notAfter;
+    }
+
+    public String getKid() {
+        return kid;
+    }
+
+    public SecretKey getKey() {
+        return key;
+    }
+
+    boolean canSignAt(Instant now) {
+        return (notBefore == null || !now.isBefore(notBefore)) && canVerifyAt(now);
+    }
+
+    boolean canVerifyAt(Instant now) {
+        return notAfter == null || now.isBefore(notAfter);
+    }
+
+    boolean activatesAfter(JwtSigningKey other) {
+        Instant mine = notBefore == null ? Instant.EPOCH : notBefore;
+        Instant theirs = other.notBefore == null ? Instant.EPOCH : other.notBefore;
+        return mine.isAfter(theirs);
+    }
+}
@@ -1,14 +1,18 @@
 package com.todo.security;
 
+import com.todo.entity.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.ProtectedHeader;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
@@ -17,11 +21,47 @@ import java.util.function.Function;
 @Component
 public class JwtUtil {
 
-    private final SecretKey secretKey = Keys.secretKeyFor(SignatureAlgorithm.HS256);
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_ROLE = "role";
+
+    private final JwtKeyRing keyRing;
+
+    // Built once - the parser is immutable and thread-safe; the kid header selects the key
+    private final JwtParser jwtParser;
+
+    public JwtUtil(JwtKeyRing keyRing) {
+        this.keyRing = keyRing;
+        this.jwtParser = Jwts.parser()
+                .keyLocator(new LocatorAdapter<Key>() {
+                    @Override
+                    protected Key locate(ProtectedHeader header) {
+                        SecretKey key = keyRing.verificationKey(header.getKeyId());
+                        if (key == null) {
+                            throw new JwtException("Unknown or retired signing key: " + header.getKeyId());
+                        }
+                        return key;
+                    }
+                })
+                .build();
+    }
 
     @Value("${jwt.expiration:86400000}") // 24 hours in milliseconds
     private Long jwtExpirationMs;
 
+    /**
+     * Verifies the signature and expiry and reads every claim in a single parse.
+     * Throws a JwtException if the token is malformed, forged or expired.
+     */
+    public TokenClaims parseToken(String token) {
+        Claims claims = extractAllClaims(token);
+        return new TokenClaims(
+                claims.getSubject(),
+                claims.get(CLAIM_USER_ID, Integer.class),
+                claims.get(CLAIM_ROLE, String.class),
+                claims.getExpiration()
+        );
+    }
+
     // Extract username from token
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
@@ -40,16 +80,15 @@ public class JwtUtil {
 
     // Extract all claims
     private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .setSigningKey(secretKey)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return jwtParser.parseSignedClaims(token).getPayload();
     }
 
-    // Check if token is expired
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    // Generate token carrying the user's id and role
+    public String generateToken(User user) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(CLAIM_USER_ID, user.getId());
+        claims.put(CLAIM_ROLE, user.getRole().name());
+        return createToken(claims, user.getUsername());
     }
 
     // Generate token for user
@@ -67,20 +106,25 @@ public class JwtUtil {
         return createToken(claims, username);
     }
 
-    // Create JWT token
+    // Create JWT token, signed with the key ring's current key and tagged with its kid
     private String createToken(Map<String, Object> claims, String subject) {
+        JwtSigningKey signingKey = keyRing.currentSigningKey();
         return Jwts.builder()
-                .setClaims(claims)
-                .setSubject(subject)
-                .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + jwtExpirationMs))
-                .signWith(secretKey, SignatureAlgorithm.HS256)
+                .header().keyId(signingKey.getKid()).and()
+                .claims(claims)
+                .subject(subject)
+                .issuedAt(new Date(System.currentTimeMillis()))
+                .expiration(new Date(System.currentTimeMillis() + jwtExpirationMs))
+                .signWith(signingKey.getKey())
                 .compact();
     }
 
-    // Validate token
+    // Validate token - parsing already rejects bad signatures and expired tokens
     public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        try {
+            return parseToken(token).getUsername().equals(userDetails.getUsername());
+        } catch (JwtException | IllegalArgumentException e) {
+            return false;
+        }
     }
 }
\ No newline at end of file
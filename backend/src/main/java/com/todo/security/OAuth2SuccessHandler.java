@@ -68,8 +68,8 @@ public class OAuth2SuccessHandler extends SimpleUrlAuthenticationSuccessHandler
             return;
         }
 
-        // Generate token using username (which is always set)
-        String token = jwtUtil.generateToken(user.getUsername());
+        // Generate token carrying username, id and role
+        String token = jwtUtil.generateToken(user);
 
         String targetUrl = UriComponentsBuilder.fromUriString("http://localhost:5173/oauth2/redirect")
                 .queryParam("token", token)
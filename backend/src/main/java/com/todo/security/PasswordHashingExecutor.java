@@ -0,0 +1,96 @@
+package com.todo.security;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Dedicated, bounded pool for BCrypt work (login and register), so a login
+ * storm queues here instead of occupying every Tomcat request thread. When
+ * the queue is full the caller gets a LoginThrottledException carrying a
+ * Retry-After estimate based on queue depth and recent hash times.
+ */
+@Component
+public class PasswordHashingExecutor {
+
+    @Value("${auth.hashing.threads:0}")
+    private int threads;
+
+    @Value("${auth.hashing.queue-capacity:64}")
+    private int queueCapacity;
+
+    private ThreadPoolExecutor executor;
+    private int poolSize;
+
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+
+    // Exponentially weighted average task time, seeded with a typical BCrypt login
+    private volatile double avgTaskMs = 250;
+
+    @PostConstruct
+    public void init() {
+        poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(queueCapacity, 1)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                long start = System.nanoTime();
+                try {
+                    return task.get();
+                } finally {
+                    recordTaskTime((System.nanoTime() - start) / 1_000_000.0);
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            throw new LoginThrottledException(retryAfterSeconds());
+        }
+    }
+
+    // Time for the pool to drain the current queue, at least one second
+    long retryAfterSeconds() {
+        double drainMs = (executor.getQueue().size() + poolSize) * avgTaskMs / poolSize;
+        return Math.max(1, (long) Math.ceil(drainMs / 1000));
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("threads", poolSize);
+        stats.put("active", executor.getActiveCount());
+        stats.put("queued", executor.getQueue().size());
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("completed", completed.get());
+        stats.put("rejected", rejected.get());
+        stats.put("avgTaskMs", Math.round(avgTaskMs));
+        return stats;
+    }
+
+    private void recordTaskTime(double elapsedMs) {
+        completed.incrementAndGet();
+        avgTaskMs = avgTaskMs * 0.9 + elapsedMs * 0.1;
+    }
+}
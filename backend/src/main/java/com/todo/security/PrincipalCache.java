@@ -0,0 +1,181 @@
+package com.todo.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded, TTL-based cache of authenticated principals keyed by username.
+ * Lets the JWT filter and controllers resolve the current user without
+ * loading the users row on every request. Entries are dropped after
+ * the TTL, when the cache is full (least recently used first) and
+ * explicitly whenever a user's role, active flag or existence changes.
+ * Invalidation is local to this node; CustomUserDetailsService confirms
+ * a hit against the row so changes made through other nodes apply at once.
+ */
+@Component
+public class PrincipalCache {
+
+    @Value("${security.principal-cache.max-size:10000}")
+    private int maxSize;
+
+    @Value("${security.principal-cache.ttl-ms:300000}")
+    private long ttlMs;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    // Bumped before every invalidation; a put whose load started earlier is dropped
+    private final AtomicLong generation = new AtomicLong();
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    // One thread trims a full cache at a time; the others carry on
+    private final AtomicBoolean trimming = new AtomicBoolean();
+
+    // Returns the cached principal, or null when absent or expired
+    public AuthenticatedUser get(String username) {
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(username);
+        if (entry != null && entry.expiresAt > now) {
+            entry.lastAccess = System.nanoTime();
+            hits.incrementAndGet();
+            return entry.principal;
+        }
+        if (entry != null && entries.remove(username, entry)) {
+            evictions.incrementAndGet();
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Current invalidation generation; read it before loading the user that is then passed to put
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Caches the principal unless an invalidation ran since the given generation was read,
+     * so a load that raced a change never puts the old row back
+     */
+    public void put(AuthenticatedUser principal, long loadedAtGeneration) {
+        long now = System.currentTimeMillis();
+        Entry entry = new Entry(principal, now + ttlMs, System.nanoTime());
+        entries.put(principal.getUsername(), entry);
+        // Checked after the put: an invalidation either bumped the generation before this
+        // check or removes the entry after it
+        if (generation.get() != loadedAtGeneration) {
+            entries.remove(principal.getUsername(), entry);
+            return;
+        }
+        trimIfFull();
+    }
+
+    /**
+     * Drops the user's entry now and again after the surrounding transaction
+     * commits, so a request racing the change cannot re-cache the old row.
+     */
+    public void invalidateUser(Integer userId) {
+        runNowAndAfterCommit(() -> removeIf(userId));
+    }
+
+    public void invalidate(String username) {
+        runNowAndAfterCommit(() -> {
+            generation.incrementAndGet();
+            if (entries.remove(username) != null) {
+                invalidations.incrementAndGet();
+            }
+        });
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        invalidations.addAndGet(entries.size());
+        entries.clear();
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long total = hitCount + missCount;
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("size", entries.size());
+        stats.put("maxSize", maxSize);
+        stats.put("ttlMs", ttlMs);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", total > 0 ? (double) hitCount / total : 0.0);
+        stats.put("evictions", evictions.get());
+        stats.put("invalidations", invalidations.get());
+        return stats;
+    }
+
+    private void removeIf(Integer userId) {
+        generation.incrementAndGet();
+        if (entries.values().removeIf(entry -> entry.principal.getId().equals(userId))) {
+            invalidations.incrementAndGet();
+        }
+    }
+
+    // Drops the least recently used entries, by a snapshot of their last access times
+    private void trimIfFull() {
+        if (entries.size() <= maxSize || !trimming.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            int excess = entries.size() - maxSize;
+            if (excess <= 0) {
+                return;
+            }
+            List<Map.Entry<String, Long>> byAccess = new ArrayList<>(entries.size());
+            entries.forEach((username, entry) -> byAccess.add(Map.entry(username, entry.lastAccess)));
+            byAccess.sort(Map.Entry.comparingByValue());
+            for (int i = 0; i < excess && i < byAccess.size(); i++) {
+                if (entries.remove(byAccess.get(i).getKey()) != null) {
+                    evictions.incrementAndGet();
+                }
+            }
+        } finally {
+            trimming.set(false);
+        }
+    }
+
+    private void runNowAndAfterCommit(Runnable action) {
+        action.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        }
+    }
+
+    private static final class Entry {
+        private final AuthenticatedUser principal;
+        private final long expiresAt;
+        // nanoTime of the last hit, only compared when trimming
+        private volatile long lastAccess;
+
+        private Entry(AuthenticatedUser principal, long expiresAt, long lastAccess) {
+            this.principal = principal;
+            this.expiresAt = expiresAt;
+            this.lastAccess = lastAccess;
+        }
+    }
+}
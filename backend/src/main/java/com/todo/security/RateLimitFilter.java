@@ -0,0 +1,345 @@
+package com.todo.security;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Per-client token-bucket rate limiting, one bucket per (route group, client).
+ * Runs right after JwtAuthenticationFilter. Every request is charged to its
+ * client IP; authenticated requests are also charged to their user id, and
+ * their IP bucket is ip-multiplier times larger so users sharing one address
+ * (an office NAT) are not limited as one user. Behind trusted proxies the
+ * client IP is taken from X-Forwarded-For. Routes outside the groups below
+ * are not limited.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    enum RouteGroup {
+        AUTH("/auth/"),
+        TODOS("/todos", "/subtasks"),
+        // Resumable upload chunks - listed before ATTACHMENTS, the first matching prefix wins
+        UPLOADS("/attachments/uploads"),
+        // One request per image in an attachment list, so they get a larger budget than other attachment calls
+        THUMBNAILS(new String[]{"/attachments/"}, "/thumbnail"),
+        ATTACHMENTS("/attachments"),
+        CALENDAR("/calendar");
+
+        private final String[] prefixes;
+        private final String suffix;
+
+        RouteGroup(String... prefixes) {
+            this(prefixes, null);
+        }
+
+        RouteGroup(String[] prefixes, String suffix) {
+            this.prefixes = prefixes;
+            this.suffix = suffix;
+        }
+
+        static RouteGroup of(String path) {
+            for (RouteGroup group : values()) {
+                for (String prefix : group.prefixes) {
+                    if (path.startsWith(prefix) && (group.suffix == null || path.endsWith(group.suffix))) {
+                        return group;
+                    }
+                }
+            }
+            return null;
+        }
+    }
+
+    @Value("${rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${rate-limit.max-buckets:100000}")
+    private int maxBuckets;
+
+    // Authenticated traffic from one IP may use this many users' worth of a group's limit
+    @Value("${rate-limit.ip-multiplier:10}")
+    private int ipMultiplier;
+
+    // Load balancers / reverse proxies whose X-Forwarded-For is believed (IPs or CIDR ranges)
+    @Value("${rate-limit.trusted-proxies:127.0.0.1,::1}")
+    private String trustedProxies;
+
+    @Value("${rate-limit.auth.capacity:10}")
+    private int authCapacity;
+
+    @Value("${rate-limit.auth.per-minute:20}")
+    private double authPerMinute;
+
+    @Value("${rate-limit.todos.capacity:100}")
+    private int todosCapacity;
+
+    @Value("${rate-limit.todos.per-minute:600}")
+    private double todosPerMinute;
+
+    @Value("${rate-limit.attachments.capacity:20}")
+    private int attachmentsCapacity;
+
+    @Value("${rate-limit.attachments.per-minute:60}")
+    private double attachmentsPerMinute;
+
+    @Value("${rate-limit.uploads.capacity:60}")
+    private int uploadsCapacity;
+
+    @Value("${rate-limit.uploads.per-minute:600}")
+    private double uploadsPerMinute;
+
+    @Value("${rate-limit.thumbnails.capacity:200}")
+    private int thumbnailsCapacity;
+
+    @Value("${rate-limit.thumbnails.per-minute:1200}")
+    private double thumbnailsPerMinute;
+
+    @Value("${rate-limit.calendar.capacity:5}")
+    private int calendarCapacity;
+
+    @Value("${rate-limit.calendar.per-minute:10}")
+    private double calendarPerMinute;
+
+    private final Map<RouteGroup, Limit> limits = new EnumMap<>(RouteGroup.class);
+
+    private final List<AddressRange> proxies = new ArrayList<>();
+
+    private final ConcurrentHashMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    private final Map<RouteGroup, LongAdder> allowed = new EnumMap<>(RouteGroup.class);
+    private final Map<RouteGroup, LongAdder> rejected = new EnumMap<>(RouteGroup.class);
+    private final AtomicLong evictions = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        configure(RouteGroup.AUTH, authCapacity, authPerMinute);
+        configure(RouteGroup.TODOS, todosCapacity, todosPerMinute);
+        configure(RouteGroup.UPLOADS, uploadsCapacity, uploadsPerMinute);
+        configure(RouteGroup.THUMBNAILS, thumbnailsCapacity, thumbnailsPerMinute);
+        configure(RouteGroup.ATTACHMENTS, attachmentsCapacity, attachmentsPerMinute);
+        configure(RouteGroup.CALENDAR, calendarCapacity, calendarPerMinute);
+        if (trustedProxies != null) {
+            for (String proxy : trustedProxies.split(",")) {
+                if (!proxy.isBlank()) {
+                    proxies.add(AddressRange.parse(proxy.trim()));
+                }
+            }
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        RouteGroup group = enabled && !"OPTIONS".equals(request.getMethod())
+                ? RouteGroup.of(request.getRequestURI().substring(request.getContextPath().length()))
+                : null;
+
+        if (group != null) {
+            long now = System.nanoTime();
+            String ip = clientIp(request);
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            long waitNanos;
+            if (authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser user) {
+                // Both buckets must allow it; a rejected request costs neither
+                TokenBucket userBucket = bucketFor(group, "u" + user.getId(), 1, now);
+                waitNanos = userBucket.tryTake(now);
+                if (waitNanos <= 0) {
+                    waitNanos = bucketFor(group, "ipu" + ip, Math.max(ipMultiplier, 1), now).tryTake(now);
+                    if (waitNanos > 0) {
+                        userBucket.giveBack();
+                    }
+                }
+            } else {
+                waitNanos = bucketFor(group, "ip" + ip, 1, now).tryTake(now);
+            }
+            if (waitNanos > 0) {
+                rejected.get(group).increment();
+                long retryAfterSeconds = Math.max(1, (waitNanos + 999_999_999L) / 1_000_000_000L);
+                response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+                response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+                response.setContentType("text/plain");
+                response.getWriter().write("Too many requests, retry in " + retryAfterSeconds + "s");
+                return;
+            }
+            allowed.get(group).increment();
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        for (RouteGroup group : RouteGroup.values()) {
+            Map<String, Object> groupStats = new HashMap<>();
+            groupStats.put("allowed", allowed.get(group).sum());
+            groupStats.put("rejected", rejected.get(group).sum());
+            stats.put(group.name().toLowerCase(), groupStats);
+        }
+        stats.put("buckets", buckets.size());
+        stats.put("maxBuckets", maxBuckets);
+        stats.put("evictions", evictions.get());
+        return stats;
+    }
+
+    private TokenBucket bucketFor(RouteGroup group, String clientKey, int scale, long now) {
+        String key = group.ordinal() + "|" + clientKey;
+        TokenBucket bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() >= maxBuckets) {
+            evict(now);
+        }
+        Limit limit = limits.get(group);
+        return buckets.computeIfAbsent(key, k -> new TokenBucket(limit.capacity * scale, limit.refillPerSecond * scale, now));
+    }
+
+    /**
+     * Frees room down to 90% of the limit. Full buckets go first because
+     * dropping them loses nothing; if every bucket is in use, arbitrary ones
+     * are dropped (those clients simply start over with a full bucket).
+     */
+    private synchronized void evict(long now) {
+        int target = (int) (maxBuckets * 0.9);
+        if (buckets.size() < maxBuckets) {
+            return;
+        }
+        for (Iterator<TokenBucket> it = buckets.values().iterator(); it.hasNext() && buckets.size() > target; ) {
+            if (it.next().isFull(now)) {
+                it.remove();
+                evictions.incrementAndGet();
+            }
+        }
+        for (Iterator<TokenBucket> it = buckets.values().iterator(); it.hasNext() && buckets.size() > target; ) {
+            it.next();
+            it.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    // The remote address, or when it is a trusted proxy the right-most X-Forwarded-For hop that is not
+    String clientIp(HttpServletRequest request) {
+        String remote = request.getRemoteAddr();
+        if (!isTrustedProxy(remote)) {
+            return remote;
+        }
+        List<String> hops = new ArrayList<>();
+        for (Enumeration<String> headers = request.getHeaders("X-Forwarded-For"); headers.hasMoreElements(); ) {
+            for (String hop : headers.nextElement().split(",")) {
+                if (!hop.isBlank()) {
+                    hops.add(hop.trim());
+                }
+            }
+        }
+        for (int i = hops.size() - 1; i >= 0; i--) {
+            if (!isTrustedProxy(hops.get(i))) {
+                return hops.get(i);
+            }
+        }
+        // Only proxies on the path (internal health checks) - the first one is as close to a client as it gets
+        return hops.isEmpty() ? remote : hops.get(0);
+    }
+
+    private boolean isTrustedProxy(String address) {
+        byte[] bytes = AddressRange.toBytes(address);
+        if (bytes == null) {
+            return false;
+        }
+        for (AddressRange proxy : proxies) {
+            if (proxy.contains(bytes)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void configure(RouteGroup group, int capacity, double perMinute) {
+        limits.put(group, new Limit(capacity, perMinute / 60.0));
+        allowed.put(group, new LongAdder());
+        rejected.put(group, new LongAdder());
+    }
+
+    /**
+     * An IPv4/IPv6 address or CIDR range, matched on raw address bytes
+     */
+    record AddressRange(byte[] network, int prefixLength) {
+
+        private static final Pattern IPV4 = Pattern.compile("\\d{1,3}(\\.\\d{1,3}){3}");
+
+        static AddressRange parse(String spec) {
+            int slash = spec.indexOf('/');
+            byte[] network = toBytes(slash < 0 ? spec : spec.substring(0, slash));
+            if (network == null) {
+                throw new IllegalArgumentException("Not an IP address or CIDR range: " + spec);
+            }
+            int prefixLength = slash < 0 ? network.length * 8 : Integer.parseInt(spec.substring(slash + 1));
+            return new AddressRange(network, prefixLength);
+        }
+
+        boolean contains(byte[] address) {
+            if (address.length != network.length) {
+                return false;
+            }
+            int fullBytes = prefixLength / 8;
+            for (int i = 0; i < fullBytes; i++) {
+                if (address[i] != network[i]) {
+                    return false;
+                }
+            }
+            int remainingBits = prefixLength % 8;
+            if (remainingBits == 0) {
+                return true;
+            }
+            int mask = 0xFF << (8 - remainingBits);
+            return (address[fullBytes] & mask) == (network[fullBytes] & mask);
+        }
+
+        // Address literals only - anything else (hostnames, "unknown") returns null without a DNS lookup
+        static byte[] toBytes(String address) {
+            if (address == null || !(IPV4.matcher(address).matches()
+                    || address.indexOf(':') >= 0 && address.chars().allMatch(c -> Character.digit(c, 16) >= 0 || c == '.' || c == ':'))) {
+                return null;
+            }
+            try {
+                return InetAddress.getByName(address).getAddress();
+            } catch (UnknownHostException e) {
+                return null;
+            }
+        }
+    }
+
+    private static final class Limit {
+        private final int capacity;
+        private final double refillPerSecond;
+
+        private Limit(int capacity, double refillPerSecond) {
+            this.capacity = capacity;
+            this.refillPerSecond = refillPerSecond;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.todo.security;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket. Implemented as the equivalent "virtual scheduling"
+ * form (GCRA): the whole state is one theoretical arrival time in a single
+ * AtomicLong, so a take is one CAS and needs no lock or timer.
+ */
+public final class TokenBucket {
+
+    private final long emissionIntervalNanos;
+    private final long burstNanos;
+
+    // Time at which the bucket would be full again; <= now means full
+    private final AtomicLong theoreticalArrival;
+
+    public TokenBucket(int capacity, double refillPerSecond, long nowNanos) {
+        this.emissionIntervalNanos = (long) (1_000_000_000L / refillPerSecond);
+        this.burstNanos = emissionIntervalNanos * capacity;
+        this.theoreticalArrival = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Takes one token. Returns 0 if allowed, otherwise the nanoseconds until
+     * a token will be available.
+     */
+    public long tryTake(long nowNanos) {
+        while (true) {
+            long tat = theoreticalArrival.get();
+            long newTat = Math.max(tat, nowNanos) + emissionIntervalNanos;
+            long waitNanos = newTat - nowNanos - burstNanos;
+            if (waitNanos > 0) {
+                return waitNanos;
+            }
+            if (theoreticalArrival.compareAndSet(tat, newTat)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Puts back a token taken by tryTake, for a request another bucket then rejected
+     */
+    public void giveBack() {
+        theoreticalArrival.addAndGet(-emissionIntervalNanos);
+    }
+
+    // A full bucket carries no state, so it can be evicted and recreated later
+    public boolean isFull(long nowNanos) {
+        return theoreticalArrival.get() <= nowNanos;
+    }
+}
@@ -0,0 +1,44 @@
+package com.todo.security;
+
+import java.util.Date;
+
+/**
+ * Claims of a token whose signature and expiry have already been verified.
+ * userId and role are null for tokens issued before they were added.
+ */
+public final class TokenClaims {
+
+    private final String username;
+    private final Integer userId;
+    private final String role;
+    private final Date expiration;
+
+    public TokenClaims(String username, Integer userId, String role, Date expiration) {
+        this.username = username;
+        this.userId = userId;
+        this.role = role;
+        this.expiration = expiration;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public Integer getUserId() {
+        return userId;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public Date getExpiration() {
+        return expiration;
+    }
+
+    // True if the token was issued to this principal (same id, when the token carries one)
+    public boolean belongsTo(AuthenticatedUser principal) {
+        return username.equals(principal.getUsername())
+                && (userId == null || userId.equals(principal.getId()));
+    }
+}
@@ -0,0 +1,110 @@
+package com.todo.service;
+
+import com.todo.entity.Role;
+import com.todo.repository.SubtaskRepository;
+import com.todo.repository.TodoRepository;
+import com.todo.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Application-wide statistics for the admin dashboard. Counts are computed
+ * in the database with one GROUP BY query per table and the result is cached
+ * for a short time, so dashboard refreshes never load rows into the heap.
+ * Writes don't invalidate the snapshot; the numbers may lag by up to the TTL.
+ */
+@Service
+public class AdminStatsService {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TodoRepository todoRepository;
+
+    @Autowired
+    private SubtaskRepository subtaskRepository;
+
+    @Value("${admin.stats.cache-ttl-ms:30000}")
+    private long cacheTtlMs;
+
+    private volatile Map<String, Object> cachedStats;
+    private volatile long cachedAt;
+
+    /**
+     * Current statistics, recomputed at most once per cache TTL
+     */
+    public Map<String, Object> getAppStats() {
+        Map<String, Object> stats = cachedStats;
+        if (stats != null && System.currentTimeMillis() - cachedAt < cacheTtlMs) {
+            return stats;
+        }
+        synchronized (this) {
+            // Another request may have refreshed while we waited
+            if (cachedStats != null && System.currentTimeMillis() - cachedAt < cacheTtlMs) {
+                return cachedStats;
+            }
+            cachedStats = Collections.unmodifiableMap(computeStats());
+            cachedAt = System.currentTimeMillis();
+            return cachedStats;
+        }
+    }
+
+    private Map<String, Object> computeStats() {
+        Map<String, Object> stats = new HashMap<>();
+
+        // User statistics
+        long regularUsers = 0;
+        long adminUsers = 0;
+        for (Object[] row : userRepository.countGroupedByRole()) {
+            if (row[0] == Role.ADMIN) {
+                adminUsers += (Long) row[1];
+            } else {
+                regularUsers += (Long) row[1];
+            }
+        }
+        long totalUsers = regularUsers + adminUsers;
+
+        stats.put("totalUsers", totalUsers);
+        stats.put("regularUsers", regularUsers);
+        stats.put("adminUsers", adminUsers);
+
+        // Todo statistics
+        long[] todoCounts = splitByCompletion(todoRepository.countGroupedByCompletion());
+        long completedTodos = todoCounts[0];
+        long totalTodos = todoCounts[0] + todoCounts[1];
+
+        stats.put("totalTodos", totalTodos);
+        stats.put("completedTodos", completedTodos);
+        stats.put("pendingTodos", totalTodos - completedTodos);
+        stats.put("completionRate", totalTodos > 0 ? (completedTodos * 100.0 / totalTodos) : 0);
+
+        // Subtask statistics
+        long[] subtaskCounts = splitByCompletion(subtaskRepository.countGroupedByCompletion());
+        long totalSubtasks = subtaskCounts[0] + subtaskCounts[1];
+
+        stats.put("totalSubtasks", totalSubtasks);
+        stats.put("completedSubtasks", subtaskCounts[0]);
+        stats.put("pendingSubtasks", subtaskCounts[1]);
+
+        // Average todos per user
+        stats.put("avgTodosPerUser", totalUsers > 0 ? (double) totalTodos / totalUsers : 0);
+
+        return stats;
+    }
+
+    // [completed, pending] from (isCompleted, count) rows; NULL counts as pending
+    private static long[] splitByCompletion(List<Object[]> rows) {
+        long[] counts = new long[2];
+        for (Object[] row : rows) {
+            counts[Boolean.TRUE.equals(row[0]) ? 0 : 1] += (Long) row[1];
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,196 @@
+package com.todo.service;
+
+import com.todo.entity.Attachment;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.ZoneId;
+import java.util.Optional;
+
+/**
+ * Streams attachment files straight from disk to the socket (or through from a remote storage
+ * backend), with single-range (Range / If-Range) support for partial and resumed downloads
+ */
+@Service
+@Slf4j
+public class AttachmentDownloadService {
+
+    // Tomcat's sendfile hand-off: the connector writes the file with sendfile(2) once the handler returns
+    static final String SENDFILE_SUPPORTED_ATTR = "org.apache.tomcat.sendfile.support";
+    static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+    static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+    static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    /**
+     * Write the attachment (or the requested byte range of it) to the response without buffering it in heap
+     */
+    public void send(Attachment attachment, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String fileName = attachment.getFilePath();
+        Optional<Path> file = fileStorageService.localFile(fileName);
+
+        long actualLength = file.isPresent() ? Files.size(file.get()) : fileStorageService.fileSize(fileName);
+        long length = attachment.getFileSize() != null ? attachment.getFileSize() : actualLength;
+        if (length != actualLength) {
+            log.warn("Attachment {} metadata says {} bytes but the file has {}", attachment.getId(), length, actualLength);
+            length = actualLength;
+        }
+
+        String etag = etag(attachment, length);
+        long lastModified = attachment.getCreatedAt() != null
+                ? attachment.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                : file.isPresent() ? Files.getLastModifiedTime(file.get()).toMillis() : -1;
+
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.ETAG, etag);
+        if (lastModified >= 0) {
+            response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        }
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+
+        if (DataVersionService.matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        response.setContentType(attachment.getFileType() != null
+                ? attachment.getFileType() : MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename(attachment.getFileName() != null ? attachment.getFileName()
+                                : fileName.substring(fileName.lastIndexOf('/') + 1),
+                        StandardCharsets.UTF_8)
+                .build().toString());
+
+        long start = 0;
+        long end = length - 1;
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null && ifRangeMatches(request, etag, lastModified)) {
+            ByteRange range = ByteRange.parse(rangeHeader, length);
+            if (range == ByteRange.UNSATISFIABLE) {
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.setContentLengthLong(0);
+                return;
+            }
+            if (range != null) {
+                start = range.start();
+                end = range.end();
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+        if ("HEAD".equals(request.getMethod()) || count <= 0) {
+            return;
+        }
+
+        if (file.isEmpty()) {
+            // Remote backend: relay the range as it arrives
+            try (InputStream in = fileStorageService.openFile(fileName, start, end)) {
+                in.transferTo(response.getOutputStream());
+            }
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED_ATTR))) {
+            request.setAttribute(SENDFILE_FILENAME_ATTR, file.get().toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START_ATTR, start);
+            request.setAttribute(SENDFILE_END_ATTR, end + 1);
+            return;
+        }
+
+        // No sendfile (other containers, TLS): transferTo still avoids staging the file in heap
+        try (FileChannel channel = FileChannel.open(file.get(), StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long written = channel.transferTo(position, remaining, out);
+                if (written <= 0) {
+                    break;
+                }
+                position += written;
+                remaining -= written;
+            }
+        }
+    }
+
+    // Stored files never change under an attachment, so id + size identify the content
+    static String etag(Attachment attachment, long length) {
+        return "\"a" + attachment.getId() + "-" + length + "\"";
+    }
+
+    // A missing If-Range, or one naming the current ETag / Last-Modified, lets the Range apply
+    private static boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(etag);
+        }
+        try {
+            return request.getDateHeader(HttpHeaders.IF_RANGE) / 1000 == lastModified / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * One inclusive byte range; parse returns null when the whole file should be sent instead
+     */
+    record ByteRange(long start, long end) {
+
+        static final ByteRange UNSATISFIABLE = new ByteRange(-1, -1);
+
+        static ByteRange parse(String header, long length) {
+            if (!header.startsWith("bytes=")) {
+                return null;
+            }
+            String spec = header.substring("bytes=".length()).trim();
+            int dash = spec.indexOf('-');
+            // Multiple ranges would need multipart/byteranges - serving the whole file is allowed instead
+            if (dash < 0 || spec.indexOf(',') >= 0) {
+                return null;
+            }
+            try {
+                String first = spec.substring(0, dash).trim();
+                String last = spec.substring(dash + 1).trim();
+                if (first.isEmpty()) {
+                    long suffix = Long.parseLong(last);
+                    if (suffix <= 0 || length == 0) {
+                        return UNSATISFIABLE;
+                    }
+                    return new ByteRange(Math.max(0, length - suffix), length - 1);
+                }
+                long start = Long.parseLong(first);
+                long end = last.isEmpty() ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+                if (start >= length) {
+                    return UNSATISFIABLE;
+                }
+                return end < start ? null : new ByteRange(start, end);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+}
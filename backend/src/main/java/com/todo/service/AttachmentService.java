@@ -11,11 +11,13 @@ import com.todo.repository.UserRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Service
@@ -34,54 +36,96 @@ public class AttachmentService {
     @Autowired
     private FileStorageService fileStorageService;
 
+    @Autowired
+    private DataVersionService dataVersionService;
+
+    @Autowired
+    private OwnershipResolver ownershipResolver;
+
+    @Autowired
+    private ThumbnailService thumbnailService;
+
+    @Autowired
+    private UploadSessionService uploadSessionService;
+
     /**
      * CREATE attachment
      */
+    @Transactional
     public AttachmentDTO createAttachment(Integer todoId, MultipartFile file, Integer userId) {
         try {
-            Todo todo = todoRepository.findById(todoId)
-                    .orElseThrow(() -> new RuntimeException("Todo not found"));
-
             // Ownership check: user can only attach to their own todos
-            if (todo.getUser() == null || !todo.getUser().getId().equals(userId)) {
+            if (ownershipResolver.checkTodo(todoId, userId) != OwnershipResolver.Ownership.OWNED) {
                 throw new RuntimeException("Access denied");
             }
 
-            User user = userRepository.findById(userId)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-
-            // Store file
+            // Store file (deduplicated by content hash)
             String storedFileName = fileStorageService.uploadFile(file);
 
+            return saveAttachment(todoId, file.getOriginalFilename(), storedFileName, file.getSize(),
+                    file.getContentType(), userId);
 
-            //This is temporary, will be replaced with url being returned from bucket API
-            String url = UUID.randomUUID().toString().replace("-", "");
-
-            UserDTO userDTO = new UserDTO(user);
-
-
-            Attachment attachment = new Attachment(
-                    file.getOriginalFilename(),
-                    storedFileName,
-                    file.getSize(),
-                    file.getContentType(),
-                    user.getId(),
-                    todo,
-                    url
-            );
+        } catch (IOException ex) {
+            log.error("Failed to upload attachment", ex);
+            throw new RuntimeException("File upload failed");
+        }
+    }
 
-            AttachmentDTO attachmentDTO = new AttachmentDTO(attachment, userDTO);
+    /**
+     * CREATE attachment from a finished resumable upload session
+     */
+    @Transactional
+    public AttachmentDTO completeUpload(String uploadId, Integer userId) {
+        UploadSessionService.CompletedUpload upload = uploadSessionService.finish(uploadId, userId);
+        try {
+            // Access may have changed while the chunks were coming in
+            if (ownershipResolver.checkTodo(upload.todoId(), userId) != OwnershipResolver.Ownership.OWNED) {
+                throw new RuntimeException("Access denied");
+            }
 
-            attachmentRepository.save(attachment);
+            // Checksummed while the chunks arrived - no second pass over the file
+            String storedFileName = fileStorageService.storeStaged(upload.file(), upload.sha256());
 
-            return attachmentDTO;
+            return saveAttachment(upload.todoId(), upload.fileName(), storedFileName, upload.size(),
+                    upload.contentType(), userId);
 
         } catch (IOException ex) {
-            log.error("Failed to upload attachment", ex);
+            log.error("Failed to complete upload {}", uploadId, ex);
             throw new RuntimeException("File upload failed");
         }
     }
 
+    private AttachmentDTO saveAttachment(Integer todoId, String fileName, String storedFileName, long fileSize,
+                                         String contentType, Integer userId) {
+        Todo todo = todoRepository.getReferenceById(todoId);
+
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        //This is temporary, will be replaced with url being returned from bucket API
+        String url = UUID.randomUUID().toString().replace("-", "");
+
+        // Uploader only; the todo count would cost a COUNT query per upload and nothing reads it here
+        UserDTO userDTO = new UserDTO(user);
+
+
+        Attachment attachment = new Attachment(
+                fileName,
+                storedFileName,
+                fileSize,
+                contentType,
+                user.getId(),
+                todo,
+                url
+        );
+
+        attachmentRepository.save(attachment);
+        dataVersionService.bumpForUser(userId);
+        thumbnailService.scheduleAfterCommit(storedFileName, contentType);
+
+        return new AttachmentDTO(attachment, userDTO);
+    }
+
     /**
      * READ attachments by todo
      */
@@ -98,9 +142,17 @@ public class AttachmentService {
         return attachmentDTOS;
     }
 
+    /**
+     * READ one attachment's metadata (for downloads)
+     */
+    public Optional<Attachment> getAttachment(Integer attachmentId) {
+        return attachmentRepository.findById(attachmentId);
+    }
+
     /**
      * DELETE attachment (ownership enforced)
      */
+    @Transactional
     public void deleteAttachment(Integer attachmentId, Integer userId) {
         Attachment attachment = attachmentRepository.findById(attachmentId)
                 .orElseThrow(() -> new RuntimeException("Attachment not found"));
@@ -110,11 +162,11 @@ public class AttachmentService {
         }
 
         try {
-            // Delete file from storage first
-            fileStorageService.deleteFile(attachment.getFilePath());
-
-            // Then delete DB record
+            // Delete DB record, then release its blob (the file goes once its last reference commits)
             attachmentRepository.delete(attachment);
+            fileStorageService.releaseFile(attachment.getFilePath());
+            ownershipResolver.evictAttachment(attachmentId);
+            dataVersionService.bumpForTodo(attachment.getTodo().getId());
 
         } catch (IOException ex) {
             log.error("Failed to delete attachment file", ex);
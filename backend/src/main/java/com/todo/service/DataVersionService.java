@@ -0,0 +1,73 @@
+package com.todo.service;
+
+import com.todo.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Per-user data version, bumped by every todo, subtask and attachment write
+ * and exposed to clients as a strong ETag on list reads.
+ * The bump keeps the users row locked until commit, so one user's versions commit in order;
+ * todo writes stamp their rows with the new value and delta sync reads changes by version.
+ */
+@Service
+public class DataVersionService {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    /**
+     * Bump the version of the given user inside the caller's transaction and return the new value
+     */
+    @Transactional
+    public long bumpForUser(Integer userId) {
+        if (userId == null) {
+            return 0L;
+        }
+        userRepository.incrementDataVersion(userId);
+        return currentVersion(userId);
+    }
+
+    /**
+     * Bump the version of the user owning the given todo and return the new value
+     */
+    @Transactional
+    public long bumpForTodo(Integer todoId) {
+        if (todoId == null) {
+            return 0L;
+        }
+        userRepository.incrementDataVersionByTodoId(todoId);
+        return userRepository.findDataVersionByTodoId(todoId).orElse(0L);
+    }
+
+    /**
+     * Current version of the user's data (single primary key lookup)
+     */
+    public long currentVersion(Integer userId) {
+        return userRepository.findDataVersionById(userId).orElse(0L);
+    }
+
+    /**
+     * Strong ETag for the user's data at the given version
+     */
+    public String etag(Integer userId) {
+        return "\"" + userId + "-" + currentVersion(userId) + "\"";
+    }
+
+    /**
+     * True if the If-None-Match header already names the given ETag
+     */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.equals("*") || value.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
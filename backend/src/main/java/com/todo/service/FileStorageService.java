@@ -1,34 +1,77 @@
 package com.todo.service;
 
+import com.todo.entity.AttachmentBlob;
+import com.todo.repository.AttachmentBlobRepository;
+import com.todo.storage.StorageBackend;
 import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamResource;
 import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import jakarta.annotation.PostConstruct;
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.MalformedURLException;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
+import java.util.HexFormat;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
+import java.util.Optional;
 
+/**
+ * Validates, hashes and reference-counts attachment files; the bytes themselves go to the
+ * configured StorageBackend (local disk or an S3-compatible bucket)
+ */
 @Service
+@Slf4j
 public class FileStorageService {
 
+    // Content-addressed blobs live under this prefix, named by the SHA-256 of their content
+    static final String BLOB_DIR = "blobs";
+
+    // Uploads are staged here while hashed, then handed to the storage backend
+    private static final String TEMP_DIR = "tmp";
+
     @Value("${file.upload.dir:uploads}")
     private String uploadDir;
 
+    // Blobs recounted per transaction by the GC job, so it never locks the whole table at once
+    @Value("${file.blob-gc-chunk-size:500}")
+    private int gcChunkSize;
+
+    @Autowired
+    private AttachmentBlobRepository attachmentBlobRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private StorageBackend storageBackend;
+
+    // Purges run after the upload/delete transaction has finished, so they always need their own
+    private TransactionTemplate purgeTransaction;
+
     /**
      * -- GETTER --
-     *  Get the file storage location path
+     *  Get the local working directory (staging; also the file root of the local backend)
      */
     @Getter
     private Path fileStorageLocation;
@@ -45,7 +88,7 @@ public class FileStorageService {
             "text/plain"
     );
 
-    // Maximum file size: 10MB
+    // Maximum size of a single-request upload: 10MB (larger files go through resumable upload sessions)
     private static final long MAX_FILE_SIZE = 10 * 1024 * 1024; // 10MB in bytes
 
     /**
@@ -55,8 +98,11 @@ public class FileStorageService {
     public void init() {
         try {
             this.fileStorageLocation = Paths.get(uploadDir).toAbsolutePath().normalize();
-            Files.createDirectories(this.fileStorageLocation);
-            System.out.println("File upload directory created/verified at: " + this.fileStorageLocation);
+            Files.createDirectories(this.fileStorageLocation.resolve(TEMP_DIR));
+            this.purgeTransaction = new TransactionTemplate(transactionManager);
+            this.purgeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            System.out.println("File upload directory created/verified at: " + this.fileStorageLocation
+                    + " (storage backend: " + storageBackend.getName() + ")");
         } catch (IOException ex) {
             throw new RuntimeException("Could not create upload directory!", ex);
         }
@@ -71,42 +117,235 @@ public class FileStorageService {
             throw new IllegalArgumentException("Cannot upload empty file");
         }
 
+        String originalFileName = validateUpload(file.getOriginalFilename(), file.getContentType(), file.getSize(), MAX_FILE_SIZE);
+
+        // Stream to a temp file, hashing on the way in - the upload is read exactly once
+        Path tempFile = createTempFile("upload-");
+        try {
+            MessageDigest digest = sha256();
+            try (InputStream inputStream = new DigestInputStream(file.getInputStream(), digest)) {
+                Files.copy(inputStream, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return storeStaged(tempFile, HexFormat.of().formatHex(digest.digest()));
+
+        } catch (IOException ex) {
+            throw new IOException("Could not store file " + originalFileName, ex);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * Check an upload's name, type and size before accepting its bytes; returns the cleaned file name
+     */
+    public String validateUpload(String fileName, String contentType, long size, long maxSize) {
         // Validate file size
-        if (file.getSize() > MAX_FILE_SIZE) {
-            throw new IllegalArgumentException("File size exceeds maximum limit of 10MB");
+        if (size > maxSize) {
+            throw new IllegalArgumentException("File size exceeds maximum limit of " + (maxSize / (1024 * 1024)) + "MB");
         }
 
         // Validate file type
-        String contentType = file.getContentType();
         if (!isValidFileType(contentType)) {
             throw new IllegalArgumentException(
                     "Invalid file type. Allowed types: JPG, PNG, GIF, PDF, DOCX, TXT"
             );
         }
 
+        if (fileName == null || fileName.isBlank()) {
+            throw new IllegalArgumentException("File name is required");
+        }
+
         // Get original filename and clean it
-        String originalFileName = StringUtils.cleanPath(file.getOriginalFilename());
+        String originalFileName = StringUtils.cleanPath(fileName);
 
         // Validate filename
         if (originalFileName.contains("..")) {
             throw new IllegalArgumentException("Invalid file path: " + originalFileName);
         }
+        return originalFileName;
+    }
+
+    /**
+     * Store a staged file whose SHA-256 is already known as one more reference to its content blob;
+     * returns the stored path. Must run inside the transaction that records the reference's owner
+     */
+    public String storeStaged(Path staged, String hash) throws IOException {
+        // Locks the blob row until commit, so a concurrent purge or layout move of the same content waits for us
+        attachmentBlobRepository.addReference(hash, blobPath(hash), Files.size(staged));
+        String storedPath = attachmentBlobRepository.findFilePathByContentHash(hash).orElse(blobPath(hash));
 
-        // Generate unique filename to avoid collisions
-        String uniqueFileName = generateUniqueFileName(originalFileName);
+        storageBackend.put(storedPath, staged);
 
-        try {
-            // Copy file to the target location
-            Path targetLocation = this.fileStorageLocation.resolve(uniqueFileName);
+        // If the surrounding transaction rolls back, the reference never existed
+        afterRollback(() -> purgeIfUnreferenced(hash));
+        return storedPath;
+    }
+
+    /**
+     * Whether stored files live on this node's disk (the local backend) rather than in shared remote storage
+     */
+    public boolean isLocalStorage() {
+        return "local".equals(storageBackend.getName());
+    }
+
+    /**
+     * Local directory holding staged uploads
+     */
+    public Path getTempDirectory() {
+        return this.fileStorageLocation.resolve(TEMP_DIR);
+    }
+
+    /**
+     * Staging file in the local working directory, for content that is about to be stored
+     */
+    public Path createTempFile(String prefix) throws IOException {
+        return Files.createTempFile(this.fileStorageLocation.resolve(TEMP_DIR), prefix, ".part");
+    }
+
+    /**
+     * Store a staged file under a key (no-op if the key exists); the staged file may be moved away
+     */
+    public void storeFile(String fileName, Path source) throws IOException {
+        storageBackend.put(fileName, source);
+    }
+
+    /**
+     * Copy stored content to a new key, server-side / by hard link where the backend allows
+     */
+    public void copyFile(String fileName, String targetName) throws IOException {
+        storageBackend.copy(fileName, targetName);
+    }
+
+    /**
+     * SHA-256 of a stored file, streamed
+     */
+    public String hashFile(String fileName) throws IOException {
+        MessageDigest digest = sha256();
+        try (InputStream inputStream = new DigestInputStream(storageBackend.open(fileName), digest)) {
+            inputStream.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Release a stored file that an attachment no longer uses. Shared blobs lose one reference
+     * and are deleted after commit only when it was the last one; older per-upload files are deleted directly
+     */
+    public void releaseFile(String fileName) throws IOException {
+        String hash = blobHash(fileName);
+        if (hash == null) {
+            deleteFile(fileName);
+            return;
+        }
+        attachmentBlobRepository.removeReference(hash);
+        afterCommit(() -> purgeIfUnreferenced(hash));
+    }
 
-            try (InputStream inputStream = file.getInputStream()) {
-                Files.copy(inputStream, targetLocation, StandardCopyOption.REPLACE_EXISTING);
+    /**
+     * Delete a blob's file and row if nothing references it, under the blob's row lock
+     */
+    public boolean purgeIfUnreferenced(String hash) {
+        Boolean purged = purgeTransaction.execute(status -> {
+            var blob = attachmentBlobRepository.findByContentHashForUpdate(hash);
+            if (blob.isPresent() && blob.get().getRefCount() > 0) {
+                return false;
+            }
+            String storedPath = blob.map(AttachmentBlob::getFilePath).orElse(blobPath(hash));
+            try {
+                storageBackend.delete(storedPath);
+                storageBackend.delete(thumbnailPath(storedPath));
+            } catch (IOException ex) {
+                log.warn("Could not delete unreferenced blob {}", hash, ex);
+                return false;
+            }
+            blob.ifPresent(attachmentBlobRepository::delete);
+            return true;
+        });
+        return Boolean.TRUE.equals(purged);
+    }
+
+    /**
+     * Recount blob references from the attachments table (rows removed by a todo or user cascade
+     * never released theirs) and purge blobs nothing points at any more
+     */
+    @Scheduled(cron = "${file.blob-gc-cron:0 0 4 * * *}")
+    public void collectGarbage() {
+        int recounted = 0;
+        String after = "";
+        List<String> chunk;
+        while (!(chunk = attachmentBlobRepository.findContentHashesAfter(after, gcChunkSize)).isEmpty()) {
+            String from = after;
+            String to = chunk.get(chunk.size() - 1);
+            Integer corrected = purgeTransaction.execute(status -> attachmentBlobRepository.recountReferences(from, to));
+            recounted += corrected != null ? corrected : 0;
+            after = to;
+        }
+        int purged = 0;
+        for (String hash : attachmentBlobRepository.findUnreferencedHashes()) {
+            if (purgeIfUnreferenced(hash)) {
+                purged++;
             }
+        }
+        log.info("Blob GC corrected {} reference counts and purged {} unreferenced blobs", recounted, purged);
+    }
 
-            return uniqueFileName;
+    // Relative path of the blob holding content with this hash, fanned out over two levels of
+    // hash-prefix directories (256 x 256) so no directory grows past a few entries per blob
+    static String blobPath(String hash) {
+        return BLOB_DIR + "/" + hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/" + hash;
+    }
 
-        } catch (IOException ex) {
-            throw new IOException("Could not store file " + uniqueFileName, ex);
+    // Thumbnail of a stored image, kept next to it (shared like the blob itself)
+    public static String thumbnailPath(String fileName) {
+        return fileName + ".thumb.jpg";
+    }
+
+    // True for blob paths already in the fan-out layout
+    static boolean isShardedBlobPath(String fileName) {
+        String hash = blobHash(fileName);
+        return hash != null && fileName.equals(blobPath(hash));
+    }
+
+    // Content hash of a blob path, or null for files stored before content addressing
+    static String blobHash(String fileName) {
+        if (fileName == null || !fileName.startsWith(BLOB_DIR + "/")) {
+            return null;
+        }
+        String hash = fileName.substring(fileName.lastIndexOf('/') + 1);
+        return hash.length() == 64 ? hash : null;
+    }
+
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 not available", ex);
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static void afterRollback(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        action.run();
+                    }
+                }
+            });
         }
     }
 
@@ -114,18 +353,35 @@ public class FileStorageService {
      * Download a file as a Resource
      */
     public Resource downloadFile(String fileName) throws IOException {
-        try {
-            Path filePath = this.fileStorageLocation.resolve(fileName).normalize();
-            Resource resource = new UrlResource(filePath.toUri());
+        return new InputStreamResource(storageBackend.open(fileName));
+    }
 
-            if (resource.exists() && resource.isReadable()) {
-                return resource;
-            } else {
-                throw new IOException("File not found: " + fileName);
-            }
-        } catch (MalformedURLException ex) {
-            throw new IOException("File not found: " + fileName, ex);
-        }
+    /**
+     * Open a stored file for streaming; NoSuchFileException when it is missing
+     */
+    public InputStream openFile(String fileName) throws IOException {
+        return storageBackend.open(fileName);
+    }
+
+    /**
+     * Open the inclusive byte range [start, end] of a stored file
+     */
+    public InputStream openFile(String fileName, long start, long end) throws IOException {
+        return storageBackend.openRange(fileName, start, end);
+    }
+
+    /**
+     * The stored file on local disk, for zero-copy serving; empty when the backend is remote
+     */
+    public Optional<Path> localFile(String fileName) throws IOException {
+        return storageBackend.localPath(fileName);
+    }
+
+    /**
+     * Size of a stored file; NoSuchFileException when it is missing
+     */
+    public long fileSize(String fileName) throws IOException {
+        return storageBackend.size(fileName);
     }
 
     /**
@@ -133,21 +389,13 @@ public class FileStorageService {
      */
     public boolean deleteFile(String fileName) throws IOException {
         try {
-            Path filePath = this.fileStorageLocation.resolve(fileName).normalize();
-            return Files.deleteIfExists(filePath);
+            storageBackend.delete(thumbnailPath(fileName));
+            return storageBackend.delete(fileName);
         } catch (IOException ex) {
             throw new IOException("Could not delete file: " + fileName, ex);
         }
     }
 
-    /**
-     * Generate a unique filename using UUID + original filename
-     */
-    private String generateUniqueFileName(String originalFileName) {
-        String uuid = UUID.randomUUID().toString();
-        return uuid + "_" + originalFileName;
-    }
-
     /**
      * Validate if the file type is allowed
      */
@@ -163,8 +411,11 @@ public class FileStorageService {
      * Check if a file exists in storage
      */
     public boolean fileExists(String fileName) {
-        Path filePath = this.fileStorageLocation.resolve(fileName).normalize();
-        return Files.exists(filePath);
+        try {
+            return storageBackend.exists(fileName);
+        } catch (IOException ex) {
+            return false;
+        }
     }
 
     /**
@@ -172,10 +423,13 @@ public class FileStorageService {
      */
     public long getFileSize(String fileName) {
         try {
-            Path filePath = this.fileStorageLocation.resolve(fileName).normalize();
-            return Files.size(filePath);
+            return storageBackend.size(fileName);
         } catch (IOException ex) {
             return -1;
         }
     }
+
+    public Map<String, Object> getStorageStats() {
+        return storageBackend.getStats();
+    }
 }
@@ -16,11 +16,15 @@ import com.todo.entity.GoogleCalendarToken;
 import com.todo.entity.Todo;
 import com.todo.repository.GoogleCalendarTokenRepository;
 import com.todo.repository.TodoRepository;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.io.IOException;
 import java.security.GeneralSecurityException;
@@ -56,6 +60,20 @@ public class GoogleCalendarService {
     @Autowired
     private TodoRepository todoRepository;
 
+    @Autowired
+    private DataVersionService dataVersionService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate eventIdTransaction;
+
+    @PostConstruct
+    public void init() {
+        eventIdTransaction = new TransactionTemplate(transactionManager);
+        eventIdTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
     /**
      * Generate OAuth2 authorization URL for user to connect their Google Calendar
      */
@@ -250,9 +268,15 @@ public class GoogleCalendarService {
                         .insert(token.getCalendarId(), event)
                         .execute();
 
-                // Save event ID to todo
+                // Save event ID to todo in a short transaction of its own: this usually runs after the
+                // todo's transaction committed, and the users row bump must not wait on the next HTTP call
+                Long version = eventIdTransaction.execute(status -> {
+                    long bumped = dataVersionService.bumpForUser(userId);
+                    todoRepository.updateGoogleCalendarEventId(todo.getId(), createdEvent.getId(), bumped);
+                    return bumped;
+                });
                 todo.setGoogleCalendarEventId(createdEvent.getId());
-                todoRepository.save(todo);
+                todo.setChangeVersion(version);
                 log.info("Created calendar event for todo: {}", todo.getId());
             }
         } catch (Exception e) {
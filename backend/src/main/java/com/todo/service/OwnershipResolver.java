@@ -0,0 +1,120 @@
+package com.todo.service;
+
+import com.todo.repository.AttachmentRepository;
+import com.todo.repository.SubtaskRepository;
+import com.todo.repository.TodoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Answers "does this todo / subtask / attachment belong to user Y" with one
+ * primary-key lookup (joined to todos for subtasks and attachments) instead
+ * of loading the entities and the user. A todo's owner and a subtask's or
+ * attachment's todo never change, so positive answers are cached briefly;
+ * deletes evict their entry.
+ */
+@Service
+public class OwnershipResolver {
+
+    public enum Ownership { OWNED, FORBIDDEN, NOT_FOUND }
+
+    // Owner id used for rows without a user, so they resolve to FORBIDDEN rather than NOT_FOUND
+    private static final int NO_OWNER = 0;
+
+    @Autowired
+    private TodoRepository todoRepository;
+
+    @Autowired
+    private SubtaskRepository subtaskRepository;
+
+    @Autowired
+    private AttachmentRepository attachmentRepository;
+
+    @Value("${ownership.cache-ttl-ms:30000}")
+    private long cacheTtlMs;
+
+    @Value("${ownership.cache-max-size:50000}")
+    private int cacheMaxSize;
+
+    // Access-ordered so a full cache drops its least recently used entry, not everything at once
+    private final LinkedHashMap<String, CachedOwner> cache = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedOwner> eldest) {
+            return size() > cacheMaxSize;
+        }
+    };
+
+    public Ownership checkTodo(Integer todoId, Integer userId) {
+        return check("t", todoId, userId, () -> todoRepository.findOwnerIdById(todoId));
+    }
+
+    public Ownership checkSubtask(Integer subtaskId, Integer userId) {
+        return check("s", subtaskId, userId, () -> subtaskRepository.findOwnerIdById(subtaskId));
+    }
+
+    public Ownership checkAttachment(Integer attachmentId, Integer userId) {
+        return check("a", attachmentId, userId, () -> attachmentRepository.findOwnerIdById(attachmentId));
+    }
+
+    public void evictTodo(Integer todoId) {
+        evict("t" + todoId);
+    }
+
+    public void evictSubtask(Integer subtaskId) {
+        evict("s" + subtaskId);
+    }
+
+    public void evictAttachment(Integer attachmentId) {
+        evict("a" + attachmentId);
+    }
+
+    private void evict(String key) {
+        synchronized (cache) {
+            cache.remove(key);
+        }
+    }
+
+    private Ownership check(String kind, Integer id, Integer userId, Supplier<Optional<Integer>> lookup) {
+        if (id == null) {
+            return Ownership.NOT_FOUND;
+        }
+        String key = kind + id;
+
+        long now = System.currentTimeMillis();
+        CachedOwner cached;
+        synchronized (cache) {
+            cached = cache.get(key);
+        }
+        Integer ownerId;
+        if (cached != null && cached.expiresAt > now) {
+            ownerId = cached.ownerId;
+        } else {
+            Optional<Integer> owner = lookup.get();
+            if (owner.isEmpty()) {
+                return Ownership.NOT_FOUND;
+            }
+            ownerId = owner.get();
+            synchronized (cache) {
+                cache.put(key, new CachedOwner(ownerId, now + cacheTtlMs));
+            }
+        }
+
+        return ownerId != NO_OWNER && ownerId.equals(userId) ? Ownership.OWNED : Ownership.FORBIDDEN;
+    }
+
+    private static final class CachedOwner {
+        private final Integer ownerId;
+        private final long expiresAt;
+
+        private CachedOwner(Integer ownerId, long expiresAt) {
+            this.ownerId = ownerId;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.todo.service;
+
+import com.todo.repository.AttachmentBlobRepository;
+import com.todo.repository.AttachmentRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Moves attachment files from the flat uploads/ layout into the hash fan-out blob layout while the
+ * app keeps serving: each file is linked (or copied, server-side on remote backends) to its new place, the rows are repointed in a
+ * short transaction, and the old names are removed only after a grace period so in-flight downloads finish
+ */
+@Service
+@Slf4j
+public class StorageLayoutMigrationService {
+
+    @Autowired
+    private AttachmentRepository attachmentRepository;
+
+    @Autowired
+    private AttachmentBlobRepository attachmentBlobRepository;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${storage.migration.batch-size:200}")
+    private int batchSize;
+
+    // 0 = one thread per CPU
+    @Value("${storage.migration.threads:0}")
+    private int threads;
+
+    // How long old file names stay readable after the rows stop pointing at them
+    @Value("${storage.migration.delete-grace-ms:60000}")
+    private long deleteGraceMs;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicInteger migrated = new AtomicInteger();
+    private final AtomicInteger skipped = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+
+    private final ExecutorService runner = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "storage-migration");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PreDestroy
+    public void shutdown() {
+        runner.shutdownNow();
+    }
+
+    /**
+     * Start a migration in the background; false when one is already running
+     */
+    public boolean start() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        migrated.set(0);
+        skipped.set(0);
+        failed.set(0);
+        startedAt = LocalDateTime.now();
+        finishedAt = null;
+        runner.execute(() -> {
+            try {
+                migrateAll();
+            } catch (RuntimeException e) {
+                log.error("Storage layout migration stopped", e);
+            } finally {
+                finishedAt = LocalDateTime.now();
+                running.set(false);
+            }
+        });
+        return true;
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("running", running.get());
+        status.put("migrated", migrated.get());
+        status.put("skipped", skipped.get());
+        status.put("failed", failed.get());
+        status.put("startedAt", startedAt);
+        status.put("finishedAt", finishedAt);
+        return status;
+    }
+
+    /**
+     * Walk all unsharded attachments by id in batches, migrating each batch's files in parallel
+     */
+    void migrateAll() {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        ExecutorService pool = Executors.newFixedThreadPool(poolSize);
+        Set<String> retired = ConcurrentHashMap.newKeySet();
+        try {
+            int afterId = 0;
+            while (true) {
+                List<Object[]> batch = attachmentRepository.findUnshardedAfter(afterId, PageRequest.of(0, Math.max(batchSize, 1)));
+                if (batch.isEmpty()) {
+                    break;
+                }
+                List<Future<?>> tasks = new ArrayList<>(batch.size());
+                for (Object[] row : batch) {
+                    Integer id = (Integer) row[0];
+                    String path = (String) row[1];
+                    tasks.add(pool.submit(() -> migrateOne(id, path, retired)));
+                }
+                for (Future<?> task : tasks) {
+                    task.get();
+                }
+                afterId = (Integer) batch.get(batch.size() - 1)[0];
+            }
+
+            if (!retired.isEmpty()) {
+                Thread.sleep(deleteGraceMs);
+                deleteRetired(retired);
+            }
+            log.info("Storage layout migration done: {} migrated, {} skipped, {} failed",
+                    migrated.get(), skipped.get(), failed.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            throw new IllegalStateException("Storage layout migration failed", e);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private void migrateOne(Integer attachmentId, String oldPath, Set<String> retired) {
+        try {
+            boolean moved = FileStorageService.blobHash(oldPath) != null
+                    ? moveBlob(oldPath)
+                    : adoptLegacyFile(attachmentId, oldPath);
+            if (moved) {
+                retired.add(oldPath);
+                migrated.incrementAndGet();
+            } else {
+                skipped.incrementAndGet();
+            }
+        } catch (IOException | RuntimeException e) {
+            failed.incrementAndGet();
+            log.warn("Could not migrate attachment {} ({})", attachmentId, oldPath, e);
+        }
+    }
+
+    // A flat blobs/<hash> blob: relocate it and every attachment sharing it, under the blob row lock
+    boolean moveBlob(String oldPath) {
+        String hash = FileStorageService.blobHash(oldPath);
+        String newPath = FileStorageService.blobPath(hash);
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            var blob = attachmentBlobRepository.findByContentHashForUpdate(hash);
+            if (blob.isPresent() && !oldPath.equals(blob.get().getFilePath())) {
+                // Another attachment of this blob already moved it - just catch up stragglers
+                attachmentRepository.updateFilePath(oldPath, blob.get().getFilePath());
+                return false;
+            }
+            try {
+                fileStorageService.copyFile(oldPath, newPath);
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not place blob " + hash, e);
+            }
+            blob.ifPresent(b -> attachmentBlobRepository.updateFilePath(hash, newPath));
+            attachmentRepository.updateFilePath(oldPath, newPath);
+            return true;
+        }));
+    }
+
+    // A per-upload file from before content addressing: hash it into the blob store (deduplicating it)
+    boolean adoptLegacyFile(Integer attachmentId, String oldPath) throws IOException {
+        String hash = fileStorageService.hashFile(oldPath);
+        long size = fileStorageService.fileSize(oldPath);
+
+        Boolean repointed = transactionTemplate.execute(status -> {
+            attachmentBlobRepository.addReference(hash, FileStorageService.blobPath(hash), size);
+            String storedPath = attachmentBlobRepository.findFilePathByContentHash(hash)
+                    .orElse(FileStorageService.blobPath(hash));
+            try {
+                fileStorageService.copyFile(oldPath, storedPath);
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not place blob " + hash, e);
+            }
+            // Deleted or changed since the batch was read - undo the reference
+            if (attachmentRepository.updateFilePathById(attachmentId, oldPath, storedPath) == 0) {
+                status.setRollbackOnly();
+                return false;
+            }
+            return true;
+        });
+        if (!Boolean.TRUE.equals(repointed)) {
+            fileStorageService.purgeIfUnreferenced(hash);
+            return false;
+        }
+        return true;
+    }
+
+    // Remove old names nothing points at any more
+    private void deleteRetired(Set<String> retired) {
+        for (String oldPath : retired) {
+            if (attachmentRepository.existsByFilePath(oldPath)) {
+                continue;
+            }
+            try {
+                // Takes the old thumbnail along; it is rebuilt at the new path on the next request
+                fileStorageService.deleteFile(oldPath);
+            } catch (IOException e) {
+                log.warn("Could not delete migrated file {}", oldPath, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.todo.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
+
+/**
+ * Recomputes and checks the denormalized subtask counters on todos, in parallel chunks of todo ids
+ */
+@Service
+@Slf4j
+public class SubtaskCounterService {
+
+    // Max mismatching todos listed in a consistency report
+    private static final int MAX_REPORTED_MISMATCHES = 20;
+
+    // Locks the chunk's todos so live counter updates wait for the repair (and are applied on top of it)
+    static final String LOCK_CHUNK_SQL = "SELECT id FROM todos WHERE id BETWEEN ? AND ? FOR UPDATE";
+
+    static final String REPAIR_CHUNK_SQL =
+            "UPDATE todos t LEFT JOIN (" +
+            "  SELECT todo_id, COUNT(*) AS total, SUM(is_completed) AS completed" +
+            "  FROM subtasks WHERE todo_id BETWEEN ? AND ? GROUP BY todo_id" +
+            ") s ON s.todo_id = t.id " +
+            "SET t.subtask_total = COALESCE(s.total, 0), t.subtask_completed = COALESCE(s.completed, 0) " +
+            "WHERE t.id BETWEEN ? AND ? " +
+            "AND (t.subtask_total <> COALESCE(s.total, 0) OR t.subtask_completed <> COALESCE(s.completed, 0))";
+
+    static final String CHECK_CHUNK_SQL =
+            "SELECT t.id, t.subtask_total, t.subtask_completed, COALESCE(s.total, 0), COALESCE(s.completed, 0) " +
+            "FROM todos t LEFT JOIN (" +
+            "  SELECT todo_id, COUNT(*) AS total, SUM(is_completed) AS completed" +
+            "  FROM subtasks WHERE todo_id BETWEEN ? AND ? GROUP BY todo_id" +
+            ") s ON s.todo_id = t.id " +
+            "WHERE t.id BETWEEN ? AND ? " +
+            "AND (t.subtask_total <> COALESCE(s.total, 0) OR t.subtask_completed <> COALESCE(s.completed, 0))";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${subtask-counters.chunk-size:5000}")
+    private int chunkSize;
+
+    // 0 = one thread per CPU
+    @Value("${subtask-counters.threads:0}")
+    private int threads;
+
+    @Value("${subtask-counters.check-on-startup:false}")
+    private boolean checkOnStartup;
+
+    /**
+     * Recompute every todo's counters from the subtasks table; returns the number of todos corrected
+     */
+    public int repairAll() {
+        long start = System.currentTimeMillis();
+        List<Integer> repaired = forEachChunk((from, to) -> transactionTemplate.execute(status -> {
+            jdbcTemplate.queryForList(LOCK_CHUNK_SQL, Integer.class, from, to);
+            return jdbcTemplate.update(REPAIR_CHUNK_SQL, from, to, from, to);
+        }));
+        int total = repaired.stream().mapToInt(Integer::intValue).sum();
+        log.info("Repaired subtask counters of {} todos in {} ms", total, System.currentTimeMillis() - start);
+        return total;
+    }
+
+    /**
+     * Compare every todo's counters with the subtasks table without changing anything
+     */
+    public Map<String, Object> checkConsistency() {
+        long start = System.currentTimeMillis();
+        List<List<Map<String, Object>>> chunks = forEachChunk((from, to) ->
+                jdbcTemplate.query(CHECK_CHUNK_SQL, (rs, rowNum) -> {
+                    Map<String, Object> mismatch = new HashMap<>();
+                    mismatch.put("todoId", rs.getInt(1));
+                    mismatch.put("storedTotal", rs.getLong(2));
+                    mismatch.put("storedCompleted", rs.getLong(3));
+                    mismatch.put("actualTotal", rs.getLong(4));
+                    mismatch.put("actualCompleted", rs.getLong(5));
+                    return mismatch;
+                }, from, to, from, to));
+
+        List<Map<String, Object>> samples = new ArrayList<>();
+        int mismatches = 0;
+        for (List<Map<String, Object>> chunk : chunks) {
+            mismatches += chunk.size();
+            for (Map<String, Object> mismatch : chunk) {
+                if (samples.size() < MAX_REPORTED_MISMATCHES) {
+                    samples.add(mismatch);
+                }
+            }
+        }
+
+        Map<String, Object> report = new HashMap<>();
+        report.put("consistent", mismatches == 0);
+        report.put("mismatches", mismatches);
+        report.put("samples", samples);
+        report.put("durationMs", System.currentTimeMillis() - start);
+        return report;
+    }
+
+    // Opt-in check after a deploy; only logs, repairing is left to the admin endpoint
+    @EventListener(ApplicationReadyEvent.class)
+    public void checkAfterStartup() {
+        if (!checkOnStartup) {
+            return;
+        }
+        Map<String, Object> report = checkConsistency();
+        if (Boolean.TRUE.equals(report.get("consistent"))) {
+            log.info("Subtask counters are consistent");
+        } else {
+            log.warn("Subtask counters of {} todos are out of date, e.g. {}", report.get("mismatches"), report.get("samples"));
+        }
+    }
+
+    // Run the task over [min(id), max(id)] of todos in chunkSize ranges on a fixed pool, results in range order
+    private <T> List<T> forEachChunk(BiFunction<Integer, Integer, T> task) {
+        Map<String, Object> bounds = jdbcTemplate.queryForMap("SELECT MIN(id) AS min_id, MAX(id) AS max_id FROM todos");
+        if (bounds.get("min_id") == null) {
+            return List.of();
+        }
+        int minId = ((Number) bounds.get("min_id")).intValue();
+        int maxId = ((Number) bounds.get("max_id")).intValue();
+        int step = Math.max(chunkSize, 1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads > 0 ? threads : Runtime.getRuntime().availableProcessors());
+        try {
+            List<Future<T>> futures = new ArrayList<>();
+            for (long from = minId; from <= maxId; from += step) {
+                int chunkFrom = (int) from;
+                int chunkTo = (int) Math.min(from + step - 1, maxId);
+                futures.add(pool.submit(() -> task.apply(chunkFrom, chunkTo)));
+            }
+
+            List<T> results = new ArrayList<>(futures.size());
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while processing subtask counters", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Subtask counter chunk failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
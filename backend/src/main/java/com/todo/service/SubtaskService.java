@@ -1,27 +1,105 @@
 package com.todo.service;
 
+import com.todo.dto.SubtaskStats;
 import com.todo.entity.Subtask;
+import com.todo.entity.Todo;
 import com.todo.repository.SubtaskRepository;
+import com.todo.repository.TodoRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @Service
+@Slf4j
 public class SubtaskService {
 
+    // Spacing between neighbouring order keys after a rebalance; an insert takes the midpoint
+    // of its neighbours, so about 16 inserts can land in the same slot before the gap runs out
+    static final long ORDER_KEY_GAP = 65_536L;
+
+    // Every write that reads and then rewrites order keys (create, move, reorder, rebalance) first
+    // locks the parent todo row, so a key computed from a snapshot is never written over a newer one.
+    // Lock order is always todo row, then subtask rows
+
+    // Once a write leaves a gap this small, the todo is rebalanced in the background after commit
+    static final long REBALANCE_THRESHOLD = 64L;
+
+    private static final String UPDATE_ORDER_KEY_SQL = "UPDATE subtasks SET order_key = ? WHERE id = ? AND todo_id = ?";
+
     @Autowired
     private SubtaskRepository subtaskRepository;
 
-    // CREATE - Add a new subtask to a todo
+    @Autowired
+    private TodoRepository todoRepository;
+
+    @Autowired
+    private DataVersionService dataVersionService;
+
+    @Autowired
+    private OwnershipResolver ownershipResolver;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // Todos with a rebalance queued, so a burst of tight inserts schedules it once
+    private final Set<Integer> pendingRebalances = ConcurrentHashMap.newKeySet();
+
+    private final ExecutorService rebalanceExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "subtask-rebalance");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PreDestroy
+    public void shutdown() {
+        rebalanceExecutor.shutdown();
+    }
+
+    // CREATE - Add a new subtask to a todo (position = slot to insert at, appended when absent)
+    @Transactional
     public Subtask createSubtask(Subtask subtask) {
-        return subtaskRepository.save(subtask);
+        lockTodo(subtask.getTodoId());
+        subtask.setOrderKey(orderKeyForSlot(subtask.getTodoId(), null, subtask.getPosition()));
+        Subtask savedSubtask = subtaskRepository.save(subtask);
+        long version = dataVersionService.bumpForTodo(savedSubtask.getTodoId());
+        todoRepository.adjustSubtaskCounters(savedSubtask.getTodoId(), 1,
+                Boolean.TRUE.equals(savedSubtask.getIsCompleted()) ? 1 : 0, version);
+        return savedSubtask;
     }
 
     // READ - Get all subtasks for a specific todo
     public List<Subtask> getSubtasksByTodoId(Integer todoId) {
-        return subtaskRepository.findByTodoIdOrderByPositionAsc(todoId);
+        return numberPositions(subtaskRepository.findByTodoIdOrderByPositionAsc(todoId));
+    }
+
+    // Fill the transient position of subtasks already sorted by order key
+    public static List<Subtask> numberPositions(List<Subtask> orderedSubtasks) {
+        for (int i = 0; i < orderedSubtasks.size(); i++) {
+            orderedSubtasks.get(i).setPosition(i);
+        }
+        return orderedSubtasks;
     }
 
     // READ - Get a single subtask by id
@@ -30,32 +108,280 @@ public class SubtaskService {
     }
 
     // UPDATE - Update subtask (usually just toggle completion)
+    @Transactional
     public Subtask updateSubtask(Integer id, Subtask subtaskDetails) {
-        Optional<Subtask> optionalSubtask = subtaskRepository.findById(id);
+        Optional<Integer> todoId = subtaskRepository.findTodoIdById(id);
+        if (todoId.isEmpty()) {
+            return null;
+        }
+        lockTodo(todoId.get());
+        // Row lock so two concurrent toggles see each other's result and count once
+        Optional<Subtask> optionalSubtask = subtaskRepository.findByIdForUpdate(id);
 
         if (optionalSubtask.isPresent()) {
             Subtask subtask = optionalSubtask.get();
+            int completedDelta = 0;
 
             if (subtaskDetails.getTitle() != null) {
                 subtask.setTitle(subtaskDetails.getTitle());
             }
             if (subtaskDetails.getIsCompleted() != null) {
+                boolean wasCompleted = Boolean.TRUE.equals(subtask.getIsCompleted());
+                if (wasCompleted != subtaskDetails.getIsCompleted()) {
+                    completedDelta = wasCompleted ? -1 : 1;
+                }
                 subtask.setIsCompleted(subtaskDetails.getIsCompleted());
             }
             if (subtaskDetails.getPosition() != null) {
+                // A move rewrites only this row's key
+                subtask.setOrderKey(orderKeyForSlot(subtask.getTodoId(), subtask.getId(), subtaskDetails.getPosition()));
                 subtask.setPosition(subtaskDetails.getPosition());
             }
 
-            return subtaskRepository.save(subtask);
+            Subtask updatedSubtask = subtaskRepository.save(subtask);
+            long version = dataVersionService.bumpForTodo(updatedSubtask.getTodoId());
+            if (completedDelta != 0) {
+                todoRepository.adjustSubtaskCounters(updatedSubtask.getTodoId(), 0, completedDelta, version);
+            }
+            return updatedSubtask;
         }
 
         return null;
     }
 
+    // REORDER - Apply a full ordering in one JDBC batch (one round trip with rewriteBatchedStatements).
+    // The longest run of subtasks already in increasing key order keeps its keys; only the
+    // others get new keys between their kept neighbours, so dragging one item writes one row
+    @Transactional
+    public int reorderSubtasks(Integer todoId, List<Integer> orderedIds) {
+        lockTodo(todoId);
+        Map<Integer, Long> currentKeys = new HashMap<>();
+        for (Object[] row : subtaskRepository.findOrderKeysByTodoId(todoId)) {
+            currentKeys.put((Integer) row[0], (Long) row[1]);
+        }
+
+        if (orderedIds == null || orderedIds.size() != currentKeys.size()
+                || !currentKeys.keySet().equals(new HashSet<>(orderedIds))) {
+            throw new IllegalArgumentException("Order must list every subtask of the todo exactly once");
+        }
+
+        long[] keys = new long[orderedIds.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = currentKeys.get(orderedIds.get(i));
+        }
+        long[] newKeys = respaceAroundKept(keys, longestIncreasingRun(keys));
+        if (newKeys == null) {
+            // Not enough room between the kept keys - renumber the whole list
+            newKeys = new long[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                newKeys[i] = (i + 1) * ORDER_KEY_GAP;
+            }
+        }
+
+        // Only rows whose key actually changes are written
+        List<Object[]> changes = new ArrayList<>();
+        long tightestGap = Long.MAX_VALUE;
+        for (int i = 0; i < keys.length; i++) {
+            if (newKeys[i] != keys[i]) {
+                changes.add(new Object[]{newKeys[i], orderedIds.get(i), todoId});
+            }
+            if (i > 0) {
+                tightestGap = Math.min(tightestGap, newKeys[i] - newKeys[i - 1]);
+            }
+        }
+
+        if (!changes.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_ORDER_KEY_SQL, changes);
+            dataVersionService.bumpForTodo(todoId);
+            if (tightestGap < REBALANCE_THRESHOLD) {
+                scheduleRebalance(todoId);
+            }
+        }
+        return changes.size();
+    }
+
+    // REBALANCE - Spread a todo's order keys back out to ORDER_KEY_GAP; the order is unchanged
+    @Transactional
+    public int rebalance(Integer todoId) {
+        if (todoRepository.lockById(todoId).isEmpty()) {
+            // Todo deleted since the rebalance was scheduled
+            return 0;
+        }
+        List<Object[]> rows = subtaskRepository.findOrderKeysByTodoId(todoId);
+        List<Object[]> changes = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            long key = (i + 1) * ORDER_KEY_GAP;
+            if (key != (Long) rows.get(i)[1]) {
+                changes.add(new Object[]{key, rows.get(i)[0], todoId});
+            }
+        }
+        if (!changes.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_ORDER_KEY_SQL, changes);
+        }
+        return changes.size();
+    }
+
+    // Blocks until concurrent order-key writers on the same todo have committed
+    private void lockTodo(Integer todoId) {
+        if (todoRepository.lockById(todoId).isEmpty()) {
+            throw new IllegalArgumentException("Todo " + todoId + " not found");
+        }
+    }
+
+    // Key for placing a subtask at the given slot among the todo's other subtasks.
+    // Keeps the mover's current key when it is already between its new neighbours
+    private long orderKeyForSlot(Integer todoId, Integer movingId, Integer slot) {
+        for (boolean rebalanced = false; ; rebalanced = true) {
+            List<Object[]> rows = subtaskRepository.findOrderKeysByTodoId(todoId);
+            Long currentKey = null;
+            List<Long> others = new ArrayList<>(rows.size());
+            for (Object[] row : rows) {
+                if (row[0].equals(movingId)) {
+                    currentKey = (Long) row[1];
+                } else {
+                    others.add((Long) row[1]);
+                }
+            }
+
+            int index = slot == null || slot < 0 || slot > others.size() ? others.size() : slot;
+            Long lo = index > 0 ? others.get(index - 1) : null;
+            Long hi = index < others.size() ? others.get(index) : null;
+
+            if (currentKey != null && (lo == null || lo < currentKey) && (hi == null || currentKey < hi)) {
+                return currentKey;
+            }
+            if (hi == null) {
+                return (lo == null ? 0 : lo) + ORDER_KEY_GAP;
+            }
+            if (lo == null) {
+                return hi - ORDER_KEY_GAP;
+            }
+            if (hi - lo >= 2) {
+                if (hi - lo < REBALANCE_THRESHOLD) {
+                    scheduleRebalance(todoId);
+                }
+                return lo + (hi - lo) / 2;
+            }
+            if (rebalanced) {
+                throw new IllegalStateException("No room for subtask order key in todo " + todoId);
+            }
+            // Gap exhausted - renumber now, then pick again from the spread-out keys
+            rebalance(todoId);
+        }
+    }
+
+    // Rebalance the todo after the current transaction commits, off the request thread
+    private void scheduleRebalance(Integer todoId) {
+        if (!pendingRebalances.add(todoId)) {
+            return;
+        }
+        Runnable submit = () -> rebalanceExecutor.execute(() -> {
+            try {
+                transactionTemplate.executeWithoutResult(status -> rebalance(todoId));
+            } catch (RuntimeException e) {
+                log.warn("Background rebalance of subtasks for todo {} failed", todoId, e);
+            } finally {
+                pendingRebalances.remove(todoId);
+            }
+        });
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit.run();
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        pendingRebalances.remove(todoId);
+                    }
+                }
+            });
+        } else {
+            submit.run();
+        }
+    }
+
+    // Indexes of one longest strictly increasing subsequence of keys (patience sorting, O(n log n))
+    static boolean[] longestIncreasingRun(long[] keys) {
+        int n = keys.length;
+        int[] tails = new int[n];
+        int[] previous = new int[n];
+        int length = 0;
+        for (int i = 0; i < n; i++) {
+            int low = 0;
+            int high = length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (keys[tails[mid]] < keys[i]) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            previous[i] = low > 0 ? tails[low - 1] : -1;
+            tails[low] = i;
+            if (low == length) {
+                length++;
+            }
+        }
+
+        boolean[] kept = new boolean[n];
+        for (int i = length > 0 ? tails[length - 1] : -1; i >= 0; i = previous[i]) {
+            kept[i] = true;
+        }
+        return kept;
+    }
+
+    // Keys with every non-kept run spread evenly between its kept neighbours, or null when a run does not fit
+    static long[] respaceAroundKept(long[] keys, boolean[] kept) {
+        long[] result = Arrays.copyOf(keys, keys.length);
+        int i = 0;
+        while (i < keys.length) {
+            if (kept[i]) {
+                i++;
+                continue;
+            }
+            int runStart = i;
+            while (i < keys.length && !kept[i]) {
+                i++;
+            }
+            int runLength = i - runStart;
+            Long lo = runStart > 0 ? keys[runStart - 1] : null;
+            Long hi = i < keys.length ? keys[i] : null;
+            if (lo == null && hi == null) {
+                return null;
+            }
+            long from = lo != null ? lo : hi - (runLength + 1) * ORDER_KEY_GAP;
+            long to = hi != null ? hi : lo + (runLength + 1) * ORDER_KEY_GAP;
+            long step = (to - from) / (runLength + 1);
+            if (step < 1) {
+                return null;
+            }
+            for (int k = 0; k < runLength; k++) {
+                result[runStart + k] = from + (k + 1) * step;
+            }
+        }
+        return result;
+    }
+
     // DELETE - Delete a subtask
+    @Transactional
     public boolean deleteSubtask(Integer id) {
-        if (subtaskRepository.existsById(id)) {
-            subtaskRepository.deleteById(id);
+        Optional<Integer> todoId = subtaskRepository.findTodoIdById(id);
+        if (todoId.isEmpty()) {
+            return false;
+        }
+        // Same lock order as the order-key writers, so a delete never deadlocks with a reorder
+        lockTodo(todoId.get());
+        Optional<Subtask> subtask = subtaskRepository.findByIdForUpdate(id);
+        if (subtask.isPresent()) {
+            subtaskRepository.delete(subtask.get());
+            long version = dataVersionService.bumpForTodo(subtask.get().getTodoId());
+            todoRepository.adjustSubtaskCounters(subtask.get().getTodoId(), -1,
+                    Boolean.TRUE.equals(subtask.get().getIsCompleted()) ? -1 : 0, version);
+            ownershipResolver.evictSubtask(id);
             return true;
         }
         return false;
@@ -65,35 +391,45 @@ public class SubtaskService {
     @Transactional
     public void deleteSubtasksByTodoId(Integer todoId) {
         subtaskRepository.deleteByTodoId(todoId);
+        todoRepository.resetSubtaskCounters(todoId, dataVersionService.bumpForTodo(todoId));
     }
 
     // UTILITY - Get completion stats
     public SubtaskStats getSubtaskStats(Integer todoId) {
-        long total = subtaskRepository.countByTodoId(todoId);
-        long completed = subtaskRepository.countByTodoIdAndIsCompletedTrue(todoId);
-        return new SubtaskStats(total, completed);
+        return getSubtaskStats(List.of(todoId)).getOrDefault(todoId, new SubtaskStats(0, 0));
     }
 
-    // Inner class for stats
-    public static class SubtaskStats {
-        private long total;
-        private long completed;
-
-        public SubtaskStats(long total, long completed) {
-            this.total = total;
-            this.completed = completed;
+    // UTILITY - Completion stats for many todos, read from the todos' counters (unknown ids are left out)
+    public Map<Integer, SubtaskStats> getSubtaskStats(Collection<Integer> todoIds) {
+        Map<Integer, SubtaskStats> stats = new LinkedHashMap<>();
+        if (!todoIds.isEmpty()) {
+            putCounterRows(stats, todoRepository.findSubtaskCountersByIds(todoIds));
         }
+        return stats;
+    }
 
-        public long getTotal() {
-            return total;
+    // UTILITY - Completion stats for a user's todos: all of them, or only the listed ones they own
+    public Map<Integer, SubtaskStats> getSubtaskStatsForUser(Integer userId, Collection<Integer> todoIds) {
+        Map<Integer, SubtaskStats> stats = new LinkedHashMap<>();
+        if (todoIds == null) {
+            putCounterRows(stats, todoRepository.findSubtaskCountersByUserId(userId));
+        } else if (!todoIds.isEmpty()) {
+            putCounterRows(stats, todoRepository.findSubtaskCountersByUserIdAndIds(userId, todoIds));
         }
+        return stats;
+    }
 
-        public long getCompleted() {
-            return completed;
+    // Fill each todo's transient subtaskStats from its counters, for list responses that ask for them inline
+    public List<Todo> attachSubtaskStats(List<Todo> todos) {
+        for (Todo todo : todos) {
+            todo.setSubtaskStats(new SubtaskStats(todo.getSubtaskTotal(), todo.getSubtaskCompleted()));
         }
+        return todos;
+    }
 
-        public double getPercentage() {
-            return total == 0 ? 0 : (completed * 100.0) / total;
+    private static void putCounterRows(Map<Integer, SubtaskStats> stats, List<Object[]> rows) {
+        for (Object[] row : rows) {
+            stats.put((Integer) row[0], new SubtaskStats(((Number) row[1]).longValue(), ((Number) row[2]).longValue()));
         }
     }
-}
\ No newline at end of file
+}
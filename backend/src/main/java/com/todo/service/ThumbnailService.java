@@ -0,0 +1,313 @@
+package com.todo.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Builds fixed-size JPEG thumbnails for image attachments, stored next to the original file in the storage backend.
+ * Uploads queue a job on a bounded pool after commit; when the job has not run (or was dropped because the
+ * queue was full) the thumbnail endpoint queues one on the same pool and waits briefly for it, so image
+ * decoding never runs on request threads
+ */
+@Service
+@Slf4j
+public class ThumbnailService {
+
+    // Longest side of a thumbnail, in pixels
+    public static final int THUMBNAIL_SIZE = 256;
+
+    private static final float JPEG_QUALITY = 0.8f;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Value("${thumbnails.threads:2}")
+    private int threads;
+
+    @Value("${thumbnails.queue-capacity:500}")
+    private int queueCapacity;
+
+    // How long a thumbnail request waits for an on-demand build before answering "not ready yet"
+    @Value("${thumbnails.request-wait-ms:3000}")
+    private long requestWaitMs;
+
+    private ThreadPoolExecutor executor;
+
+    // One generation per file at a time; background job and on-demand requests share it
+    private final Map<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong generated = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong onDemand = new AtomicLong();
+    private final AtomicLong notReady = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        int poolSize = Math.max(threads, 1);
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(queueCapacity, 1)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "thumbnail-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    public static boolean isThumbnailable(String contentType) {
+        return contentType != null && contentType.startsWith("image/");
+    }
+
+    /**
+     * Queue a thumbnail for an uploaded image once the current transaction commits
+     */
+    public void scheduleAfterCommit(String filePath, String contentType) {
+        if (!isThumbnailable(contentType)) {
+            return;
+        }
+        Runnable submit = () -> {
+            try {
+                buildAsync(filePath).whenComplete((thumbnail, e) -> {
+                    if (e != null) {
+                        log.warn("Thumbnail job for {} failed", filePath, e);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // Queue full - the thumbnail endpoint builds it on first request instead
+                dropped.incrementAndGet();
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit.run();
+                }
+            });
+        } else {
+            submit.run();
+        }
+    }
+
+    /**
+     * Stored name of the file's thumbnail, built on the thumbnail pool if it does not exist yet.
+     * Empty when it is not ready within thumbnails.request-wait-ms (or the pool is full); the
+     * build keeps going and a later request finds it
+     */
+    public Optional<String> awaitThumbnail(String filePath) throws IOException {
+        String thumbnail = FileStorageService.thumbnailPath(filePath);
+        if (fileStorageService.fileExists(thumbnail)) {
+            return Optional.of(thumbnail);
+        }
+
+        CompletableFuture<String> build;
+        try {
+            build = buildAsync(filePath);
+            onDemand.incrementAndGet();
+        } catch (RejectedExecutionException e) {
+            notReady.incrementAndGet();
+            return Optional.empty();
+        }
+
+        try {
+            return Optional.of(build.get(requestWaitMs, TimeUnit.MILLISECONDS));
+        } catch (TimeoutException e) {
+            notReady.incrementAndGet();
+            return Optional.empty();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for thumbnail of " + filePath);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException io ? io : new IOException(cause);
+        }
+    }
+
+    /**
+     * Stored name of the file's thumbnail, generating it on the calling thread if it does not exist yet
+     */
+    public String ensureThumbnail(String filePath) throws IOException {
+        String thumbnail = FileStorageService.thumbnailPath(filePath);
+        if (fileStorageService.fileExists(thumbnail)) {
+            return thumbnail;
+        }
+
+        CompletableFuture<String> mine = new CompletableFuture<>();
+        CompletableFuture<String> running = inFlight.putIfAbsent(filePath, mine);
+        if (running == null) {
+            build(filePath, mine);
+            running = mine;
+        }
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+        }
+    }
+
+    // The file's build already in flight, or a new one queued on the pool. Callers wait on the
+    // shared future, so no pool thread is ever parked waiting for another one's build
+    private CompletableFuture<String> buildAsync(String filePath) {
+        CompletableFuture<String> mine = new CompletableFuture<>();
+        CompletableFuture<String> running = inFlight.putIfAbsent(filePath, mine);
+        if (running != null) {
+            return running;
+        }
+        try {
+            executor.execute(() -> build(filePath, mine));
+        } catch (RejectedExecutionException e) {
+            mine.completeExceptionally(e);
+            inFlight.remove(filePath, mine);
+            throw e;
+        }
+        return mine;
+    }
+
+    // Generate the thumbnail on the current thread and complete the future registered for it in inFlight
+    private void build(String filePath, CompletableFuture<String> result) {
+        String thumbnail = FileStorageService.thumbnailPath(filePath);
+        Path temp = null;
+        try {
+            // A build that finished just before this one was registered already wrote it
+            if (!fileStorageService.fileExists(thumbnail)) {
+                temp = fileStorageService.createTempFile("thumb-");
+                try (InputStream source = fileStorageService.openFile(filePath)) {
+                    writeThumbnail(source, temp);
+                }
+                fileStorageService.storeFile(thumbnail, temp);
+                generated.incrementAndGet();
+            }
+            result.complete(thumbnail);
+        } catch (IOException | RuntimeException e) {
+            failed.incrementAndGet();
+            result.completeExceptionally(e);
+        } finally {
+            inFlight.remove(filePath, result);
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException e) {
+                    log.warn("Could not delete thumbnail temp file {}", temp, e);
+                }
+            }
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("threads", executor.getCorePoolSize());
+        stats.put("active", executor.getActiveCount());
+        stats.put("queued", executor.getQueue().size());
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("generated", generated.get());
+        stats.put("failed", failed.get());
+        stats.put("dropped", dropped.get());
+        stats.put("onDemand", onDemand.get());
+        stats.put("notReady", notReady.get());
+        return stats;
+    }
+
+    // Decode (subsampled, so a 24MP photo never lands in heap at full size), scale, write JPEG to target
+    static void writeThumbnail(InputStream source, Path target) throws IOException {
+        BufferedImage image = readSubsampled(source, THUMBNAIL_SIZE);
+
+        double scale = Math.min(1.0, (double) THUMBNAIL_SIZE / Math.max(image.getWidth(), image.getHeight()));
+        int width = Math.max(1, (int) Math.round(image.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * scale));
+
+        BufferedImage thumbnail = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = thumbnail.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            // JPEG has no alpha - flatten transparent PNG/GIF onto white
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(target.toFile())) {
+            writer.setOutput(out);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            writer.write(null, new IIOImage(thumbnail, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private static BufferedImage readSubsampled(InputStream source, int targetSize) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(source)) {
+            Iterator<ImageReader> readers = in != null ? ImageIO.getImageReaders(in) : null;
+            if (readers == null || !readers.hasNext()) {
+                throw new IOException("Unsupported image format");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int longest = Math.max(reader.getWidth(0), reader.getHeight(0));
+                // Keep at least 2x the target resolution so the final scale-down stays smooth
+                int step = Math.max(1, longest / (targetSize * 2));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                BufferedImage image = reader.read(0, param);
+                if (image == null) {
+                    throw new IOException("Could not decode image");
+                }
+                return image;
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.todo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.todo.dto.TodoExportRow;
+import com.todo.entity.Attachment;
+import com.todo.entity.Subtask;
+import com.todo.entity.Todo;
+import com.todo.repository.AttachmentRepository;
+import com.todo.repository.SubtaskRepository;
+import com.todo.repository.TodoRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Streams a user's todos, with subtasks and attachment metadata, straight
+ * from a database cursor to the response. Rows are processed in fixed-size
+ * chunks so memory use does not depend on how many todos the user has.
+ */
+@Service
+public class TodoExportService {
+
+    public static final String FORMAT_NDJSON = "ndjson";
+    public static final String FORMAT_CSV = "csv";
+
+
+    private static final String CSV_HEADER =
+            "id,title,description,is_completed,due_date,created_at,updated_at,subtasks,attachments\n";
+
+    // Todos per batched subtask/attachment lookup
+    @Value("${todo.export.chunk-size:500}")
+    private int chunkSize;
+
+    @Autowired
+    private TodoRepository todoRepository;
+
+    @Autowired
+    private SubtaskRepository subtaskRepository;
+
+    @Autowired
+    private AttachmentRepository attachmentRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Write every todo of the user to the output stream in the given format
+     */
+    @Transactional(readOnly = true)
+    public void exportTodos(Integer userId, String format, OutputStream out) throws IOException {
+        boolean csv = FORMAT_CSV.equals(format);
+        if (csv) {
+            out.write(CSV_HEADER.getBytes(StandardCharsets.UTF_8));
+        }
+
+        List<Todo> chunk = new ArrayList<>(chunkSize);
+        try (Stream<Todo> todos = todoRepository.streamByUserId(userId)) {
+            todos.forEach(todo -> {
+                chunk.add(todo);
+                if (chunk.size() == chunkSize) {
+                    writeChunk(chunk, csv, out);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writeChunk(chunk, csv, out);
+        out.flush();
+    }
+
+    // Join one chunk with its subtasks and attachments, write it, then release it
+    private void writeChunk(List<Todo> chunk, boolean csv, OutputStream out) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        List<Integer> todoIds = chunk.stream().map(Todo::getId).toList();
+
+        Map<Integer, List<Subtask>> subtasksByTodo = subtaskRepository
+                .findByTodoIdInOrderByTodoIdAscPositionAsc(todoIds).stream()
+                .collect(Collectors.groupingBy(Subtask::getTodoId));
+        subtasksByTodo.values().forEach(SubtaskService::numberPositions);
+
+        Map<Integer, List<TodoExportRow.AttachmentMetadata>> attachmentsByTodo = attachmentRepository
+                .findByTodo_IdInOrderByCreatedAtDesc(todoIds).stream()
+                .collect(Collectors.groupingBy(attachment -> attachment.getTodo().getId(),
+                        Collectors.mapping(TodoExportRow.AttachmentMetadata::new, Collectors.toList())));
+
+        try {
+            for (Todo todo : chunk) {
+                TodoExportRow row = new TodoExportRow(
+                        todo,
+                        subtasksByTodo.getOrDefault(todo.getId(), List.of()),
+                        attachmentsByTodo.getOrDefault(todo.getId(), List.of())
+                );
+                if (csv) {
+                    out.write(toCsvLine(row).getBytes(StandardCharsets.UTF_8));
+                } else {
+                    out.write(objectMapper.writeValueAsBytes(row));
+                    out.write('\n');
+                }
+            }
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        // Detach everything read so far so the persistence context stays small
+        chunk.clear();
+        entityManager.clear();
+    }
+
+    private String toCsvLine(TodoExportRow row) {
+        String subtasks = row.getSubtasks().stream()
+                .map(subtask -> (Boolean.TRUE.equals(subtask.getIsCompleted()) ? "[x] " : "[ ] ") + subtask.getTitle())
+                .collect(Collectors.joining(" | "));
+        String attachments = row.getAttachments().stream()
+                .map(TodoExportRow.AttachmentMetadata::getFileName)
+                .collect(Collectors.joining(" | "));
+
+        return String.join(",",
+                String.valueOf(row.getId()),
+                csvField(row.getTitle()),
+                csvField(row.getDescription()),
+                String.valueOf(Boolean.TRUE.equals(row.getIsCompleted())),
+                csvField(row.getDueDate()),
+                csvField(row.getCreatedAt()),
+                csvField(row.getUpdatedAt()),
+                csvField(subtasks),
+                csvField(attachments)) + "\n";
+    }
+
+    static String csvField(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        // Spreadsheets evaluate cells starting with these as formulas; a leading ' keeps user text as text
+        if (!text.isEmpty() && "=+-@\t\r".indexOf(text.charAt(0)) >= 0) {
+            text = "'" + text;
+        }
+        if (text.contains(",") || text.contains("\"") || text.contains("\n") || text.contains("\r")) {
+            return "\"" + text.replace("\"", "\"\"") + "\"";
+        }
+        return text;
+    }
+}
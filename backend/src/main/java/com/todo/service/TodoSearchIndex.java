@@ -0,0 +1,274 @@
+package com.todo.service;
+
+import com.todo.entity.Todo;
+import com.todo.repository.TodoRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory, per-user inverted index over todo titles and descriptions.
+ * Supports prefix matching on every query term and ranks hits by a
+ * field-weighted tf-idf score. Kept up to date by TodoService writes and
+ * rebuilt in parallel from the database at startup.
+ */
+@Service
+@Slf4j
+public class TodoSearchIndex {
+
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    // Title hits count more than description hits
+    private static final int TITLE_WEIGHT = 3;
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    // A prefix-only match scores half of an exact token match
+    private static final double PREFIX_FACTOR = 0.5;
+
+    @Autowired
+    private TodoRepository todoRepository;
+
+    @Value("${search.index.rebuild-threads:0}")
+    private int rebuildThreads;
+
+    private final Map<Integer, UserIndex> indexes = new ConcurrentHashMap<>();
+
+    // Todos deleted while a rebuild is running must not be re-added from its snapshot
+    private final Set<Integer> removedDuringRebuild = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean rebuilding;
+    private volatile boolean ready;
+
+    /**
+     * True once the startup rebuild has finished and results are complete
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Add or replace a todo in its owner's index once the surrounding transaction commits
+     */
+    public void index(Todo todo) {
+        if (todo.getUser() == null || todo.getId() == null) {
+            return;
+        }
+        Integer userId = todo.getUser().getId();
+        Integer todoId = todo.getId();
+        Map<String, Integer> terms = weighTerms(todo.getTitle(), todo.getDescription());
+        afterCommit(() -> userIndex(userId).put(todoId, terms, false));
+    }
+
+    /**
+     * Remove a todo from its owner's index once the surrounding transaction commits
+     */
+    public void remove(Integer userId, Integer todoId) {
+        if (userId == null || todoId == null) {
+            return;
+        }
+        afterCommit(() -> {
+            if (rebuilding) {
+                removedDuringRebuild.add(todoId);
+            }
+            UserIndex userIndex = indexes.get(userId);
+            if (userIndex != null) {
+                userIndex.remove(todoId);
+            }
+        });
+    }
+
+    /**
+     * Search a user's todos, returning matching todo IDs ordered by relevance
+     */
+    public List<Integer> search(Integer userId, String query, int limit) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        UserIndex userIndex = indexes.get(userId);
+        if (terms.isEmpty() || userIndex == null || limit <= 0) {
+            return List.of();
+        }
+        return userIndex.search(terms, limit);
+    }
+
+    /**
+     * Rebuild every user's index from the database, one user per task
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        int threads = rebuildThreads > 0 ? rebuildThreads : Runtime.getRuntime().availableProcessors();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        AtomicInteger indexed = new AtomicInteger();
+
+        rebuilding = true;
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (Integer userId : todoRepository.findDistinctUserIds()) {
+                tasks.add(pool.submit(() -> {
+                    UserIndex userIndex = userIndex(userId);
+                    for (Todo todo : todoRepository.findTodosByUserIdIs(userId)) {
+                        if (!removedDuringRebuild.contains(todo.getId())) {
+                            // Never overwrite an entry written by a live request during the rebuild
+                            userIndex.put(todo.getId(), weighTerms(todo.getTitle(), todo.getDescription()), true);
+                            indexed.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+            ready = true;
+            log.info("Search index rebuilt: {} todos for {} users in {} ms",
+                    indexed.get(), tasks.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("Failed to rebuild search index, falling back to database search", e);
+        } finally {
+            rebuilding = false;
+            removedDuringRebuild.clear();
+            pool.shutdown();
+        }
+    }
+
+    // Split text into lower-case letter/digit tokens
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        List<String> tokens = new ArrayList<>();
+        for (String token : TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private static Map<String, Integer> weighTerms(String title, String description) {
+        Map<String, Integer> terms = new HashMap<>();
+        for (String token : tokenize(title)) {
+            terms.merge(token, TITLE_WEIGHT, Integer::sum);
+        }
+        for (String token : tokenize(description)) {
+            terms.merge(token, DESCRIPTION_WEIGHT, Integer::sum);
+        }
+        return terms;
+    }
+
+    private UserIndex userIndex(Integer userId) {
+        return indexes.computeIfAbsent(userId, id -> new UserIndex());
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    // Postings for one user: token -> (todoId -> weighted term frequency)
+    private static final class UserIndex {
+        private final TreeMap<String, Map<Integer, Integer>> postings = new TreeMap<>();
+        private final Map<Integer, Map<String, Integer>> documents = new HashMap<>();
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+        void put(Integer todoId, Map<String, Integer> terms, boolean onlyIfAbsent) {
+            lock.writeLock().lock();
+            try {
+                if (onlyIfAbsent && documents.containsKey(todoId)) {
+                    return;
+                }
+                removeLocked(todoId);
+                documents.put(todoId, terms);
+                terms.forEach((token, weight) ->
+                        postings.computeIfAbsent(token, t -> new HashMap<>()).put(todoId, weight));
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void remove(Integer todoId) {
+            lock.writeLock().lock();
+            try {
+                removeLocked(todoId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private void removeLocked(Integer todoId) {
+            Map<String, Integer> previous = documents.remove(todoId);
+            if (previous == null) {
+                return;
+            }
+            for (String token : previous.keySet()) {
+                Map<Integer, Integer> docs = postings.get(token);
+                if (docs != null) {
+                    docs.remove(todoId);
+                    if (docs.isEmpty()) {
+                        postings.remove(token);
+                    }
+                }
+            }
+        }
+
+        List<Integer> search(List<String> terms, int limit) {
+            lock.readLock().lock();
+            try {
+                int documentCount = documents.size();
+                Map<Integer, Double> scores = null;
+
+                // Every query term must match a token exactly or as a prefix
+                for (String term : terms) {
+                    Map<Integer, Double> termScores = new HashMap<>();
+                    for (Map.Entry<String, Map<Integer, Integer>> posting :
+                            postings.subMap(term, true, term + Character.MAX_VALUE, true).entrySet()) {
+                        Map<Integer, Integer> docs = posting.getValue();
+                        double idf = Math.log(1.0 + (double) documentCount / docs.size());
+                        double factor = posting.getKey().equals(term) ? 1.0 : PREFIX_FACTOR;
+                        docs.forEach((todoId, weight) ->
+                                termScores.merge(todoId, weight * idf * factor, Math::max));
+                    }
+
+                    if (scores == null) {
+                        scores = termScores;
+                    } else {
+                        scores.keySet().retainAll(termScores.keySet());
+                        scores.replaceAll((todoId, score) -> score + termScores.get(todoId));
+                    }
+                    if (scores.isEmpty()) {
+                        return List.of();
+                    }
+                }
+
+                return scores.entrySet().stream()
+                        .sorted(Map.Entry.<Integer, Double>comparingByValue().reversed()
+                                .thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder())))
+                        .limit(limit)
+                        .map(Map.Entry::getKey)
+                        .toList();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.todo.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Keeps the todo id sequence ahead of the ids already in the todos table. If the app starts before
+ * database-todo-sequence.sql has run, Hibernate (ddl-auto=update) creates todo_seq starting at 1 and
+ * new todos would collide with existing ids
+ */
+@Service
+@Slf4j
+@DependsOn("entityManagerFactory") // schema update (which may create todo_seq) runs first
+public class TodoSequenceService {
+
+    // Same as allocationSize of the sequence generator on Todo.id
+    static final int ALLOCATION_SIZE = 50;
+
+    // Locks the sequence row so nodes starting together (and their first id blocks) wait for the check
+    static final String LOCK_SEQUENCE_SQL = "SELECT next_val FROM todo_seq FOR UPDATE";
+
+    static final String MAX_ID_SQL = "SELECT COALESCE(MAX(id), 0) FROM todos";
+
+    static final String UPDATE_SEQUENCE_SQL = "UPDATE todo_seq SET next_val = ?";
+
+    static final String INSERT_SEQUENCE_SQL = "INSERT INTO todo_seq (next_val) VALUES (?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // false = refuse to start instead of moving the sequence
+    @Value("${todo.sequence.seed-on-startup:true}")
+    private boolean seedOnStartup;
+
+    /**
+     * Runs before the web server accepts requests, so no todo is inserted with a stale block
+     */
+    @PostConstruct
+    public void alignWithExistingIds() {
+        Long seeded = transactionTemplate.execute(status -> {
+            List<Long> current = jdbcTemplate.queryForList(LOCK_SEQUENCE_SQL, Long.class);
+            Long maxId = jdbcTemplate.queryForObject(MAX_ID_SQL, Long.class);
+            // A pooled block hands out ids up to ALLOCATION_SIZE below next_val, so stay that far past max(id)
+            long required = (maxId != null ? maxId : 0) + ALLOCATION_SIZE + 1;
+            if (!current.isEmpty() && current.get(0) != null && current.get(0) >= required) {
+                return null;
+            }
+            if (!seedOnStartup) {
+                throw new IllegalStateException("todo_seq is behind the todos table (next_val " +
+                        (current.isEmpty() ? "missing" : current.get(0)) + ", max id " + maxId +
+                        "); run database/database-todo-sequence.sql or enable todo.sequence.seed-on-startup");
+            }
+            if (current.isEmpty()) {
+                jdbcTemplate.update(INSERT_SEQUENCE_SQL, required);
+            } else {
+                jdbcTemplate.update(UPDATE_SEQUENCE_SQL, required);
+            }
+            return required;
+        });
+        if (seeded != null) {
+            log.warn("todo_seq was behind existing todo ids; moved next_val to {}", seeded);
+        }
+    }
+}
@@ -1,38 +1,83 @@
 package com.todo.service;
 
+import com.todo.dto.AdminTodoFilter;
+import com.todo.dto.AdminTodoPageResponse;
+import com.todo.dto.AdminTodoView;
+import com.todo.dto.TodoBatchOperation;
+import com.todo.dto.TodoBatchResult;
+import com.todo.dto.TodoCursor;
+import com.todo.dto.TodoPageResponse;
 import com.todo.entity.Todo;
+import com.todo.entity.TodoDeletion;
+import com.todo.entity.User;
+import com.todo.repository.TodoDeletionRepository;
 import com.todo.repository.TodoRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
 public class TodoService {
 
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 200;
+    public static final int MAX_BATCH_SIZE = 500;
+
     @Autowired
     private TodoRepository todoRepository;
 
+    @Autowired
+    private TodoDeletionRepository todoDeletionRepository;
+
     @Autowired
     private GoogleCalendarService calendarService;
 
+    @Autowired
+    private TodoSearchIndex searchIndex;
+
+    @Autowired
+    private DataVersionService dataVersionService;
+
+    @Autowired
+    private OwnershipResolver ownershipResolver;
+
     // CREATE - Add a new todo (with calendar sync)
     @Transactional
     public Todo createTodo(Todo todo) {
         Todo savedTodo = todoRepository.save(todo);
+        searchIndex.index(savedTodo);
+        if (todo.getUser() != null) {
+            // Managed entity - the stamp is flushed with the INSERT
+            savedTodo.setChangeVersion(dataVersionService.bumpForUser(todo.getUser().getId()));
+        }
 
-        // Sync to Google Calendar (non-blocking)
+        // Sync to Google Calendar after commit, so no row stays locked while Google answers
         if (todo.getUser() != null) {
-            try {
-                calendarService.syncTodoToCalendar(savedTodo, todo.getUser().getId());
-            } catch (Exception e) {
-                log.warn("Failed to sync new todo to calendar: {}", e.getMessage());
-                // Don't throw - we don't want calendar sync to break todo creation
-            }
+            Integer userId = todo.getUser().getId();
+            afterCommit(() -> {
+                try {
+                    calendarService.syncTodoToCalendar(savedTodo, userId);
+                } catch (Exception e) {
+                    log.warn("Failed to sync new todo to calendar: {}", e.getMessage());
+                    // Don't throw - we don't want calendar sync to break todo creation
+                }
+            });
         }
 
         return savedTodo;
@@ -48,8 +93,104 @@ public class TodoService {
         if(name == null || name.isEmpty()) {
             return todoRepository.findTodosByUserIdIs(userId);
         }else{
-            return todoRepository.findTodosByTitleContainingIgnoreCaseAndUserIdIs(name, userId);
+            return searchTodos(userId, name, Integer.MAX_VALUE);
+        }
+    }
+
+    // READ - Full-text search over title and description, best matches first
+    public List<Todo> searchTodos(Integer userId, String query, int limit) {
+        return searchTodos(userId, query, 0, limit);
+    }
+
+    // READ - The matches ranked offset .. offset + limit - 1
+    public List<Todo> searchTodos(Integer userId, String query, int offset, int limit) {
+        if (!searchIndex.isReady()) {
+            // Index still rebuilding after startup - fall back to the title scan
+            return todoRepository.findTodosByTitleContainingIgnoreCaseAndUserIdIs(query, userId).stream()
+                    .skip(offset)
+                    .limit(limit)
+                    .toList();
+        }
+
+        List<Integer> ranked = searchIndex.search(userId, query, (int) Math.min(Integer.MAX_VALUE, (long) offset + limit));
+        List<Integer> ids = offset >= ranked.size() ? List.of() : ranked.subList(offset, ranked.size());
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Integer, Todo> todosById = todoRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Todo::getId, Function.identity()));
+        return ids.stream()
+                .map(todosById::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    // READ - Get one keyset page of a user's todos, ordered by (createdAt, id)
+    public TodoPageResponse getTodosPage(Integer userId, String name, String cursor, Integer limit) {
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+
+        // Search results are ranked by relevance, so their pages continue from a rank offset. Edits between
+        // requests can shift the ranking, so a match may repeat or be skipped across pages
+        if (name != null && !name.isEmpty()) {
+            int offset = cursor == null || cursor.isEmpty() ? 0 : TodoCursor.decodeOffset(cursor);
+            List<Todo> matches = searchTodos(userId, name, offset, pageSize + 1);
+            boolean hasMore = matches.size() > pageSize;
+            return new TodoPageResponse(hasMore ? matches.subList(0, pageSize) : matches,
+                    hasMore ? TodoCursor.encodeOffset(offset + pageSize) : null, hasMore);
         }
+
+        // Fetch one extra row to know whether another page exists
+        PageRequest pageRequest = PageRequest.of(0, pageSize + 1);
+        List<Todo> rows;
+        if (cursor == null || cursor.isEmpty()) {
+            rows = todoRepository.findFirstPageByUserId(userId, pageRequest);
+        } else {
+            TodoCursor after = TodoCursor.decode(cursor);
+            rows = todoRepository.findPageByUserIdAfter(userId, after.getCreatedAt(), after.getId(), pageRequest);
+        }
+
+        boolean hasMore = rows.size() > pageSize;
+        List<Todo> items = hasMore ? rows.subList(0, pageSize) : rows;
+
+        String nextCursor = null;
+        if (hasMore) {
+            Todo last = items.get(items.size() - 1);
+            nextCursor = new TodoCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+
+        return new TodoPageResponse(items, nextCursor, hasMore);
+    }
+
+    // ADMIN - Browse all todos newest first, one keyset page at a time
+    public AdminTodoPageResponse getAdminTodosPage(AdminTodoFilter filter) {
+        Integer limit = filter.getLimit();
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        TodoCursor before = filter.getCursor() == null || filter.getCursor().isEmpty()
+                ? null : TodoCursor.decode(filter.getCursor());
+
+        List<AdminTodoView> rows = todoRepository.findAdminPage(
+                filter.getUserId(),
+                filter.getCompleted(),
+                filter.getCreatedFrom(),
+                filter.getCreatedTo(),
+                filter.getDueFrom(),
+                filter.getDueTo(),
+                before == null ? null : before.getCreatedAt(),
+                before == null ? null : before.getId(),
+                PageRequest.of(0, pageSize + 1)
+        );
+
+        boolean hasMore = rows.size() > pageSize;
+        List<AdminTodoView> items = hasMore ? rows.subList(0, pageSize) : rows;
+
+        String nextCursor = null;
+        if (hasMore) {
+            AdminTodoView last = items.get(items.size() - 1);
+            nextCursor = new TodoCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+
+        return new AdminTodoPageResponse(items, nextCursor, hasMore);
     }
 
     // READ - Get a single todo by id
@@ -64,30 +205,25 @@ public class TodoService {
 
         if (optionalTodo.isPresent()) {
             Todo todo = optionalTodo.get();
-
-            if (todoDetails.getTitle() != null) {
-                todo.setTitle(todoDetails.getTitle());
-            }
-            if (todoDetails.getDescription() != null) {
-                todo.setDescription(todoDetails.getDescription());
-            }
-            if (todoDetails.getIsCompleted() != null) {
-                todo.setIsCompleted(todoDetails.getIsCompleted());
-            }
-            if (todoDetails.getDueDate() != null) {
-                todo.setDueDate(todoDetails.getDueDate());
-            }
+            applyChanges(todo, todoDetails);
 
             Todo updatedTodo = todoRepository.save(todo);
+            searchIndex.index(updatedTodo);
+            if (todo.getUser() != null) {
+                updatedTodo.setChangeVersion(dataVersionService.bumpForUser(todo.getUser().getId()));
+            }
 
-            // Sync update to Google Calendar (non-blocking)
+            // Sync update to Google Calendar after commit (non-blocking)
             if (todo.getUser() != null) {
-                try {
-                    calendarService.syncTodoToCalendar(updatedTodo, todo.getUser().getId());
-                } catch (Exception e) {
-                    log.warn("Failed to sync todo update to calendar: {}", e.getMessage());
-                    // Don't throw - we don't want calendar sync to break todo updates
-                }
+                Integer userId = todo.getUser().getId();
+                afterCommit(() -> {
+                    try {
+                        calendarService.syncTodoToCalendar(updatedTodo, userId);
+                    } catch (Exception e) {
+                        log.warn("Failed to sync todo update to calendar: {}", e.getMessage());
+                        // Don't throw - we don't want calendar sync to break todo updates
+                    }
+                });
             }
 
             return updatedTodo;
@@ -105,20 +241,195 @@ public class TodoService {
             if (todoOpt.isPresent()) {
                 Todo todo = todoOpt.get();
 
-                // Delete from Google Calendar first (non-blocking)
+                // Delete from Google Calendar once the deletion has committed (non-blocking)
                 if (todo.getUser() != null && todo.getGoogleCalendarEventId() != null) {
-                    try {
-                        calendarService.deleteTodoFromCalendar(todo, todo.getUser().getId());
-                    } catch (Exception e) {
-                        log.warn("Failed to delete todo from calendar: {}", e.getMessage());
-                        // Continue with deletion even if calendar sync fails
-                    }
+                    Integer userId = todo.getUser().getId();
+                    afterCommit(() -> {
+                        try {
+                            calendarService.deleteTodoFromCalendar(todo, userId);
+                        } catch (Exception e) {
+                            log.warn("Failed to delete todo from calendar: {}", e.getMessage());
+                            // The todo is gone either way
+                        }
+                    });
                 }
 
                 todoRepository.deleteById(id);
+                ownershipResolver.evictTodo(id);
+                if (todo.getUser() != null) {
+                    // Tombstone for delta sync, since the row itself is gone
+                    long version = dataVersionService.bumpForUser(todo.getUser().getId());
+                    todoDeletionRepository.save(new TodoDeletion(id, todo.getUser().getId(), version));
+                    searchIndex.remove(todo.getUser().getId(), id);
+                }
                 return true;
             }
         }
         return false;
     }
-}
\ No newline at end of file
+
+    // BATCH - Apply a mixed list of creates, updates and deletes in one transaction
+    @Transactional
+    public List<TodoBatchResult> applyBatch(User user, List<TodoBatchOperation> operations) {
+        // Resolve every referenced todo with a single IN query
+        Set<Integer> referencedIds = new HashSet<>();
+        for (TodoBatchOperation operation : operations) {
+            if (operation != null && operation.getOp() != TodoBatchOperation.Type.CREATE && operation.getId() != null) {
+                referencedIds.add(operation.getId());
+            }
+        }
+        Map<Integer, Todo> existing = todoRepository.findAllById(referencedIds).stream()
+                .collect(Collectors.toMap(Todo::getId, Function.identity()));
+
+        List<TodoBatchResult> results = new ArrayList<>(operations.size());
+        List<Todo> created = new ArrayList<>();
+        List<Todo> updated = new ArrayList<>();
+        List<Todo> deleted = new ArrayList<>();
+        Set<Integer> deletedIds = new HashSet<>();
+
+        for (int i = 0; i < operations.size(); i++) {
+            TodoBatchOperation operation = operations.get(i);
+            if (operation == null || operation.getOp() == null) {
+                results.add(TodoBatchResult.failure(i, null, null, HttpStatus.BAD_REQUEST.value(), "Missing op"));
+                continue;
+            }
+
+            TodoBatchOperation.Type op = operation.getOp();
+            Integer id = operation.getId();
+
+            if (op == TodoBatchOperation.Type.CREATE) {
+                Todo todo = operation.getTodo();
+                if (todo == null || todo.getTitle() == null || todo.getTitle().isBlank()) {
+                    results.add(TodoBatchResult.failure(i, op, null, HttpStatus.BAD_REQUEST.value(), "Title is required"));
+                    continue;
+                }
+                todo.setId(null);
+                todo.setUser(user);
+                todo.setGoogleCalendarEventId(null);
+                created.add(todo);
+                results.add(TodoBatchResult.success(i, op, null, HttpStatus.CREATED.value(), todo));
+                continue;
+            }
+
+            Todo todo = id == null || deletedIds.contains(id) ? null : existing.get(id);
+            if (todo == null) {
+                results.add(TodoBatchResult.failure(i, op, id, HttpStatus.NOT_FOUND.value(), "Todo not found"));
+                continue;
+            }
+            if (todo.getUser() == null || !todo.getUser().getId().equals(user.getId())) {
+                results.add(TodoBatchResult.failure(i, op, id, HttpStatus.FORBIDDEN.value(), "Access denied"));
+                continue;
+            }
+
+            if (op == TodoBatchOperation.Type.UPDATE) {
+                if (operation.getTodo() == null) {
+                    results.add(TodoBatchResult.failure(i, op, id, HttpStatus.BAD_REQUEST.value(), "Missing todo"));
+                    continue;
+                }
+                // Managed entity - the UPDATE is flushed with the rest of the batch
+                applyChanges(todo, operation.getTodo());
+                updated.add(todo);
+                results.add(TodoBatchResult.success(i, op, id, HttpStatus.OK.value(), todo));
+            } else {
+                deletedIds.add(id);
+                deleted.add(todo);
+                results.add(TodoBatchResult.success(i, op, id, HttpStatus.NO_CONTENT.value(), null));
+            }
+        }
+
+        updated.removeIf(todo -> deletedIds.contains(todo.getId()));
+        long version = created.isEmpty() && updated.isEmpty() && deleted.isEmpty()
+                ? 0L : dataVersionService.bumpForUser(user.getId());
+        created.forEach(todo -> todo.setChangeVersion(version));
+        updated.forEach(todo -> todo.setChangeVersion(version));
+
+        // Sequence-generated ids let Hibernate group these into JDBC batches
+        // Removed entities skip any pending UPDATE; the DELETEs are batched as well
+        todoRepository.saveAll(created);
+        todoRepository.deleteAll(deleted);
+        todoDeletionRepository.saveAll(deleted.stream()
+                .map(todo -> new TodoDeletion(todo.getId(), user.getId(), version))
+                .toList());
+
+        for (TodoBatchResult result : results) {
+            if (result.getOp() == TodoBatchOperation.Type.CREATE && result.getTodo() != null) {
+                result.setId(result.getTodo().getId());
+            }
+        }
+
+        created.forEach(searchIndex::index);
+        updated.forEach(searchIndex::index);
+        deleted.forEach(todo -> searchIndex.remove(user.getId(), todo.getId()));
+        deleted.forEach(todo -> ownershipResolver.evictTodo(todo.getId()));
+
+        afterCommit(() -> syncBatchToCalendar(user.getId(), created, updated, deleted));
+
+        return results;
+    }
+
+    // Copy the non-null fields of a partial update onto an existing todo
+    private void applyChanges(Todo todo, Todo todoDetails) {
+        if (todoDetails.getTitle() != null) {
+            todo.setTitle(todoDetails.getTitle());
+        }
+        if (todoDetails.getDescription() != null) {
+            todo.setDescription(todoDetails.getDescription());
+        }
+        if (todoDetails.getIsCompleted() != null) {
+            todo.setIsCompleted(todoDetails.getIsCompleted());
+        }
+        if (todoDetails.getDueDate() != null) {
+            todo.setDueDate(todoDetails.getDueDate());
+        }
+    }
+
+    // Run after the surrounding transaction commits (right away when there is none)
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    // Calendar sync for a batch (non-blocking, skipped entirely when no calendar is connected)
+    private void syncBatchToCalendar(Integer userId, List<Todo> created, List<Todo> updated, List<Todo> deleted) {
+        try {
+            if (!calendarService.isCalendarConnected(userId)) {
+                return;
+            }
+        } catch (Exception e) {
+            log.warn("Failed to check calendar connection for batch: {}", e.getMessage());
+            return;
+        }
+        // One failing todo must not skip the rest of the batch
+        for (Todo todo : deleted) {
+            if (todo.getGoogleCalendarEventId() != null) {
+                try {
+                    calendarService.deleteTodoFromCalendar(todo, userId);
+                } catch (Exception e) {
+                    log.warn("Failed to delete todo {} from calendar: {}", todo.getId(), e.getMessage());
+                }
+            }
+        }
+        for (Todo todo : created) {
+            syncBatchTodoToCalendar(todo, userId);
+        }
+        for (Todo todo : updated) {
+            syncBatchTodoToCalendar(todo, userId);
+        }
+    }
+
+    private void syncBatchTodoToCalendar(Todo todo, Integer userId) {
+        try {
+            calendarService.syncTodoToCalendar(todo, userId);
+        } catch (Exception e) {
+            log.warn("Failed to sync todo {} to calendar: {}", todo.getId(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.todo.service;
+
+import com.todo.dto.TodoChangesResponse;
+import com.todo.entity.Todo;
+import com.todo.repository.TodoDeletionRepository;
+import com.todo.repository.TodoRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Incremental "changes since" sync for todos, based on the owner's data version
+ * stamped on every todo row and todo_deletions tombstone.
+ */
+@Service
+@Slf4j
+public class TodoSyncService {
+
+    private static final String TOKEN_PREFIX = "v|";
+
+    @Autowired
+    private TodoRepository todoRepository;
+
+    @Autowired
+    private TodoDeletionRepository todoDeletionRepository;
+
+    @Autowired
+    private DataVersionService dataVersionService;
+
+    @Value("${todo.sync.tombstone-retention-days:30}")
+    private int tombstoneRetentionDays;
+
+    /**
+     * Todos created or updated, and IDs deleted, since the token. A missing,
+     * expired or pre-version token returns the full list with reset = true.
+     */
+    @Transactional(readOnly = true)
+    public TodoChangesResponse getChangesSince(Integer userId, String token) {
+        LocalDateTime now = LocalDateTime.now();
+        // Writes stamp their rows with the version they bumped to while holding the users row lock,
+        // so every write up to the version read here has committed - no clock or overlap involved
+        long version = dataVersionService.currentVersion(userId);
+        String nextToken = encodeToken(version, now);
+
+        SyncToken since = token == null || token.isEmpty() ? null : decodeToken(token);
+        if (since == null || since.issuedAt().isBefore(now.minusDays(tombstoneRetentionDays))) {
+            // Tombstones may already be purged - the client has to start over
+            return new TodoChangesResponse(todoRepository.findTodosByUserIdIs(userId), List.of(), nextToken, true);
+        }
+
+        List<Todo> changed = todoRepository.findChangedBetween(userId, since.version(), version);
+        List<Integer> deleted = todoDeletionRepository.findDeletedTodoIdsBetween(userId, since.version(), version);
+        return new TodoChangesResponse(changed, deleted, nextToken, false);
+    }
+
+    /**
+     * Drop tombstones that are older than any token we still accept
+     */
+    @Scheduled(cron = "${todo.sync.tombstone-purge-cron:0 30 3 * * *}")
+    public void purgeTombstones() {
+        int purged = todoDeletionRepository.deleteOlderThan(LocalDateTime.now().minusDays(tombstoneRetentionDays));
+        log.info("Purged {} todo tombstones older than {} days", purged, tombstoneRetentionDays);
+    }
+
+    // Version the client is up to, and when the token was issued (for the tombstone retention check)
+    record SyncToken(long version, LocalDateTime issuedAt) {
+    }
+
+    static String encodeToken(long version, LocalDateTime issuedAt) {
+        String raw = TOKEN_PREFIX + version + "|" + issuedAt;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // null for the old timestamp-only tokens, which just trigger a reset
+    static SyncToken decodeToken(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            if (!raw.startsWith(TOKEN_PREFIX)) {
+                LocalDateTime.parse(raw);
+                return null;
+            }
+            String[] parts = raw.substring(TOKEN_PREFIX.length()).split("\\|", 2);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid sync token");
+            }
+            return new SyncToken(Long.parseLong(parts[0]), LocalDateTime.parse(parts[1]));
+        } catch (DateTimeParseException | IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Invalid sync token", ex);
+        }
+    }
+}
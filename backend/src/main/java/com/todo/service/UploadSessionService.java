@@ -0,0 +1,417 @@
+package com.todo.service;
+
+import com.todo.dto.UploadSessionDTO;
+import com.todo.dto.UploadSessionRequest;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Resumable chunked uploads. A session reserves the declared size against the staging disk and creates a
+ * staging file of that length; chunks are written straight to their offset in it (in any order, in
+ * parallel) and the whole-file SHA-256 is advanced as the received prefix grows, so completing needs no
+ * second pass over the file. Sessions are kept in memory on the node that staged the file and expire
+ * after a period of inactivity. With a remote storage backend (several nodes) sessions are only offered
+ * when the load balancer routes a client's upload requests to one node (uploads.sticky-routing=true)
+ */
+@Service
+@Slf4j
+public class UploadSessionService {
+
+    private static final String SESSION_FILE_PREFIX = "session-";
+
+    private static final int IO_BUFFER_SIZE = 64 * 1024;
+
+    private static final Pattern SHA256_HEX = Pattern.compile("[0-9a-fA-F]{64}");
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    // Upper limit for files uploaded through sessions (single-request uploads stay at 10MB)
+    @Value("${uploads.max-file-size:104857600}")
+    private long maxFileSize;
+
+    @Value("${uploads.chunk-size:1048576}")
+    private long chunkSize;
+
+    // Idle time after which an unfinished session and its staging file are removed
+    @Value("${uploads.session-ttl-minutes:60}")
+    private long sessionTtlMinutes;
+
+    @Value("${uploads.max-sessions-per-user:5}")
+    private int maxSessionsPerUser;
+
+    // Set when the load balancer pins each client to one node; required for sessions on multi-node setups
+    @Value("${uploads.sticky-routing:false}")
+    private boolean stickyRouting;
+
+    private final Map<String, UploadSession> sessions = new ConcurrentHashMap<>();
+
+    // Declared size of every open session. Staging files are sparse, so free disk space alone does not
+    // show what open sessions will still write; new sessions must fit next to all of it
+    private final AtomicLong reservedBytes = new AtomicLong();
+
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+
+    /**
+     * Everything needed to turn a finished session into an attachment
+     */
+    public record CompletedUpload(Integer todoId, String fileName, String contentType, long size, String sha256, Path file) {
+    }
+
+    // Staging files of sessions from before a restart can never be completed
+    @PostConstruct
+    public void init() {
+        Path tempDir = fileStorageService.getTempDirectory();
+        try (DirectoryStream<Path> stale = Files.newDirectoryStream(tempDir, SESSION_FILE_PREFIX + "*")) {
+            for (Path file : stale) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException ex) {
+            log.warn("Could not remove stale upload session files", ex);
+        }
+    }
+
+    /**
+     * Start a session for a file of known size; its bytes are reserved on disk up front.
+     * UnsupportedOperationException when sessions cannot work on this deployment (see class doc)
+     */
+    public UploadSessionDTO initiate(Integer todoId, UploadSessionRequest request, Integer userId) throws IOException {
+        if (!stickyRouting && !fileStorageService.isLocalStorage()) {
+            throw new UnsupportedOperationException(
+                    "Resumable uploads are not available on this server - upload files up to 10MB directly");
+        }
+        if (request.getFileSize() == null || request.getFileSize() <= 0) {
+            throw new IllegalArgumentException("Cannot upload empty file");
+        }
+        long fileSize = request.getFileSize();
+        String fileName = fileStorageService.validateUpload(request.getFileName(), request.getContentType(), fileSize, maxFileSize);
+        if (request.getSha256() != null && !SHA256_HEX.matcher(request.getSha256()).matches()) {
+            throw new IllegalArgumentException("sha256 must be 64 hex characters");
+        }
+        long open = sessions.values().stream().filter(session -> session.userId.equals(userId)).count();
+        if (open >= maxSessionsPerUser) {
+            throw new IllegalArgumentException("Too many unfinished uploads - complete or cancel one first");
+        }
+
+        Path file = fileStorageService.createTempFile(SESSION_FILE_PREFIX);
+        boolean reserved = false;
+        try {
+            reserve(file, fileSize);
+            reserved = true;
+            try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+                raf.setLength(fileSize);
+            }
+        } catch (IOException | RuntimeException ex) {
+            if (reserved) {
+                reservedBytes.addAndGet(-fileSize);
+            }
+            Files.deleteIfExists(file);
+            throw ex;
+        }
+
+        UploadSession session = new UploadSession(UUID.randomUUID().toString(), userId, todoId, fileName,
+                request.getContentType(), fileSize, Math.max(chunkSize, 1), request.getSha256(), file);
+        sessions.put(session.id, session);
+        return toDTO(session);
+    }
+
+    // Check and take the reservation together, so two sessions cannot both count on the same free space
+    private synchronized void reserve(Path file, long fileSize) throws IOException {
+        long usable = Files.getFileStore(file).getUsableSpace();
+        if (usable - reservedBytes.get() < fileSize) {
+            throw new IllegalStateException("Not enough storage space for this upload");
+        }
+        reservedBytes.addAndGet(fileSize);
+    }
+
+    public UploadSessionDTO getStatus(String uploadId, Integer userId) {
+        UploadSession session = find(uploadId, userId);
+        synchronized (session) {
+            return toDTO(session);
+        }
+    }
+
+    /**
+     * Write one chunk at its offset. Re-sending a chunk that was already stored is acknowledged
+     * without writing it again, so clients can safely retry after a lost response
+     */
+    public UploadSessionDTO writeChunk(String uploadId, Integer userId, long offset, long contentLength,
+                                       String chunkSha256, InputStream body) throws IOException {
+        UploadSession session = find(uploadId, userId);
+        if (offset < 0 || offset >= session.fileSize || offset % session.chunkSize != 0) {
+            throw new IllegalArgumentException("Offset must be a multiple of " + session.chunkSize + " below " + session.fileSize);
+        }
+        int index = (int) (offset / session.chunkSize);
+        long expected = Math.min(session.chunkSize, session.fileSize - offset);
+        if (contentLength >= 0 && contentLength != expected) {
+            throw new IllegalArgumentException("Chunk at offset " + offset + " must be " + expected + " bytes");
+        }
+
+        synchronized (session) {
+            if (session.completing) {
+                throw new IllegalStateException("Upload is already being completed");
+            }
+            if (session.received.get(index)) {
+                session.touch();
+                return toDTO(session);
+            }
+            if (session.writing.get(index)) {
+                throw new IllegalStateException("Chunk at offset " + offset + " is already being uploaded");
+            }
+            session.writing.set(index);
+        }
+
+        try {
+            MessageDigest chunkDigest = chunkSha256 != null ? FileStorageService.sha256() : null;
+            long written = 0;
+            try (FileChannel channel = FileChannel.open(session.file, StandardOpenOption.WRITE)) {
+                byte[] buffer = new byte[IO_BUFFER_SIZE];
+                int read;
+                while ((read = body.read(buffer)) > 0) {
+                    if (written + read > expected) {
+                        throw new IllegalArgumentException("Chunk at offset " + offset + " is longer than " + expected + " bytes");
+                    }
+                    ByteBuffer slice = ByteBuffer.wrap(buffer, 0, read);
+                    while (slice.hasRemaining()) {
+                        channel.write(slice, offset + written + slice.position());
+                    }
+                    if (chunkDigest != null) {
+                        chunkDigest.update(buffer, 0, read);
+                    }
+                    written += read;
+                }
+            }
+            if (written != expected) {
+                throw new IllegalArgumentException("Chunk at offset " + offset + " is incomplete: " + written + " of " + expected + " bytes");
+            }
+            if (chunkDigest != null && !HexFormat.of().formatHex(chunkDigest.digest()).equalsIgnoreCase(chunkSha256)) {
+                throw new IllegalArgumentException("Checksum mismatch for chunk at offset " + offset);
+            }
+
+            synchronized (session) {
+                session.received.set(index);
+                advanceDigest(session);
+                session.touch();
+                return toDTO(session);
+            }
+        } finally {
+            synchronized (session) {
+                session.writing.clear(index);
+            }
+        }
+    }
+
+    /**
+     * Check that every chunk arrived and the checksum matches, and hand the staging file over to the
+     * caller's transaction. The session is removed when that transaction finishes, either way
+     */
+    public CompletedUpload finish(String uploadId, Integer userId) {
+        UploadSession session = find(uploadId, userId);
+        String sha256;
+        synchronized (session) {
+            if (session.completing) {
+                throw new IllegalStateException("Upload is already being completed");
+            }
+            int missing = session.chunkCount - session.received.cardinality();
+            if (missing > 0) {
+                throw new IllegalStateException(missing + " chunk(s) still missing");
+            }
+            if (!session.writing.isEmpty()) {
+                throw new IllegalStateException("Chunks are still being uploaded");
+            }
+            session.completing = true;
+            session.touch();
+            sha256 = HexFormat.of().formatHex(session.digest.digest());
+        }
+
+        if (session.expectedSha256 != null && !session.expectedSha256.equalsIgnoreCase(sha256)) {
+            discard(session.id);
+            throw new IllegalArgumentException("Checksum mismatch: the uploaded file does not match sha256");
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        completed.incrementAndGet();
+                    }
+                    discard(session.id);
+                }
+            });
+        }
+        return new CompletedUpload(session.todoId, session.fileName, session.contentType,
+                session.fileSize, sha256, session.file);
+    }
+
+    /**
+     * Cancel a session and free its staging file
+     */
+    public void abort(String uploadId, Integer userId) {
+        find(uploadId, userId);
+        discard(uploadId);
+    }
+
+    @Scheduled(fixedDelayString = "${uploads.cleanup-interval-ms:60000}")
+    public void expireSessions() {
+        long cutoff = System.currentTimeMillis() - sessionTtlMinutes * 60_000;
+        for (UploadSession session : sessions.values()) {
+            boolean idle;
+            synchronized (session) {
+                idle = session.writing.isEmpty() && session.lastActivity < cutoff;
+            }
+            if (idle) {
+                discard(session.id);
+                expired.incrementAndGet();
+                log.info("Upload session {} ({}) expired with {} of {} bytes received",
+                        session.id, session.fileName, receivedBytes(session), session.fileSize);
+            }
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("active", sessions.size());
+        stats.put("reservedBytes", reservedBytes.get());
+        stats.put("completed", completed.get());
+        stats.put("expired", expired.get());
+        return stats;
+    }
+
+    private UploadSession find(String uploadId, Integer userId) {
+        UploadSession session = uploadId != null ? sessions.get(uploadId) : null;
+        // Other users' sessions look the same as expired ones
+        if (session == null || !session.userId.equals(userId)) {
+            throw new NoSuchElementException("Upload session not found or expired");
+        }
+        return session;
+    }
+
+    private void discard(String uploadId) {
+        UploadSession session = sessions.remove(uploadId);
+        if (session != null) {
+            reservedBytes.addAndGet(-session.fileSize);
+            try {
+                Files.deleteIfExists(session.file);
+            } catch (IOException ex) {
+                log.warn("Could not delete staging file of upload session {}", uploadId, ex);
+            }
+        }
+    }
+
+    // Feed newly contiguous chunks into the whole-file digest; they are still in the page cache
+    private void advanceDigest(UploadSession session) throws IOException {
+        if (session.hashedUpTo >= session.fileSize || !session.received.get((int) (session.hashedUpTo / session.chunkSize))) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(session.file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(IO_BUFFER_SIZE);
+            while (session.hashedUpTo < session.fileSize
+                    && session.received.get((int) (session.hashedUpTo / session.chunkSize))) {
+                long end = Math.min(session.hashedUpTo + session.chunkSize, session.fileSize);
+                long position = session.hashedUpTo;
+                while (position < end) {
+                    buffer.clear().limit((int) Math.min(buffer.capacity(), end - position));
+                    int read = channel.read(buffer, position);
+                    if (read < 0) {
+                        throw new IOException("Staging file of upload " + session.id + " is shorter than expected");
+                    }
+                    session.digest.update(buffer.array(), 0, read);
+                    position += read;
+                }
+                session.hashedUpTo = end;
+            }
+        }
+    }
+
+    private UploadSessionDTO toDTO(UploadSession session) {
+        List<Integer> missing = new ArrayList<>();
+        for (int i = session.received.nextClearBit(0); i < session.chunkCount; i = session.received.nextClearBit(i + 1)) {
+            missing.add(i);
+        }
+        LocalDateTime expiresAt = LocalDateTime.ofInstant(
+                Instant.ofEpochMilli(session.lastActivity + sessionTtlMinutes * 60_000), ZoneId.systemDefault());
+        return new UploadSessionDTO(session.id, session.todoId, session.fileName, session.fileSize,
+                session.chunkSize, receivedBytes(session), missing, expiresAt);
+    }
+
+    private static long receivedBytes(UploadSession session) {
+        long bytes = (long) session.received.cardinality() * session.chunkSize;
+        // The last chunk may be short
+        if (session.received.get(session.chunkCount - 1)) {
+            bytes -= (long) session.chunkCount * session.chunkSize - session.fileSize;
+        }
+        return bytes;
+    }
+
+    // Mutable state is guarded by the session's monitor
+    private static final class UploadSession {
+        final String id;
+        final Integer userId;
+        final Integer todoId;
+        final String fileName;
+        final String contentType;
+        final long fileSize;
+        final long chunkSize;
+        final int chunkCount;
+        final String expectedSha256;
+        final Path file;
+
+        final BitSet received = new BitSet();
+        final BitSet writing = new BitSet();
+        final MessageDigest digest = FileStorageService.sha256();
+        long hashedUpTo;
+        boolean completing;
+        volatile long lastActivity = System.currentTimeMillis();
+
+        UploadSession(String id, Integer userId, Integer todoId, String fileName, String contentType,
+                      long fileSize, long chunkSize, String expectedSha256, Path file) {
+            this.id = id;
+            this.userId = userId;
+            this.todoId = todoId;
+            this.fileName = fileName;
+            this.contentType = contentType;
+            this.fileSize = fileSize;
+            this.chunkSize = chunkSize;
+            this.chunkCount = (int) ((fileSize + chunkSize - 1) / chunkSize);
+            this.expectedSha256 = expectedSha256;
+            this.file = file;
+        }
+
+        void touch() {
+            lastActivity = System.currentTimeMillis();
+        }
+    }
+}
@@ -1,16 +1,18 @@
 package com.todo.service;
 
 import com.todo.dto.UserDTO;
+import com.todo.entity.Role;
 import com.todo.entity.User;
 import com.todo.repository.UserRepository;
 import com.todo.repository.TodoRepository;
+import com.todo.security.AuthenticatedUser;
+import com.todo.security.PrincipalCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @Service
 public class UserService {
@@ -21,11 +23,12 @@ public class UserService {
     @Autowired
     private TodoRepository todoRepository;
 
-    // Get all users (Admin only)
+    @Autowired
+    private PrincipalCache principalCache;
+
+    // Get all users (Admin only) - one grouped query, todo counts included
     public List<UserDTO> getAllUsers() {
-        return userRepository.findAll().stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return userRepository.findAllWithTodoCounts();
     }
 
     // Get user by ID
@@ -33,11 +36,21 @@ public class UserService {
         return userRepository.findById(id).map(this::convertToDTO);
     }
 
-    // Get user by username
+    // Get user by username - for a cached principal this is an uninitialized
+    // reference (id only, no query); other fields load on first access
     public Optional<User> getUserByUsername(String username) {
+        AuthenticatedUser principal = principalCache.get(username);
+        if (principal != null) {
+            return Optional.of(userRepository.getReferenceById(principal.getId()));
+        }
         return userRepository.findByUsername(username);
     }
 
+    // Reference to an already-authenticated user for associations - no query until a non-id field is read
+    public User getUserReference(Integer id) {
+        return userRepository.getReferenceById(id);
+    }
+
     // Get user DTO by username
     public Optional<UserDTO> getUserDTOByUsername(String username) {
         return userRepository.findByUsername(username).map(this::convertToDTO);
@@ -48,11 +61,32 @@ public class UserService {
     public boolean deleteUser(Integer id) {
         if (userRepository.existsById(id)) {
             userRepository.deleteById(id);
+            principalCache.invalidateUser(id);
             return true;
         }
         return false;
     }
 
+    // Change a user's role (Admin only) - cached principals carry the old authorities
+    @Transactional
+    public Optional<UserDTO> updateRole(Integer id, Role role) {
+        return userRepository.findById(id).map(user -> {
+            user.setRole(role);
+            principalCache.invalidateUser(id);
+            return convertToDTO(userRepository.save(user));
+        });
+    }
+
+    // Activate or deactivate a user (Admin only)
+    @Transactional
+    public Optional<UserDTO> setActive(Integer id, boolean active) {
+        return userRepository.findById(id).map(user -> {
+            user.setIsActive(active);
+            principalCache.invalidateUser(id);
+            return convertToDTO(userRepository.save(user));
+        });
+    }
+
     // Get user statistics
     public long getTotalUsers() {
         return userRepository.count();
@@ -68,20 +102,6 @@ public class UserService {
 
     // Convert User to UserDTO
     private UserDTO convertToDTO(User user) {
-        int todoCount = todoRepository.findAll().stream()
-                .filter(todo -> todo.getUser() != null && todo.getUser().getId().equals(user.getId()))
-                .toList()
-                .size();
-
-        return new UserDTO(
-                user.getId(),
-                user.getUsername(),
-                user.getEmail(),
-                user.getRole().name(),
-                user.getIsActive(),
-                user.getCreatedAt(),
-                todoCount,
-                user.getProfilePictureUrl()
-        );
+        return new UserDTO(user, todoRepository.countByUserId(user.getId()));
     }
 }
\ No newline at end of file
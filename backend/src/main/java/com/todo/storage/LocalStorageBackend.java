@@ -0,0 +1,160 @@
+package com.todo.storage;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Stores attachments under file.upload.dir on this node's disk (the default backend).
+ * Staged uploads live in the same directory tree, so placing them is an atomic rename
+ */
+@Component
+@ConditionalOnProperty(name = "storage.backend", havingValue = "local", matchIfMissing = true)
+@Slf4j
+public class LocalStorageBackend implements StorageBackend {
+
+    private static final String TEMP_DIR = "tmp";
+
+    @Value("${file.upload.dir:uploads}")
+    private String uploadDir;
+
+    private Path root;
+
+    @PostConstruct
+    public void init() {
+        try {
+            this.root = Paths.get(uploadDir).toAbsolutePath().normalize();
+            Files.createDirectories(this.root.resolve(TEMP_DIR));
+        } catch (IOException ex) {
+            throw new RuntimeException("Could not create upload directory!", ex);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "local";
+    }
+
+    @Override
+    public void put(String key, Path source) throws IOException {
+        placeFile(source, resolve(key), true);
+    }
+
+    @Override
+    public void copy(String sourceKey, String targetKey) throws IOException {
+        placeFile(existing(sourceKey), resolve(targetKey), false);
+    }
+
+    @Override
+    public boolean exists(String key) throws IOException {
+        return Files.exists(resolve(key));
+    }
+
+    @Override
+    public long size(String key) throws IOException {
+        return Files.size(existing(key));
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        return Files.newInputStream(existing(key));
+    }
+
+    @Override
+    public InputStream openRange(String key, long start, long end) throws IOException {
+        FileChannel channel = FileChannel.open(existing(key), StandardOpenOption.READ);
+        channel.position(start);
+        return new BoundedInputStream(Channels.newInputStream(channel), end - start + 1);
+    }
+
+    @Override
+    public boolean delete(String key) throws IOException {
+        return Files.deleteIfExists(resolve(key));
+    }
+
+    @Override
+    public Optional<Path> localPath(String key) throws IOException {
+        return Optional.of(existing(key));
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("backend", getName());
+        stats.put("root", root.toString());
+        try {
+            stats.put("usableBytes", Files.getFileStore(root).getUsableSpace());
+        } catch (IOException ex) {
+            log.debug("Could not read free space of {}", root, ex);
+        }
+        return stats;
+    }
+
+    /**
+     * Put content at target unless it is already there: moved (atomic, same filesystem) or hard-linked from source
+     */
+    void placeFile(Path source, Path target, boolean move) throws IOException {
+        if (Files.exists(target)) {
+            return;
+        }
+        Files.createDirectories(target.getParent());
+        try {
+            if (move) {
+                Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+            } else {
+                try {
+                    Files.createLink(target, source);
+                } catch (UnsupportedOperationException | FileSystemException ex) {
+                    if (ex instanceof FileAlreadyExistsException) {
+                        throw (FileAlreadyExistsException) ex;
+                    }
+                    // No hard links here - copy through a temp file so the target never appears half-written
+                    Path temp = Files.createTempFile(this.root.resolve(TEMP_DIR), "copy-", ".part");
+                    try {
+                        Files.copy(source, temp, StandardCopyOption.REPLACE_EXISTING);
+                        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                    } finally {
+                        Files.deleteIfExists(temp);
+                    }
+                }
+            }
+        } catch (FileAlreadyExistsException ignored) {
+            // Same content placed concurrently
+        }
+    }
+
+    // Key to path, refusing names that escape the upload directory
+    private Path resolve(String key) throws IOException {
+        Path path = this.root.resolve(key).normalize();
+        if (!path.startsWith(this.root)) {
+            throw new IOException("Invalid file path: " + key);
+        }
+        return path;
+    }
+
+    private Path existing(String key) throws IOException {
+        Path path = resolve(key);
+        if (!Files.isReadable(path)) {
+            throw new NoSuchFileException(key);
+        }
+        return path;
+    }
+}
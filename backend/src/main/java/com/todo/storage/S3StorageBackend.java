@@ -0,0 +1,479 @@
+package com.todo.storage;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Stores attachments in an S3-compatible bucket (AWS S3, MinIO, Ceph RGW ...) so every backend
+ * node sees the same files. Talks to the REST API directly with path-style addressing and
+ * SigV4; large files go up as multipart uploads whose parts are streamed from the staged
+ * file in parallel. One pooled HTTP client per backend, capped at max-connections requests in flight;
+ * download streams have their own max-streams cap, so slow clients cannot starve uploads and deletes
+ */
+@Component
+@ConditionalOnProperty(name = "storage.backend", havingValue = "s3")
+@Slf4j
+public class S3StorageBackend implements StorageBackend {
+
+    // S3 rejects multipart parts under 5MB (except the last one)
+    static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+
+    private static final int PART_ATTEMPTS = 3;
+
+    private static final Pattern UPLOAD_ID = Pattern.compile("<UploadId>([^<]+)</UploadId>");
+    private static final Pattern ERROR_CODE = Pattern.compile("<Code>([^<]+)</Code>");
+
+    @Value("${storage.s3.endpoint:http://localhost:9000}")
+    private String endpoint;
+
+    @Value("${storage.s3.region:us-east-1}")
+    private String region;
+
+    @Value("${storage.s3.bucket:attachments}")
+    private String bucket;
+
+    @Value("${storage.s3.access-key:}")
+    private String accessKey;
+
+    @Value("${storage.s3.secret-key:}")
+    private String secretKey;
+
+    // Create the bucket on startup if it is missing (local MinIO setups)
+    @Value("${storage.s3.create-bucket:false}")
+    private boolean createBucket;
+
+    @Value("${storage.s3.part-size:8388608}")
+    private long partSize;
+
+    @Value("${storage.s3.upload-threads:4}")
+    private int uploadThreads;
+
+    @Value("${storage.s3.max-connections:16}")
+    private int maxConnections;
+
+    // Open GET streams (downloads, thumbnails); held until the caller closes them
+    @Value("${storage.s3.max-streams:64}")
+    private int maxStreams;
+
+    // How long a new stream waits for a free slot before the request gets a 503
+    @Value("${storage.s3.stream-wait-ms:2000}")
+    private long streamWaitMs;
+
+    @Value("${storage.s3.connect-timeout-ms:5000}")
+    private long connectTimeoutMs;
+
+    @Value("${storage.s3.request-timeout-ms:60000}")
+    private long requestTimeoutMs;
+
+    private HttpClient httpClient;
+    private Semaphore connections;
+    private Semaphore streams;
+    private ThreadPoolExecutor partUploads;
+    private S3RequestSigner signer;
+    private String bucketUrl;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong multipartUploads = new AtomicLong();
+    private final AtomicLong partsUploaded = new AtomicLong();
+    private final AtomicLong bytesUploaded = new AtomicLong();
+    private final AtomicLong streamsRejected = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        String base = endpoint.endsWith("/") ? endpoint.substring(0, endpoint.length() - 1) : endpoint;
+        this.bucketUrl = base + "/" + S3RequestSigner.encode(bucket, false);
+        this.signer = new S3RequestSigner(accessKey, secretKey, region);
+        this.partSize = Math.max(partSize, MIN_PART_SIZE);
+        this.connections = new Semaphore(Math.max(maxConnections, 1));
+        this.streams = new Semaphore(Math.max(maxStreams, 1));
+        // HTTP/1.1 keep-alive connections are pooled by the client and reused across requests
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .build();
+
+        int threads = Math.max(uploadThreads, 1);
+        AtomicInteger counter = new AtomicInteger();
+        // A full queue makes the uploading thread send the part itself - back-pressure instead of failures
+        this.partUploads = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * 4),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "s3-part-upload-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+
+        if (createBucket) {
+            try {
+                ensureBucket();
+            } catch (IOException ex) {
+                throw new IllegalStateException("Could not create bucket " + bucket, ex);
+            }
+        }
+        log.info("Attachment storage: S3 bucket {} at {}", bucket, base);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        partUploads.shutdown();
+    }
+
+    @Override
+    public String getName() {
+        return "s3";
+    }
+
+    @Override
+    public void put(String key, Path source) throws IOException {
+        if (exists(key)) {
+            return;
+        }
+        long size = Files.size(source);
+        if (size <= partSize) {
+            HttpResponse<String> response = execute("PUT", key, null, Map.of(),
+                    HttpRequest.BodyPublishers.ofFile(source), HttpResponse.BodyHandlers.ofString());
+            check(response, "PUT", key);
+            bytesUploaded.addAndGet(size);
+            return;
+        }
+        multipartUpload(key, source, size);
+    }
+
+    @Override
+    public void copy(String sourceKey, String targetKey) throws IOException {
+        if (exists(targetKey)) {
+            return;
+        }
+        // Server-side copy; fine for attachments (single-request copies go up to 5GB)
+        HttpResponse<String> response = execute("PUT", targetKey, null,
+                Map.of("x-amz-copy-source", "/" + S3RequestSigner.encode(bucket, false) + "/" + S3RequestSigner.encode(sourceKey, true)),
+                HttpRequest.BodyPublishers.noBody(), HttpResponse.BodyHandlers.ofString());
+        check(response, "COPY", sourceKey);
+    }
+
+    @Override
+    public boolean exists(String key) throws IOException {
+        HttpResponse<Void> response = execute("HEAD", key, null, Map.of(),
+                HttpRequest.BodyPublishers.noBody(), HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() == 404) {
+            return false;
+        }
+        check(response, "HEAD", key);
+        return true;
+    }
+
+    @Override
+    public long size(String key) throws IOException {
+        HttpResponse<Void> response = execute("HEAD", key, null, Map.of(),
+                HttpRequest.BodyPublishers.noBody(), HttpResponse.BodyHandlers.discarding());
+        check(response, "HEAD", key);
+        return response.headers().firstValueAsLong("content-length")
+                .orElseThrow(() -> new IOException("S3 HEAD " + key + " returned no Content-Length"));
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        return openStream(key, -1, -1);
+    }
+
+    @Override
+    public InputStream openRange(String key, long start, long end) throws IOException {
+        return openStream(key, start, end);
+    }
+
+    @Override
+    public boolean delete(String key) throws IOException {
+        HttpResponse<String> response = execute("DELETE", key, null, Map.of(),
+                HttpRequest.BodyPublishers.noBody(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() == 404) {
+            return false;
+        }
+        check(response, "DELETE", key);
+        return true;
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("backend", getName());
+        stats.put("bucket", bucket);
+        stats.put("maxConnections", Math.max(maxConnections, 1));
+        stats.put("connectionsInUse", Math.max(maxConnections, 1) - connections.availablePermits());
+        stats.put("maxStreams", Math.max(maxStreams, 1));
+        stats.put("streamsOpen", Math.max(maxStreams, 1) - streams.availablePermits());
+        stats.put("streamsRejected", streamsRejected.get());
+        stats.put("uploadThreads", partUploads.getCorePoolSize());
+        stats.put("activePartUploads", partUploads.getActiveCount());
+        stats.put("queuedParts", partUploads.getQueue().size());
+        stats.put("partSize", partSize);
+        stats.put("requests", requests.get());
+        stats.put("failures", failures.get());
+        stats.put("multipartUploads", multipartUploads.get());
+        stats.put("partsUploaded", partsUploaded.get());
+        stats.put("bytesUploaded", bytesUploaded.get());
+        return stats;
+    }
+
+    // Split the staged file into partSize slices and send them in parallel; abort the upload on any failure
+    private void multipartUpload(String key, Path source, long size) throws IOException {
+        HttpResponse<String> created = execute("POST", key, "uploads", Map.of(),
+                HttpRequest.BodyPublishers.noBody(), HttpResponse.BodyHandlers.ofString());
+        check(created, "CreateMultipartUpload", key);
+        Matcher matcher = UPLOAD_ID.matcher(created.body());
+        if (!matcher.find()) {
+            throw new IOException("S3 CreateMultipartUpload " + key + " returned no UploadId");
+        }
+        String uploadId = matcher.group(1);
+        multipartUploads.incrementAndGet();
+
+        int partCount = (int) ((size + partSize - 1) / partSize);
+        List<Future<String>> parts = new ArrayList<>(partCount);
+        try {
+            for (int i = 0; i < partCount; i++) {
+                int partNumber = i + 1;
+                long offset = i * partSize;
+                long length = Math.min(partSize, size - offset);
+                parts.add(partUploads.submit(() -> uploadPart(key, uploadId, partNumber, source, offset, length)));
+            }
+
+            StringBuilder complete = new StringBuilder("<CompleteMultipartUpload>");
+            for (int i = 0; i < partCount; i++) {
+                complete.append("<Part><PartNumber>").append(i + 1).append("</PartNumber><ETag>")
+                        .append(parts.get(i).get()).append("</ETag></Part>");
+            }
+            complete.append("</CompleteMultipartUpload>");
+
+            HttpResponse<String> response = execute("POST", key, "uploadId=" + S3RequestSigner.encode(uploadId, false),
+                    Map.of("content-type", "application/xml"),
+                    HttpRequest.BodyPublishers.ofString(complete.toString()), HttpResponse.BodyHandlers.ofString());
+            check(response, "CompleteMultipartUpload", key);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            abortMultipartUpload(key, uploadId, parts);
+            throw new InterruptedIOException("Interrupted while uploading " + key);
+        } catch (ExecutionException ex) {
+            abortMultipartUpload(key, uploadId, parts);
+            throw ex.getCause() instanceof IOException io ? io : new IOException("Part upload of " + key + " failed", ex.getCause());
+        } catch (IOException | RuntimeException ex) {
+            abortMultipartUpload(key, uploadId, parts);
+            throw ex;
+        }
+    }
+
+    // One part, streamed from its slice of the file; transient failures are retried
+    private String uploadPart(String key, String uploadId, int partNumber, Path source, long offset, long length) throws IOException {
+        String query = "partNumber=" + partNumber + "&uploadId=" + S3RequestSigner.encode(uploadId, false);
+        HttpRequest.BodyPublisher body = HttpRequest.BodyPublishers.fromPublisher(
+                HttpRequest.BodyPublishers.ofInputStream(() -> openSlice(source, offset, length)), length);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                HttpResponse<String> response = execute("PUT", key, query, Map.of(), body, HttpResponse.BodyHandlers.ofString());
+                check(response, "UploadPart", key);
+                String etag = response.headers().firstValue("etag")
+                        .orElseThrow(() -> new IOException("S3 UploadPart " + key + " returned no ETag"));
+                partsUploaded.incrementAndGet();
+                bytesUploaded.addAndGet(length);
+                return etag;
+            } catch (InterruptedIOException ex) {
+                throw ex;
+            } catch (IOException ex) {
+                if (attempt >= PART_ATTEMPTS) {
+                    throw ex;
+                }
+                log.warn("Retrying part {} of {} after: {}", partNumber, key, ex.getMessage());
+            }
+        }
+    }
+
+    private void abortMultipartUpload(String key, String uploadId, List<Future<String>> parts) {
+        parts.forEach(part -> part.cancel(true));
+        try {
+            execute("DELETE", key, "uploadId=" + S3RequestSigner.encode(uploadId, false), Map.of(),
+                    HttpRequest.BodyPublishers.noBody(), HttpResponse.BodyHandlers.discarding());
+        } catch (IOException ex) {
+            // Left to the bucket's incomplete-multipart-upload lifecycle rule
+            log.warn("Could not abort multipart upload {} of {}", uploadId, key, ex);
+        }
+    }
+
+    private static InputStream openSlice(Path source, long offset, long length) {
+        try {
+            FileChannel channel = FileChannel.open(source, StandardOpenOption.READ);
+            channel.position(offset);
+            return new BoundedInputStream(Channels.newInputStream(channel), length);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    // GET (optionally ranged) whose stream permit is held until the caller closes the stream
+    private InputStream openStream(String key, long start, long end) throws IOException {
+        Map<String, String> headers = start >= 0 ? Map.of("range", "bytes=" + start + "-" + end) : Map.of();
+        HttpRequest request = request("GET", key, null, headers, HttpRequest.BodyPublishers.noBody());
+        acquireStream(key);
+        AtomicBoolean released = new AtomicBoolean();
+        Runnable release = () -> {
+            if (released.compareAndSet(false, true)) {
+                streams.release();
+            }
+        };
+        try {
+            requests.incrementAndGet();
+            HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            if (response.statusCode() >= 300) {
+                String body;
+                try (InputStream in = response.body()) {
+                    body = new String(in.readNBytes(4096), StandardCharsets.UTF_8);
+                }
+                release.run();
+                throw failure(response.statusCode(), body, "GET", key);
+            }
+            InputStream body = response.body();
+            if (start >= 0 && response.statusCode() == 200) {
+                // Server ignored the Range header - cut the slice out of the full body
+                body.skipNBytes(start);
+                body = new BoundedInputStream(body, end - start + 1);
+            }
+            return new FilterInputStream(body) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        release.run();
+                    }
+                }
+            };
+        } catch (InterruptedException ex) {
+            release.run();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while reading " + key);
+        } catch (IOException | RuntimeException ex) {
+            release.run();
+            throw ex;
+        }
+    }
+
+    private void ensureBucket() throws IOException {
+        HttpResponse<Void> head = execute("HEAD", null, null, Map.of(),
+                HttpRequest.BodyPublishers.noBody(), HttpResponse.BodyHandlers.discarding());
+        if (head.statusCode() == 404) {
+            HttpResponse<String> created = execute("PUT", null, null, Map.of(),
+                    HttpRequest.BodyPublishers.noBody(), HttpResponse.BodyHandlers.ofString());
+            check(created, "CreateBucket", bucket);
+        }
+    }
+
+    private <T> HttpResponse<T> execute(String method, String key, String query, Map<String, String> headers,
+                                        HttpRequest.BodyPublisher body, HttpResponse.BodyHandler<T> handler) throws IOException {
+        HttpRequest request = request(method, key, query, headers, body);
+        acquire(key);
+        try {
+            requests.incrementAndGet();
+            return httpClient.send(request, handler);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted during S3 " + method + " " + key);
+        } catch (IOException ex) {
+            failures.incrementAndGet();
+            throw ex;
+        } finally {
+            connections.release();
+        }
+    }
+
+    private HttpRequest request(String method, String key, String query, Map<String, String> headers,
+                                HttpRequest.BodyPublisher body) {
+        URI uri = URI.create(bucketUrl
+                + (key != null ? "/" + S3RequestSigner.encode(key, true) : "")
+                + (query != null ? "?" + query : ""));
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+                .timeout(Duration.ofMillis(requestTimeoutMs))
+                .method(method, body);
+        headers.forEach(builder::header);
+        signer.sign(method, uri, headers, S3RequestSigner.UNSIGNED_PAYLOAD, Instant.now()).forEach(builder::header);
+        return builder.build();
+    }
+
+    private void acquire(String key) throws IOException {
+        try {
+            connections.acquire();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for an S3 connection for " + key);
+        }
+    }
+
+    // Bounded wait: a full stream pool turns into a 503 instead of parking request threads
+    private void acquireStream(String key) throws IOException {
+        try {
+            if (!streams.tryAcquire(streamWaitMs, TimeUnit.MILLISECONDS)) {
+                streamsRejected.incrementAndGet();
+                throw new StorageBusyException("Too many downloads in progress, retry shortly",
+                        Math.max(1, TimeUnit.MILLISECONDS.toSeconds(streamWaitMs)));
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for an S3 stream for " + key);
+        }
+    }
+
+    // S3 can answer 200 and still report an error in the body (copy, complete)
+    private void check(HttpResponse<?> response, String operation, String key) throws IOException {
+        Object body = response.body();
+        String text = body instanceof String s ? s : "";
+        if (response.statusCode() >= 300 || text.contains("<Error>")) {
+            throw failure(response.statusCode(), text, operation, key);
+        }
+    }
+
+    private IOException failure(int status, String body, String operation, String key) {
+        failures.incrementAndGet();
+        if (status == 404) {
+            return new NoSuchFileException(key);
+        }
+        Matcher code = ERROR_CODE.matcher(body);
+        return new IOException("S3 " + operation + " " + key + " failed with " + status
+                + (code.find() ? " " + code.group(1) : ""));
+    }
+}
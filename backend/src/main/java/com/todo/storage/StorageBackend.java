@@ -0,0 +1,62 @@
+package com.todo.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Where attachment bytes live. Keys are the relative paths stored on attachments
+ * (e.g. "blobs/ab/cd/&lt;sha256&gt;"); the implementation is picked with storage.backend.
+ * Stored content is immutable - a key is written once and then only read or deleted
+ */
+public interface StorageBackend {
+
+    /**
+     * Short name of the backend ("local", "s3") for logs and metrics
+     */
+    String getName();
+
+    /**
+     * Store a staged local file under key, unless the key already exists. The source may be
+     * consumed (moved); callers delete it afterwards if it is still there
+     */
+    void put(String key, Path source) throws IOException;
+
+    /**
+     * Copy stored content to another key without routing it through this process where the backend allows
+     */
+    void copy(String sourceKey, String targetKey) throws IOException;
+
+    boolean exists(String key) throws IOException;
+
+    /**
+     * Size in bytes; NoSuchFileException when the key does not exist
+     */
+    long size(String key) throws IOException;
+
+    /**
+     * Stream the whole content; NoSuchFileException when the key does not exist
+     */
+    InputStream open(String key) throws IOException;
+
+    /**
+     * Stream the inclusive byte range [start, end] of the content
+     */
+    InputStream openRange(String key, long start, long end) throws IOException;
+
+    /**
+     * Delete the key; true if something was removed (remote stores may not be able to tell)
+     */
+    boolean delete(String key) throws IOException;
+
+    /**
+     * The local file behind a key, for zero-copy serving; empty when the bytes are remote
+     */
+    default Optional<Path> localPath(String key) throws IOException {
+        return Optional.empty();
+    }
+
+    Map<String, Object> getStats();
+}
@@ -0,0 +1,20 @@
+package com.todo.storage;
+
+import java.io.IOException;
+
+/**
+ * Thrown when the storage backend has no capacity left for another download stream; maps to HTTP 503.
+ */
+public class StorageBusyException extends IOException {
+
+    private final long retryAfterSeconds;
+
+    public StorageBusyException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
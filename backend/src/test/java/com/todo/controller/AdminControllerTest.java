@@ -1,11 +1,16 @@
 package com.todo.controller;
 
+import com.todo.dto.AdminTodoFilter;
+import com.todo.dto.AdminTodoPageResponse;
+import com.todo.dto.AdminTodoView;
 import com.todo.entity.Todo;
 import com.todo.entity.User;
 import com.todo.entity.Role;
 import com.todo.entity.Subtask;
 import com.todo.repository.TodoRepository;
 import com.todo.repository.SubtaskRepository;
+import com.todo.service.AdminStatsService;
+import com.todo.service.TodoService;
 import com.todo.service.UserService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -34,6 +39,12 @@ class AdminControllerTest {
     @Mock
     private UserService userService;
 
+    @Mock
+    private TodoService todoService;
+
+    @Mock
+    private AdminStatsService adminStatsService;
+
     @InjectMocks
     private AdminController adminController;
 
@@ -87,39 +98,48 @@ class AdminControllerTest {
     }
 
     @Test
-    @DisplayName("Should return all todos from all users")
-    void getAllTodos_ShouldReturnAllTodos() {
+    @DisplayName("Should return a page of todos from all users")
+    void getAllTodos_ShouldReturnPage() {
         // Arrange
-        List<Todo> allTodos = Arrays.asList(testTodo1, testTodo2);
-        when(todoRepository.findAll()).thenReturn(allTodos);
+        AdminTodoView view1 = new AdminTodoView(1, "Todo 1", null, false, null,
+                LocalDateTime.now(), null, 1, "testuser");
+        AdminTodoView view2 = new AdminTodoView(2, "Todo 2", null, true, null,
+                LocalDateTime.now(), null, 1, "testuser");
+        AdminTodoPageResponse page = new AdminTodoPageResponse(Arrays.asList(view1, view2), null, false);
+        AdminTodoFilter filter = new AdminTodoFilter();
+        when(todoService.getAdminTodosPage(filter)).thenReturn(page);
 
         // Act
-        ResponseEntity<List<Todo>> response = adminController.getAllTodos();
+        ResponseEntity<?> response = adminController.getAllTodos(filter);
 
         // Assert
         assertNotNull(response);
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertNotNull(response.getBody());
-        assertEquals(2, response.getBody().size());
-        assertTrue(response.getBody().contains(testTodo1));
-        assertTrue(response.getBody().contains(testTodo2));
-        verify(todoRepository, times(1)).findAll();
+        assertSame(page, response.getBody());
+        verify(todoRepository, never()).findAll();
     }
 
     @Test
-    @DisplayName("Should return comprehensive application statistics")
-    void getAppStats_ShouldReturnCorrectStatistics() {
+    @DisplayName("Should reject an invalid cursor")
+    void getAllTodos_WithInvalidCursor_ShouldReturnBadRequest() {
         // Arrange
-        List<Todo> allTodos = Arrays.asList(testTodo1, testTodo2);
-        List<Subtask> allSubtasks = Arrays.asList(testSubtask1, testSubtask2);
+        AdminTodoFilter filter = new AdminTodoFilter();
+        filter.setCursor("not-a-cursor");
+        when(todoService.getAdminTodosPage(filter)).thenThrow(new IllegalArgumentException("Invalid cursor"));
+
+        // Act
+        ResponseEntity<?> response = adminController.getAllTodos(filter);
 
-        when(userService.getTotalUsers()).thenReturn(10L);
-        when(userService.getRegularUsersCount()).thenReturn(8L);
-        when(userService.getAdminUsersCount()).thenReturn(2L);
-        when(todoRepository.count()).thenReturn(2L);
-        when(todoRepository.findAll()).thenReturn(allTodos);
-        when(subtaskRepository.count()).thenReturn(2L);
-        when(subtaskRepository.findAll()).thenReturn(allSubtasks);
+        // Assert
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    @Test
+    @DisplayName("Should return statistics from the stats service")
+    void getAppStats_ShouldDelegateToStatsService() {
+        // Arrange
+        Map<String, Object> stats = Map.of("totalTodos", 2L);
+        when(adminStatsService.getAppStats()).thenReturn(stats);
 
         // Act
         ResponseEntity<Map<String, Object>> response = adminController.getAppStats();
@@ -127,45 +147,16 @@ class AdminControllerTest {
         // Assert
         assertNotNull(response);
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertNotNull(response.getBody());
-
-        Map<String, Object> stats = response.getBody();
-
-        // Verify user statistics
-        assertEquals(10L, stats.get("totalUsers"));
-        assertEquals(8L, stats.get("regularUsers"));
-        assertEquals(2L, stats.get("adminUsers"));
-
-        // Verify todo statistics
-        assertEquals(2L, stats.get("totalTodos"));
-        assertEquals(1L, stats.get("completedTodos"));
-        assertEquals(1L, stats.get("pendingTodos"));
-        assertEquals(50.0, (Double) stats.get("completionRate"), 0.01);
-
-        // Verify subtask statistics
-        assertEquals(2L, stats.get("totalSubtasks"));
-        assertEquals(1L, stats.get("completedSubtasks"));
-        assertEquals(1L, stats.get("pendingSubtasks"));
-
-        // Verify average calculation
-        assertEquals(0.2, (Double) stats.get("avgTodosPerUser"), 0.01);
-
-        // Verify all repository/service calls
-        verify(userService, times(2)).getTotalUsers();
-        verify(userService, times(1)).getRegularUsersCount();
-        verify(userService, times(1)).getAdminUsersCount();
-        verify(todoRepository, times(1)).count();
-        verify(todoRepository, times(1)).findAll();
-        verify(subtaskRepository, times(1)).count();
-        verify(subtaskRepository, times(1)).findAll();
+        assertSame(stats, response.getBody());
+        verify(adminStatsService, times(1)).getAppStats();
+        verify(todoRepository, never()).findAll();
     }
 
     @Test
     @DisplayName("Should delete todo successfully when it exists")
     void deleteTodo_ShouldDeleteSuccessfully() {
         // Arrange
-        when(todoRepository.existsById(1)).thenReturn(true);
-        doNothing().when(todoRepository).deleteById(1);
+        when(todoService.deleteTodo(1)).thenReturn(true);
 
         // Act
         ResponseEntity<Void> response = adminController.deleteTodo(1);
@@ -173,7 +164,6 @@ class AdminControllerTest {
         // Assert
         assertNotNull(response);
         assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
-        verify(todoRepository, times(1)).existsById(1);
-        verify(todoRepository, times(1)).deleteById(1);
+        verify(todoService, times(1)).deleteTodo(1);
     }
 }
\ No newline at end of file
@@ -1,14 +1,16 @@
 package com.todo.controller;
 
+import com.todo.entity.Role;
 import com.todo.entity.Todo;
 import com.todo.entity.User;
+import com.todo.security.AuthenticatedUser;
+import com.todo.service.DataVersionService;
 import com.todo.service.TodoService;
 import com.todo.service.UserService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
 
 import java.util.Optional;
 
@@ -19,15 +21,18 @@ class TodoControllerUnitTest {
     private TodoController todoController;
     private TodoService todoService;
     private UserService userService;
+    private DataVersionService dataVersionService;
 
     @BeforeEach
     void setUp() {
         todoService = Mockito.mock(TodoService.class);
         userService = Mockito.mock(UserService.class);
+        dataVersionService = Mockito.mock(DataVersionService.class);
 
         todoController = new TodoController();
         todoController.todoService = todoService;
         todoController.userService = userService;
+        todoController.dataVersionService = dataVersionService;
     }
 
     @Test
@@ -55,15 +60,12 @@ class TodoControllerUnitTest {
         todo.setTitle("My todo");
         todo.setUser(user);
 
-        Mockito.when(userService.getUserByUsername("pavel"))
-                .thenReturn(Optional.of(user));
         Mockito.when(todoService.getTodoById(10))
                 .thenReturn(Optional.of(todo));
 
-        Authentication authentication = Mockito.mock(Authentication.class);
-        Mockito.when(authentication.getName()).thenReturn("pavel");
+        AuthenticatedUser currentUser = new AuthenticatedUser(1, "pavel", Role.USER, true);
 
-        ResponseEntity<?> response = todoController.getTodoById(10, authentication);
+        ResponseEntity<?> response = todoController.getTodoById(10, currentUser);
 
         assertEquals(200, response.getStatusCodeValue());
         Todo body = (Todo) response.getBody();
@@ -87,17 +89,27 @@ class TodoControllerUnitTest {
         todo.setTitle("Other's todo");
         todo.setUser(other);
 
-        Mockito.when(userService.getUserByUsername("pavel"))
-                .thenReturn(Optional.of(user));
         Mockito.when(todoService.getTodoById(20))
                 .thenReturn(Optional.of(todo));
 
-        Authentication authentication = Mockito.mock(Authentication.class);
-        Mockito.when(authentication.getName()).thenReturn("pavel");
+        AuthenticatedUser currentUser = new AuthenticatedUser(1, "pavel", Role.USER, true);
 
-        ResponseEntity<?> response = todoController.getTodoById(20, authentication);
+        ResponseEntity<?> response = todoController.getTodoById(20, currentUser);
 
         assertEquals(403, response.getStatusCodeValue());
         assertEquals("Access denied", response.getBody());
     }
+
+    @Test
+    void getAllTodos_matchingIfNoneMatch_returnsNotModifiedWithoutListQuery() {
+        Mockito.when(dataVersionService.etag(1)).thenReturn("\"1-7\"");
+
+        AuthenticatedUser currentUser = new AuthenticatedUser(1, "pavel", Role.USER, true);
+
+        ResponseEntity<?> response = todoController.getAllTodos(currentUser, null, null, null, false, false, "\"1-7\"");
+
+        assertEquals(304, response.getStatusCodeValue());
+        assertEquals("\"1-7\"", response.getHeaders().getETag());
+        Mockito.verifyNoInteractions(todoService);
+    }
 }
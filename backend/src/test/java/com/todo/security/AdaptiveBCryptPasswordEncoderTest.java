@@ -0,0 +1,40 @@
+package com.todo.security;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("AdaptiveBCryptPasswordEncoder Unit Tests")
+class AdaptiveBCryptPasswordEncoderTest {
+
+    @Test
+    @DisplayName("Should request a rehash whenever the stored cost differs")
+    void upgradeEncoding_DifferentCost_ReturnsTrue() {
+        AdaptiveBCryptPasswordEncoder encoder = new AdaptiveBCryptPasswordEncoder(11);
+
+        assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(10).encode("secret")));
+        assertTrue(encoder.upgradeEncoding("$2a$12$abcdefghijklmnopqrstuuabcdefghijklmnopqrstuvwxyz01234"));
+        assertFalse(encoder.upgradeEncoding(encoder.encode("secret")));
+        assertFalse(encoder.upgradeEncoding("not-a-bcrypt-hash"));
+    }
+
+    @Test
+    @DisplayName("Should only upgrade lower-cost hashes when the cost was calibrated")
+    void upgradeEncoding_Calibrated_OnlyUpgrades() {
+        AdaptiveBCryptPasswordEncoder encoder = new AdaptiveBCryptPasswordEncoder(11, false);
+
+        assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(10).encode("secret")));
+        assertFalse(encoder.upgradeEncoding("$2a$12$abcdefghijklmnopqrstuuabcdefghijklmnopqrstuvwxyz01234"));
+        assertFalse(encoder.upgradeEncoding(encoder.encode("secret")));
+    }
+
+    @Test
+    @DisplayName("Should never calibrate below the minimum cost")
+    void calibrate_StaysWithinBounds() {
+        int strength = AdaptiveBCryptPasswordEncoder.calibrate(0);
+
+        assertEquals(AdaptiveBCryptPasswordEncoder.MIN_STRENGTH, strength);
+    }
+}
@@ -0,0 +1,97 @@
+package com.todo.security;
+
+import com.todo.entity.Role;
+import com.todo.entity.User;
+import com.todo.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("CustomUserDetailsService Unit Tests")
+class CustomUserDetailsServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @InjectMocks
+    private CustomUserDetailsService customUserDetailsService;
+
+    private PrincipalCache principalCache;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        principalCache = new PrincipalCache();
+        ReflectionTestUtils.setField(principalCache, "maxSize", 100);
+        ReflectionTestUtils.setField(principalCache, "ttlMs", 60_000L);
+        ReflectionTestUtils.setField(customUserDetailsService, "principalCache", principalCache);
+
+        user = new User();
+        user.setId(1);
+        user.setUsername("user1");
+        user.setRole(Role.ADMIN);
+        user.setIsActive(true);
+        when(userRepository.findByUsername("user1")).thenReturn(Optional.of(user));
+    }
+
+    @Test
+    @DisplayName("Should serve a confirmed hit without loading the user again")
+    void loadPrincipal_Unchanged_ServedFromCache() {
+        // Arrange
+        when(userRepository.findRoleAndActiveById(1)).thenReturn(rows(new Object[]{Role.ADMIN, true}));
+        customUserDetailsService.loadPrincipal("user1");
+
+        // Act
+        AuthenticatedUser principal = customUserDetailsService.loadPrincipal("user1");
+
+        // Assert
+        assertEquals(Role.ADMIN, principal.getRole());
+        verify(userRepository, times(1)).findByUsername("user1");
+    }
+
+    @Test
+    @DisplayName("Should reload a principal demoted through another node")
+    void loadPrincipal_DemotedElsewhere_Reloads() {
+        // Arrange - cached as admin, then the row changes without this node invalidating
+        customUserDetailsService.loadPrincipal("user1");
+        user.setRole(Role.USER);
+        when(userRepository.findRoleAndActiveById(1)).thenReturn(rows(new Object[]{Role.USER, true}));
+
+        // Act
+        AuthenticatedUser principal = customUserDetailsService.loadPrincipal("user1");
+
+        // Assert
+        assertEquals(Role.USER, principal.getRole());
+        verify(userRepository, times(2)).findByUsername("user1");
+    }
+
+    @Test
+    @DisplayName("Should reject a cached principal whose user was deleted through another node")
+    void loadPrincipal_DeletedElsewhere_Throws() {
+        // Arrange
+        customUserDetailsService.loadPrincipal("user1");
+        when(userRepository.findRoleAndActiveById(1)).thenReturn(List.of());
+        when(userRepository.findByUsername("user1")).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThrows(UsernameNotFoundException.class, () -> customUserDetailsService.loadPrincipal("user1"));
+        assertNull(principalCache.get("user1"));
+    }
+
+    private static List<Object[]> rows(Object[]... rows) {
+        return List.of(rows);
+    }
+}
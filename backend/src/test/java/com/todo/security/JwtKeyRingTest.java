@@ -0,0 +1,126 @@
+package com.todo.security;
+
+import com.todo.entity.Role;
+import com.todo.entity.User;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("JwtKeyRing Unit Tests")
+class JwtKeyRingTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Should sign with the newest active key and verify tokens on another instance")
+    void currentSigningKey_NewestActiveKey_SharedAcrossInstances() throws Exception {
+        Instant now = Instant.now();
+        Path file = writeKeyRing(
+                "key.k1.secret=" + secret('a'),
+                "key.k2.secret=" + secret('b'),
+                "key.k2.not-before=" + now.minus(1, ChronoUnit.HOURS),
+                "key.k3.secret=" + secret('c'),
+                "key.k3.not-before=" + now.plus(1, ChronoUnit.DAYS));
+
+        JwtKeyRing nodeA = keyRing(file);
+        JwtKeyRing nodeB = keyRing(file);
+
+        assertEquals("k2", nodeA.currentSigningKey().getKid());
+
+        String token = jwtUtil(nodeA).generateToken(user());
+        assertEquals("pavel", jwtUtil(nodeB).parseToken(token).getUsername());
+    }
+
+    @Test
+    @DisplayName("Should reject tokens signed with a retired key")
+    void verificationKey_RetiredKey_Rejected() throws Exception {
+        Path file = writeKeyRing("key.old.secret=" + secret('a'));
+        JwtKeyRing ring = keyRing(file);
+        String token = jwtUtil(ring).generateToken(user());
+
+        writeKeyRing(
+                "key.old.secret=" + secret('a'),
+                "key.old.not-after=" + Instant.now().minus(1, ChronoUnit.MINUTES),
+                "key.new.secret=" + secret('b'));
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().plusSeconds(5)));
+        ring.reloadIfChanged();
+
+        assertNull(ring.verificationKey("old"));
+        assertEquals("new", ring.currentSigningKey().getKid());
+        assertThrows(JwtException.class, () -> jwtUtil(ring).parseToken(token));
+    }
+
+    @Test
+    @DisplayName("Should keep the current keys when the rotated file is empty or fully expired")
+    void reloadIfChanged_NoSigningKey_KeepsCurrentRing() throws Exception {
+        Path file = writeKeyRing("key.live.secret=" + secret('a'));
+        JwtKeyRing ring = keyRing(file);
+        String token = jwtUtil(ring).generateToken(user());
+
+        writeKeyRing();
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().plusSeconds(5)));
+        ring.reloadIfChanged();
+        assertEquals("live", ring.currentSigningKey().getKid());
+
+        writeKeyRing(
+                "key.live.secret=" + secret('a'),
+                "key.live.not-after=" + Instant.now().minus(1, ChronoUnit.MINUTES));
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().plusSeconds(10)));
+        ring.reloadIfChanged();
+
+        assertEquals("live", ring.currentSigningKey().getKid());
+        assertEquals("pavel", jwtUtil(ring).parseToken(token).getUsername());
+        assertThrows(IllegalStateException.class, () -> keyRing(file));
+    }
+
+    @Test
+    @DisplayName("Should refuse keys shorter than 256 bits")
+    void init_WeakKey_Fails() throws Exception {
+        Path file = writeKeyRing("key.weak.secret=" + Base64.getEncoder().encodeToString(new byte[16]));
+        assertThrows(IllegalStateException.class, () -> keyRing(file));
+    }
+
+    private Path writeKeyRing(String... lines) throws Exception {
+        Path file = tempDir.resolve("jwt-keys.properties");
+        Files.write(file, List.of(lines));
+        return file;
+    }
+
+    private static String secret(char fill) {
+        return Base64.getEncoder().encodeToString(String.valueOf(fill).repeat(32).getBytes());
+    }
+
+    private static JwtKeyRing keyRing(Path file) {
+        JwtKeyRing ring = new JwtKeyRing();
+        ReflectionTestUtils.setField(ring, "keyRingFile", file.toString());
+        ring.init();
+        return ring;
+    }
+
+    private static JwtUtil jwtUtil(JwtKeyRing ring) {
+        JwtUtil jwtUtil = new JwtUtil(ring);
+        ReflectionTestUtils.setField(jwtUtil, "jwtExpirationMs", 60_000L);
+        return jwtUtil;
+    }
+
+    private static User user() {
+        User user = new User();
+        user.setId(1);
+        user.setUsername("pavel");
+        user.setRole(Role.USER);
+        return user;
+    }
+}
@@ -0,0 +1,54 @@
+package com.todo.security;
+
+import com.todo.entity.Role;
+import com.todo.entity.User;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("JwtUtil Unit Tests")
+class JwtUtilTest {
+
+    private JwtUtil jwtUtil;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        JwtKeyRing keyRing = new JwtKeyRing();
+        keyRing.init();
+        jwtUtil = new JwtUtil(keyRing);
+        ReflectionTestUtils.setField(jwtUtil, "jwtExpirationMs", 60_000L);
+
+        user = new User();
+        user.setId(7);
+        user.setUsername("pavel");
+        user.setRole(Role.ADMIN);
+    }
+
+    @Test
+    @DisplayName("Should carry user id and role claims through a single parse")
+    void parseToken_ReturnsAllClaims() {
+        TokenClaims claims = jwtUtil.parseToken(jwtUtil.generateToken(user));
+
+        assertEquals("pavel", claims.getUsername());
+        assertEquals(7, claims.getUserId());
+        assertEquals("ADMIN", claims.getRole());
+        assertTrue(claims.belongsTo(new AuthenticatedUser(7, "pavel", Role.ADMIN, true)));
+        assertFalse(claims.belongsTo(new AuthenticatedUser(8, "pavel", Role.ADMIN, true)));
+    }
+
+    @Test
+    @DisplayName("Should reject expired and tampered tokens")
+    void parseToken_InvalidToken_Throws() {
+        String token = jwtUtil.generateToken(user);
+        assertThrows(JwtException.class, () -> jwtUtil.parseToken(token.substring(0, token.length() - 2) + "xx"));
+
+        ReflectionTestUtils.setField(jwtUtil, "jwtExpirationMs", -1_000L);
+        String expired = jwtUtil.generateToken(user);
+        assertThrows(JwtException.class, () -> jwtUtil.parseToken(expired));
+    }
+}
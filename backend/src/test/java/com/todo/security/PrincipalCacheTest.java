@@ -0,0 +1,81 @@
+package com.todo.security;
+
+import com.todo.entity.Role;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("PrincipalCache Unit Tests")
+class PrincipalCacheTest {
+
+    private PrincipalCache principalCache;
+
+    @BeforeEach
+    void setUp() {
+        principalCache = new PrincipalCache();
+        ReflectionTestUtils.setField(principalCache, "maxSize", 2);
+        ReflectionTestUtils.setField(principalCache, "ttlMs", 60_000L);
+    }
+
+    @Test
+    @DisplayName("Should count hits and misses")
+    void get_RecordsHitsAndMisses() {
+        put(new AuthenticatedUser(1, "user1", Role.USER, true));
+
+        assertNotNull(principalCache.get("user1"));
+        assertNull(principalCache.get("user2"));
+
+        Map<String, Object> stats = principalCache.getStats();
+        assertEquals(1L, stats.get("hits"));
+        assertEquals(1L, stats.get("misses"));
+    }
+
+    @Test
+    @DisplayName("Should evict the least recently used entry when full")
+    void put_WhenFull_EvictsLeastRecentlyUsed() {
+        put(new AuthenticatedUser(1, "user1", Role.USER, true));
+        put(new AuthenticatedUser(2, "user2", Role.USER, true));
+        principalCache.get("user1");
+        put(new AuthenticatedUser(3, "user3", Role.USER, true));
+
+        assertNotNull(principalCache.get("user1"));
+        assertNull(principalCache.get("user2"));
+        assertNotNull(principalCache.get("user3"));
+        assertEquals(1L, principalCache.getStats().get("evictions"));
+    }
+
+    @Test
+    @DisplayName("Should not cache a principal loaded before an invalidation of that user")
+    void put_AfterInvalidation_DropsStaleLoad() {
+        // Arrange - a request misses and starts loading, then an admin demotes the user
+        long loadedAt = principalCache.generation();
+        principalCache.invalidateUser(1);
+
+        // Act - the request finishes with the row it read before the change
+        principalCache.put(new AuthenticatedUser(1, "user1", Role.ADMIN, true), loadedAt);
+
+        // Assert
+        assertNull(principalCache.get("user1"));
+    }
+
+    @Test
+    @DisplayName("Should drop expired entries and entries invalidated by user id")
+    void get_ExpiredOrInvalidated_ReturnsNull() {
+        put(new AuthenticatedUser(1, "user1", Role.USER, true));
+        principalCache.invalidateUser(1);
+        assertNull(principalCache.get("user1"));
+
+        ReflectionTestUtils.setField(principalCache, "ttlMs", -1L);
+        put(new AuthenticatedUser(2, "user2", Role.USER, true));
+        assertNull(principalCache.get("user2"));
+    }
+
+    private void put(AuthenticatedUser principal) {
+        principalCache.put(principal, principalCache.generation());
+    }
+}
@@ -0,0 +1,183 @@
+package com.todo.security;
+
+import com.todo.entity.Role;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("RateLimitFilter Unit Tests")
+class RateLimitFilterTest {
+
+    private RateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = newFilter("192.168.0.0/16, ::1");
+    }
+
+    private static RateLimitFilter newFilter(String trustedProxies) {
+        RateLimitFilter filter = new RateLimitFilter();
+        ReflectionTestUtils.setField(filter, "enabled", true);
+        ReflectionTestUtils.setField(filter, "maxBuckets", 100);
+        ReflectionTestUtils.setField(filter, "ipMultiplier", 2);
+        ReflectionTestUtils.setField(filter, "trustedProxies", trustedProxies);
+        ReflectionTestUtils.setField(filter, "authCapacity", 2);
+        ReflectionTestUtils.setField(filter, "authPerMinute", 1.0);
+        ReflectionTestUtils.setField(filter, "todosCapacity", 1);
+        ReflectionTestUtils.setField(filter, "todosPerMinute", 1.0);
+        ReflectionTestUtils.setField(filter, "attachmentsCapacity", 1);
+        ReflectionTestUtils.setField(filter, "attachmentsPerMinute", 1.0);
+        ReflectionTestUtils.setField(filter, "thumbnailsCapacity", 3);
+        ReflectionTestUtils.setField(filter, "thumbnailsPerMinute", 1.0);
+        ReflectionTestUtils.setField(filter, "calendarCapacity", 1);
+        ReflectionTestUtils.setField(filter, "calendarPerMinute", 1.0);
+        filter.init();
+        return filter;
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("Should reject with 429 and Retry-After once the burst is used up")
+    void doFilter_BurstExceeded_Returns429() throws Exception {
+        assertEquals(200, send("/auth/login", "10.0.0.1").getStatus());
+        assertEquals(200, send("/auth/login", "10.0.0.1").getStatus());
+
+        MockHttpServletResponse rejected = send("/auth/login", "10.0.0.1");
+        assertEquals(429, rejected.getStatus());
+        assertNotNull(rejected.getHeader("Retry-After"));
+
+        // Other clients and other route groups have their own buckets
+        assertEquals(200, send("/auth/login", "10.0.0.2").getStatus());
+        assertEquals(200, send("/calendar/sync", "10.0.0.1").getStatus());
+
+        Map<?, ?> auth = (Map<?, ?>) filter.getStats().get("auth");
+        assertEquals(3L, auth.get("allowed"));
+        assertEquals(1L, auth.get("rejected"));
+    }
+
+    @Test
+    @DisplayName("Should key authenticated requests by user id, not by address")
+    void doFilter_AuthenticatedUser_KeyedByUserId() throws Exception {
+        authenticate(1);
+        assertEquals(200, send("/todos", "10.0.0.1").getStatus());
+        assertEquals(429, send("/todos", "10.0.0.2").getStatus());
+
+        authenticate(2);
+        assertEquals(200, send("/todos", "10.0.0.1").getStatus());
+    }
+
+    @Test
+    @DisplayName("Should also charge authenticated requests to their IP, at ip-multiplier users' worth")
+    void doFilter_ManyUsersOneAddress_LimitedByIp() throws Exception {
+        authenticate(1);
+        assertEquals(200, send("/todos", "10.0.0.9").getStatus());
+        authenticate(2);
+        assertEquals(200, send("/todos", "10.0.0.9").getStatus());
+
+        // A third fresh user behind the same address is over the IP's budget, elsewhere it is fine
+        authenticate(3);
+        assertEquals(429, send("/todos", "10.0.0.9").getStatus());
+        assertEquals(200, send("/todos", "10.0.0.10").getStatus());
+    }
+
+    @Test
+    @DisplayName("Should key anonymous clients behind a trusted proxy by X-Forwarded-For")
+    void doFilter_BehindTrustedProxy_KeyedByForwardedClient() throws Exception {
+        // Two clients through the same load balancer get their own buckets
+        assertEquals(200, send("/auth/login", "192.168.1.10", "203.0.113.5").getStatus());
+        assertEquals(200, send("/auth/login", "192.168.1.10", "203.0.113.5").getStatus());
+        assertEquals(429, send("/auth/login", "192.168.1.11", "203.0.113.5").getStatus());
+        assertEquals(200, send("/auth/login", "192.168.1.10", "198.51.100.7, 192.168.1.3").getStatus());
+
+        // The right-most untrusted hop wins; a client cannot pick its key by prepending a fake one
+        assertEquals("198.51.100.7", clientIp("192.168.1.10", "10.9.9.9, 198.51.100.7, 192.168.1.3"));
+        // Headers from untrusted peers are ignored
+        assertEquals("10.0.0.5", clientIp("10.0.0.5", "203.0.113.5"));
+        assertEquals("::1", clientIp("::1", null));
+    }
+
+    @Test
+    @DisplayName("Should trust only loopback by default, so a LAN client cannot forge a fresh login bucket")
+    void doFilter_DefaultProxies_IgnoreForgedForwardedFor() throws Exception {
+        // Arrange - the shipped default
+        assertEquals("${rate-limit.trusted-proxies:127.0.0.1,::1}",
+                RateLimitFilter.class.getDeclaredField("trustedProxies").getAnnotation(Value.class).value());
+        filter = newFilter("127.0.0.1,::1");
+
+        // Act - a private-network peer sends a new X-Forwarded-For with every attempt
+        send("/auth/login", "10.0.0.5", "203.0.113.1");
+        send("/auth/login", "10.0.0.5", "203.0.113.2");
+        MockHttpServletResponse third = send("/auth/login", "10.0.0.5", "203.0.113.3");
+
+        // Assert
+        assertEquals(429, third.getStatus());
+        assertEquals("10.0.0.5", clientIp("10.0.0.5", "203.0.113.4"));
+    }
+
+    @Test
+    @DisplayName("Should give thumbnails their own bucket, apart from other attachment calls")
+    void doFilter_Thumbnails_SeparateGroup() throws Exception {
+        authenticate(1);
+        assertEquals(200, send("/attachments/7/download", "10.0.0.1").getStatus());
+        assertEquals(429, send("/attachments/8/download", "10.0.0.1").getStatus());
+
+        for (int id = 1; id <= 3; id++) {
+            assertEquals(200, send("/attachments/" + id + "/thumbnail", "10.0.0.1").getStatus());
+        }
+        assertEquals(429, send("/attachments/4/thumbnail", "10.0.0.1").getStatus());
+    }
+
+    @Test
+    @DisplayName("Should not limit routes outside the route groups")
+    void doFilter_UngroupedRoute_NotLimited() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            assertEquals(200, send("/users/me", "10.0.0.1").getStatus());
+        }
+    }
+
+    private MockHttpServletResponse send(String path, String remoteAddr) throws Exception {
+        return send(path, remoteAddr, null);
+    }
+
+    private MockHttpServletResponse send(String path, String remoteAddr, String forwardedFor) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request(path, remoteAddr, forwardedFor), response, new MockFilterChain());
+        return response;
+    }
+
+    private String clientIp(String remoteAddr, String forwardedFor) {
+        return filter.clientIp(request("/auth/login", remoteAddr, forwardedFor));
+    }
+
+    private static MockHttpServletRequest request(String path, String remoteAddr, String forwardedFor) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api" + path);
+        request.setContextPath("/api");
+        request.setRemoteAddr(remoteAddr);
+        if (forwardedFor != null) {
+            request.addHeader("X-Forwarded-For", forwardedFor);
+        }
+        return request;
+    }
+
+    private static void authenticate(int userId) {
+        AuthenticatedUser user = new AuthenticatedUser(userId, "user" + userId, Role.USER, true);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+}
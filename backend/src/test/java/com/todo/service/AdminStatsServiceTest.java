@@ -0,0 +1,97 @@
+package com.todo.service;
+
+import com.todo.entity.Role;
+import com.todo.repository.SubtaskRepository;
+import com.todo.repository.TodoRepository;
+import com.todo.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("AdminStatsService Unit Tests")
+class AdminStatsServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private TodoRepository todoRepository;
+
+    @Mock
+    private SubtaskRepository subtaskRepository;
+
+    @InjectMocks
+    private AdminStatsService adminStatsService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(adminStatsService, "cacheTtlMs", 60_000L);
+
+        when(userRepository.countGroupedByRole()).thenReturn(List.of(
+                new Object[]{Role.USER, 8L},
+                new Object[]{Role.ADMIN, 2L}
+        ));
+        when(todoRepository.countGroupedByCompletion()).thenReturn(List.of(
+                new Object[]{true, 1L},
+                new Object[]{false, 1L}
+        ));
+        when(subtaskRepository.countGroupedByCompletion()).thenReturn(List.of(
+                new Object[]{true, 1L},
+                new Object[]{false, 1L}
+        ));
+    }
+
+    @Test
+    @DisplayName("Should compute comprehensive statistics from grouped counts")
+    void getAppStats_ShouldReturnCorrectStatistics() {
+        // Act
+        Map<String, Object> stats = adminStatsService.getAppStats();
+
+        // Assert - user statistics
+        assertEquals(10L, stats.get("totalUsers"));
+        assertEquals(8L, stats.get("regularUsers"));
+        assertEquals(2L, stats.get("adminUsers"));
+
+        // Assert - todo statistics
+        assertEquals(2L, stats.get("totalTodos"));
+        assertEquals(1L, stats.get("completedTodos"));
+        assertEquals(1L, stats.get("pendingTodos"));
+        assertEquals(50.0, (Double) stats.get("completionRate"), 0.01);
+
+        // Assert - subtask statistics
+        assertEquals(2L, stats.get("totalSubtasks"));
+        assertEquals(1L, stats.get("completedSubtasks"));
+        assertEquals(1L, stats.get("pendingSubtasks"));
+
+        // Assert - average calculation
+        assertEquals(0.2, (Double) stats.get("avgTodosPerUser"), 0.01);
+
+        // Never loads whole tables
+        verify(todoRepository, never()).findAll();
+        verify(subtaskRepository, never()).findAll();
+    }
+
+    @Test
+    @DisplayName("Should reuse the cached snapshot within the TTL")
+    void getAppStats_ShouldCacheWithinTtl() {
+        // Act
+        adminStatsService.getAppStats();
+        adminStatsService.getAppStats();
+
+        // Assert
+        verify(todoRepository, times(1)).countGroupedByCompletion();
+        verify(subtaskRepository, times(1)).countGroupedByCompletion();
+        verify(userRepository, times(1)).countGroupedByRole();
+    }
+}
@@ -0,0 +1,130 @@
+package com.todo.service;
+
+import com.todo.entity.Attachment;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("AttachmentDownloadService Unit Tests")
+class AttachmentDownloadServiceTest {
+
+    private static final String CONTENT = "0123456789";
+
+    @Mock
+    private FileStorageService fileStorageService;
+
+    @InjectMocks
+    private AttachmentDownloadService attachmentDownloadService;
+
+    @TempDir
+    Path uploadDir;
+
+    private Attachment attachment;
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        file = Files.writeString(uploadDir.resolve("stored.txt"), CONTENT);
+        attachment = new Attachment("notes.txt", "stored.txt", (long) CONTENT.length(),
+                "text/plain", 1, null, "url");
+        attachment.setId(7);
+        attachment.setCreatedAt(LocalDateTime.of(2026, 1, 1, 12, 0));
+        when(fileStorageService.localFile("stored.txt")).thenReturn(Optional.of(file));
+    }
+
+    @Test
+    @DisplayName("Should stream the whole file with metadata headers")
+    void send_NoRange_StreamsWholeFile() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/attachments/7/download");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        attachmentDownloadService.send(attachment, request, response);
+
+        assertEquals(200, response.getStatus());
+        assertEquals(CONTENT, response.getContentAsString(StandardCharsets.UTF_8));
+        assertEquals(10, response.getContentLengthLong());
+        assertEquals("text/plain", response.getContentType());
+        assertEquals("bytes", response.getHeader(HttpHeaders.ACCEPT_RANGES));
+        assertTrue(response.getHeader(HttpHeaders.CONTENT_DISPOSITION).contains("notes.txt"));
+    }
+
+    @Test
+    @DisplayName("Should return 206 with only the requested bytes")
+    void send_Range_ReturnsPartialContent() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/attachments/7/download");
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        attachmentDownloadService.send(attachment, request, response);
+
+        assertEquals(206, response.getStatus());
+        assertEquals("2345", response.getContentAsString(StandardCharsets.UTF_8));
+        assertEquals("bytes 2-5/10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals(4, response.getContentLengthLong());
+    }
+
+    @Test
+    @DisplayName("Should serve a suffix range and reject ranges past the end")
+    void send_SuffixAndUnsatisfiableRanges() throws Exception {
+        MockHttpServletRequest suffix = new MockHttpServletRequest("GET", "/attachments/7/download");
+        suffix.addHeader(HttpHeaders.RANGE, "bytes=-3");
+        MockHttpServletResponse suffixResponse = new MockHttpServletResponse();
+        attachmentDownloadService.send(attachment, suffix, suffixResponse);
+        assertEquals("789", suffixResponse.getContentAsString(StandardCharsets.UTF_8));
+
+        MockHttpServletRequest pastEnd = new MockHttpServletRequest("GET", "/attachments/7/download");
+        pastEnd.addHeader(HttpHeaders.RANGE, "bytes=10-");
+        MockHttpServletResponse pastEndResponse = new MockHttpServletResponse();
+        attachmentDownloadService.send(attachment, pastEnd, pastEndResponse);
+        assertEquals(416, pastEndResponse.getStatus());
+        assertEquals("bytes */10", pastEndResponse.getHeader(HttpHeaders.CONTENT_RANGE));
+    }
+
+    @Test
+    @DisplayName("Should ignore the range when If-Range names another version")
+    void send_StaleIfRange_ServesWholeFile() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/attachments/7/download");
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+        request.addHeader(HttpHeaders.IF_RANGE, "\"a7-999\"");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        attachmentDownloadService.send(attachment, request, response);
+
+        assertEquals(200, response.getStatus());
+        assertEquals(CONTENT, response.getContentAsString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("Should hand the range to the connector's sendfile when available")
+    void send_SendfileSupported_SetsAttributesWithoutWriting() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/attachments/7/download");
+        request.setAttribute(AttachmentDownloadService.SENDFILE_SUPPORTED_ATTR, Boolean.TRUE);
+        request.addHeader(HttpHeaders.RANGE, "bytes=4-");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        attachmentDownloadService.send(attachment, request, response);
+
+        assertEquals(206, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+        assertEquals(file.toAbsolutePath().toString(), request.getAttribute(AttachmentDownloadService.SENDFILE_FILENAME_ATTR));
+        assertEquals(4L, request.getAttribute(AttachmentDownloadService.SENDFILE_START_ATTR));
+        assertEquals(10L, request.getAttribute(AttachmentDownloadService.SENDFILE_END_ATTR));
+    }
+}
@@ -0,0 +1,126 @@
+package com.todo.service;
+
+import com.todo.repository.AttachmentBlobRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("FileStorageService Unit Tests")
+class FileStorageServiceTest {
+
+    // Any 64-character hex digest
+    private static final String HASH = "6d1e3e6f7c5bba2c1d1c0cbd53a9cb8a3a1e0f6f2de6c83b40f80e5c4e3e1d5a";
+
+    @Mock
+    private AttachmentBlobRepository attachmentBlobRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private FileStorageService fileStorageService;
+
+    @TempDir
+    Path uploadDir;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        LocalStorageFixture.wire(fileStorageService, uploadDir, attachmentBlobRepository, transactionManager);
+    }
+
+    @Test
+    @DisplayName("Should store identical uploads once and reference the same blob")
+    void uploadFile_SameContent_SharesOneBlob() throws Exception {
+        // Arrange
+        byte[] content = "same bytes".getBytes(StandardCharsets.UTF_8);
+        MockMultipartFile first = new MockMultipartFile("file", "a.txt", "text/plain", content);
+        MockMultipartFile second = new MockMultipartFile("file", "b.txt", "text/plain", content);
+
+        when(attachmentBlobRepository.findFilePathByContentHash(anyString()))
+                .thenAnswer(invocation -> Optional.of(FileStorageService.blobPath(invocation.getArgument(0))));
+
+        // Act
+        String firstPath = fileStorageService.uploadFile(first);
+        String secondPath = fileStorageService.uploadFile(second);
+
+        // Assert
+        assertEquals(firstPath, secondPath);
+        assertTrue(FileStorageService.isShardedBlobPath(firstPath));
+        assertArrayEquals(content, Files.readAllBytes(uploadDir.resolve(firstPath)));
+        verify(attachmentBlobRepository, times(2)).addReference(eq(FileStorageService.blobHash(firstPath)),
+                eq(firstPath), eq((long) content.length));
+        try (var temp = Files.list(uploadDir.resolve("tmp"))) {
+            assertEquals(0, temp.count());
+        }
+    }
+
+    @Test
+    @DisplayName("Should recount references in bounded hash-range chunks")
+    void collectGarbage_RecountsInChunks() {
+        // Arrange
+        ReflectionTestUtils.setField(fileStorageService, "gcChunkSize", 2);
+        when(attachmentBlobRepository.findContentHashesAfter("", 2)).thenReturn(List.of("a1", "b2"));
+        when(attachmentBlobRepository.findContentHashesAfter("b2", 2)).thenReturn(List.of("c3"));
+        when(attachmentBlobRepository.findContentHashesAfter("c3", 2)).thenReturn(List.of());
+        when(attachmentBlobRepository.findUnreferencedHashes()).thenReturn(List.of());
+
+        // Act
+        fileStorageService.collectGarbage();
+
+        // Assert
+        InOrder inOrder = inOrder(attachmentBlobRepository);
+        inOrder.verify(attachmentBlobRepository).recountReferences("", "b2");
+        inOrder.verify(attachmentBlobRepository).recountReferences("b2", "c3");
+        verify(attachmentBlobRepository, times(2)).recountReferences(anyString(), anyString());
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    @Test
+    @DisplayName("Should delete files stored before content addressing directly")
+    void releaseFile_LegacyFile_DeletesIt() throws Exception {
+        // Arrange
+        Files.writeString(uploadDir.resolve("1234_old.txt"), "old");
+
+        // Act
+        fileStorageService.releaseFile("1234_old.txt");
+
+        // Assert
+        assertFalse(Files.exists(uploadDir.resolve("1234_old.txt")));
+        verifyNoInteractions(attachmentBlobRepository);
+    }
+
+    @Test
+    @DisplayName("Should recognise only blob paths as content-addressed")
+    void blobHash_ParsesOnlyBlobPaths() {
+        assertEquals(HASH, FileStorageService.blobHash(FileStorageService.blobPath(HASH)));
+        assertNull(FileStorageService.blobHash("1234_old.txt"));
+        assertNull(FileStorageService.blobHash("blobs/short"));
+    }
+
+    @Test
+    @DisplayName("Should fan blobs out over two levels of hash-prefix directories")
+    void blobPath_IsSharded() {
+        assertEquals("blobs/6d/1e/" + HASH, FileStorageService.blobPath(HASH));
+        assertTrue(FileStorageService.isShardedBlobPath("blobs/6d/1e/" + HASH));
+        assertFalse(FileStorageService.isShardedBlobPath("blobs/" + HASH));
+    }
+}
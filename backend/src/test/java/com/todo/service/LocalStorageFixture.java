@@ -0,0 +1,38 @@
+package com.todo.service;
+
+import com.todo.repository.AttachmentBlobRepository;
+import com.todo.storage.LocalStorageBackend;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Path;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Wires a FileStorageService (plain, spy or @InjectMocks instance) over a LocalStorageBackend rooted at a test directory
+ */
+final class LocalStorageFixture {
+
+    private LocalStorageFixture() {
+    }
+
+    static <T extends FileStorageService> T wire(T fileStorageService, Path uploadDir,
+                                                 AttachmentBlobRepository attachmentBlobRepository) {
+        return wire(fileStorageService, uploadDir, attachmentBlobRepository, mock(PlatformTransactionManager.class));
+    }
+
+    static <T extends FileStorageService> T wire(T fileStorageService, Path uploadDir,
+                                                 AttachmentBlobRepository attachmentBlobRepository,
+                                                 PlatformTransactionManager transactionManager) {
+        LocalStorageBackend storageBackend = new LocalStorageBackend();
+        ReflectionTestUtils.setField(storageBackend, "uploadDir", uploadDir.toString());
+        storageBackend.init();
+        ReflectionTestUtils.setField(fileStorageService, "uploadDir", uploadDir.toString());
+        ReflectionTestUtils.setField(fileStorageService, "storageBackend", storageBackend);
+        ReflectionTestUtils.setField(fileStorageService, "attachmentBlobRepository", attachmentBlobRepository);
+        ReflectionTestUtils.setField(fileStorageService, "transactionManager", transactionManager);
+        fileStorageService.init();
+        return fileStorageService;
+    }
+}
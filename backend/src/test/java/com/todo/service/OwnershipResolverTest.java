@@ -0,0 +1,104 @@
+package com.todo.service;
+
+import com.todo.repository.AttachmentRepository;
+import com.todo.repository.SubtaskRepository;
+import com.todo.repository.TodoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@DisplayName("OwnershipResolver Unit Tests")
+class OwnershipResolverTest {
+
+    @Mock
+    private TodoRepository todoRepository;
+
+    @Mock
+    private SubtaskRepository subtaskRepository;
+
+    @Mock
+    private AttachmentRepository attachmentRepository;
+
+    @InjectMocks
+    private OwnershipResolver ownershipResolver;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(ownershipResolver, "cacheTtlMs", 60_000L);
+        ReflectionTestUtils.setField(ownershipResolver, "cacheMaxSize", 100);
+    }
+
+    @Test
+    @DisplayName("Should resolve subtask ownership with one query and serve repeats from cache")
+    void checkSubtask_CachesOwner() {
+        // Arrange
+        when(subtaskRepository.findOwnerIdById(5)).thenReturn(Optional.of(1));
+
+        // Act & Assert
+        assertEquals(OwnershipResolver.Ownership.OWNED, ownershipResolver.checkSubtask(5, 1));
+        assertEquals(OwnershipResolver.Ownership.FORBIDDEN, ownershipResolver.checkSubtask(5, 2));
+        verify(subtaskRepository, times(1)).findOwnerIdById(5);
+        verifyNoInteractions(todoRepository);
+    }
+
+    @Test
+    @DisplayName("Should report missing rows and ownerless todos")
+    void checkTodo_MissingOrOwnerless() {
+        // Arrange
+        when(todoRepository.findOwnerIdById(1)).thenReturn(Optional.empty());
+        when(todoRepository.findOwnerIdById(2)).thenReturn(Optional.of(0));
+
+        // Act & Assert
+        assertEquals(OwnershipResolver.Ownership.NOT_FOUND, ownershipResolver.checkTodo(1, 1));
+        assertEquals(OwnershipResolver.Ownership.FORBIDDEN, ownershipResolver.checkTodo(2, 0));
+        assertEquals(OwnershipResolver.Ownership.NOT_FOUND, ownershipResolver.checkTodo(null, 1));
+    }
+
+    @Test
+    @DisplayName("Should drop only the least recently used entry when the cache is full")
+    void check_CacheFull_EvictsLeastRecentlyUsed() {
+        // Arrange
+        ReflectionTestUtils.setField(ownershipResolver, "cacheMaxSize", 2);
+        when(todoRepository.findOwnerIdById(anyInt())).thenReturn(Optional.of(1));
+
+        // Act - 1 is used again after 2, so 3 pushes out 2
+        ownershipResolver.checkTodo(1, 1);
+        ownershipResolver.checkTodo(2, 1);
+        ownershipResolver.checkTodo(1, 1);
+        ownershipResolver.checkTodo(3, 1);
+        ownershipResolver.checkTodo(1, 1);
+        ownershipResolver.checkTodo(2, 1);
+
+        // Assert
+        verify(todoRepository, times(1)).findOwnerIdById(1);
+        verify(todoRepository, times(2)).findOwnerIdById(2);
+        verify(todoRepository, times(1)).findOwnerIdById(3);
+    }
+
+    @Test
+    @DisplayName("Should query again after an eviction")
+    void evictAttachment_ForcesLookup() {
+        // Arrange
+        when(attachmentRepository.findOwnerIdById(3)).thenReturn(Optional.of(1)).thenReturn(Optional.empty());
+
+        // Act
+        ownershipResolver.checkAttachment(3, 1);
+        ownershipResolver.evictAttachment(3);
+        OwnershipResolver.Ownership afterDelete = ownershipResolver.checkAttachment(3, 1);
+
+        // Assert
+        assertEquals(OwnershipResolver.Ownership.NOT_FOUND, afterDelete);
+        verify(attachmentRepository, times(2)).findOwnerIdById(3);
+    }
+}
@@ -0,0 +1,98 @@
+package com.todo.service;
+
+import com.todo.entity.AttachmentBlob;
+import com.todo.repository.AttachmentBlobRepository;
+import com.todo.repository.AttachmentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("StorageLayoutMigrationService Unit Tests")
+class StorageLayoutMigrationServiceTest {
+
+    private static final String HASH = "ab12" + "0".repeat(60);
+
+    @Mock
+    private AttachmentRepository attachmentRepository;
+
+    @Mock
+    private AttachmentBlobRepository attachmentBlobRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private TransactionStatus transactionStatus;
+
+    @InjectMocks
+    private StorageLayoutMigrationService migrationService;
+
+    @TempDir
+    Path uploadDir;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(migrationService, "fileStorageService",
+                LocalStorageFixture.wire(new FileStorageService(), uploadDir, attachmentBlobRepository));
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                ((TransactionCallback<?>) invocation.getArgument(0)).doInTransaction(transactionStatus));
+    }
+
+    @Test
+    @DisplayName("Should relocate a flat blob and repoint its row and attachments")
+    void moveBlob_FlatBlob_MovesIntoFanOut() throws Exception {
+        // Arrange
+        String oldPath = "blobs/" + HASH;
+        String newPath = "blobs/ab/12/" + HASH;
+        Files.createDirectories(uploadDir.resolve("blobs"));
+        Files.writeString(uploadDir.resolve(oldPath), "content");
+        when(attachmentBlobRepository.findByContentHashForUpdate(HASH)).thenReturn(Optional.of(
+                new AttachmentBlob(HASH, oldPath, 7L, 2, LocalDateTime.now())));
+
+        // Act
+        boolean moved = migrationService.moveBlob(oldPath);
+
+        // Assert - old name stays until the grace period ends
+        assertTrue(moved);
+        assertEquals("content", Files.readString(uploadDir.resolve(newPath)));
+        assertTrue(Files.exists(uploadDir.resolve(oldPath)));
+        verify(attachmentBlobRepository).updateFilePath(HASH, newPath);
+        verify(attachmentRepository).updateFilePath(oldPath, newPath);
+    }
+
+    @Test
+    @DisplayName("Should undo the blob reference when the attachment changed meanwhile")
+    void adoptLegacyFile_AttachmentGone_RollsBack() throws Exception {
+        // Arrange
+        Files.writeString(uploadDir.resolve("1234_old.txt"), "legacy");
+        when(attachmentBlobRepository.findFilePathByContentHash(anyString()))
+                .thenAnswer(invocation -> Optional.of(FileStorageService.blobPath(invocation.getArgument(0))));
+        when(attachmentRepository.updateFilePathById(eq(5), eq("1234_old.txt"), anyString())).thenReturn(0);
+
+        // Act
+        boolean adopted = migrationService.adoptLegacyFile(5, "1234_old.txt");
+
+        // Assert
+        assertFalse(adopted);
+        verify(transactionStatus).setRollbackOnly();
+        assertTrue(Files.exists(uploadDir.resolve("1234_old.txt")));
+    }
+}
@@ -0,0 +1,81 @@
+package com.todo.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("SubtaskCounterService Unit Tests")
+class SubtaskCounterServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private SubtaskCounterService subtaskCounterService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(subtaskCounterService, "chunkSize", 100);
+        ReflectionTestUtils.setField(subtaskCounterService, "threads", 2);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                ((TransactionCallback<?>) invocation.getArgument(0)).doInTransaction(null));
+    }
+
+    @Test
+    @DisplayName("Should repair every id range in its own locked chunk and sum the fixes")
+    void repairAll_SplitsIntoChunks() {
+        // Arrange - ids 1..250 make three chunks
+        Map<String, Object> bounds = new HashMap<>();
+        bounds.put("min_id", 1);
+        bounds.put("max_id", 250);
+        when(jdbcTemplate.queryForMap(anyString())).thenReturn(bounds);
+        when(jdbcTemplate.update(eq(SubtaskCounterService.REPAIR_CHUNK_SQL), any(Object[].class))).thenReturn(2);
+
+        // Act
+        int repaired = subtaskCounterService.repairAll();
+
+        // Assert
+        assertEquals(6, repaired);
+        verify(jdbcTemplate).queryForList(SubtaskCounterService.LOCK_CHUNK_SQL, Integer.class, 1, 100);
+        verify(jdbcTemplate).queryForList(SubtaskCounterService.LOCK_CHUNK_SQL, Integer.class, 101, 200);
+        verify(jdbcTemplate).queryForList(SubtaskCounterService.LOCK_CHUNK_SQL, Integer.class, 201, 250);
+        verify(jdbcTemplate).update(SubtaskCounterService.REPAIR_CHUNK_SQL, 201, 250, 201, 250);
+    }
+
+    @Test
+    @DisplayName("Should report consistent and do nothing when there are no todos")
+    void checkConsistency_NoTodos_IsConsistent() {
+        // Arrange
+        Map<String, Object> bounds = new HashMap<>();
+        bounds.put("min_id", null);
+        bounds.put("max_id", null);
+        when(jdbcTemplate.queryForMap(anyString())).thenReturn(bounds);
+
+        // Act
+        Map<String, Object> report = subtaskCounterService.checkConsistency();
+
+        // Assert
+        assertEquals(true, report.get("consistent"));
+        assertEquals(0, report.get("mismatches"));
+        assertEquals(List.of(), report.get("samples"));
+    }
+}
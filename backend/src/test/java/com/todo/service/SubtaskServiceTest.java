@@ -0,0 +1,340 @@
+package com.todo.service;
+
+import com.todo.dto.SubtaskStats;
+import com.todo.entity.Subtask;
+import com.todo.entity.Todo;
+import com.todo.repository.SubtaskRepository;
+import com.todo.repository.TodoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("SubtaskService Unit Tests")
+class SubtaskServiceTest {
+
+    @Mock
+    private SubtaskRepository subtaskRepository;
+
+    @Mock
+    private TodoRepository todoRepository;
+
+    @Mock
+    private DataVersionService dataVersionService;
+
+    @Mock
+    private OwnershipResolver ownershipResolver;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private SubtaskService subtaskService;
+
+    private static final long GAP = SubtaskService.ORDER_KEY_GAP;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(todoRepository.lockById(1)).thenReturn(Optional.of(1));
+    }
+
+    @Test
+    @DisplayName("Should write a single row when one subtask is dragged to the front")
+    @SuppressWarnings("unchecked")
+    void reorderSubtasks_SingleMove_WritesOneRow() {
+        // Arrange - keys 10:G, 11:2G, 12:3G; new order 12, 10, 11
+        when(subtaskRepository.findOrderKeysByTodoId(1)).thenReturn(rows(
+                new Object[]{10, GAP}, new Object[]{11, 2 * GAP}, new Object[]{12, 3 * GAP}));
+
+        // Act
+        int changed = subtaskService.reorderSubtasks(1, Arrays.asList(12, 10, 11));
+
+        // Assert - 10 and 11 keep their keys, 12 gets a key below 10's
+        assertEquals(1, changed);
+        ArgumentCaptor<List<Object[]>> batch = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), batch.capture());
+        assertEquals(1, batch.getValue().size());
+        assertArrayEquals(new Object[]{0L, 12, 1}, batch.getValue().get(0));
+        verify(dataVersionService, times(1)).bumpForTodo(1);
+    }
+
+    @Test
+    @DisplayName("Should keep the longest already-ordered run when reversing")
+    @SuppressWarnings("unchecked")
+    void reorderSubtasks_Reverse_WritesAllButOne() {
+        // Arrange
+        when(subtaskRepository.findOrderKeysByTodoId(1)).thenReturn(rows(
+                new Object[]{10, GAP}, new Object[]{11, 2 * GAP}, new Object[]{12, 3 * GAP}));
+
+        // Act
+        int changed = subtaskService.reorderSubtasks(1, Arrays.asList(12, 11, 10));
+
+        // Assert - written keys follow the requested order
+        assertEquals(2, changed);
+        ArgumentCaptor<List<Object[]>> batch = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), batch.capture());
+        assertEquals(2, batch.getValue().size());
+    }
+
+    @Test
+    @DisplayName("Should write nothing when the order is unchanged")
+    void reorderSubtasks_SameOrder_WritesNothing() {
+        // Arrange
+        when(subtaskRepository.findOrderKeysByTodoId(1)).thenReturn(rows(
+                new Object[]{10, GAP}, new Object[]{11, 2 * GAP}));
+
+        // Act & Assert
+        assertEquals(0, subtaskService.reorderSubtasks(1, Arrays.asList(10, 11)));
+        verifyNoInteractions(jdbcTemplate);
+        verify(dataVersionService, never()).bumpForTodo(any());
+    }
+
+    @Test
+    @DisplayName("Should reject an order that does not list every subtask exactly once")
+    void reorderSubtasks_IncompleteOrder_Throws() {
+        // Arrange
+        when(subtaskRepository.findOrderKeysByTodoId(1)).thenReturn(rows(
+                new Object[]{10, GAP}, new Object[]{11, 2 * GAP}));
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+                () -> subtaskService.reorderSubtasks(1, Arrays.asList(10, 10)));
+        assertThrows(IllegalArgumentException.class,
+                () -> subtaskService.reorderSubtasks(1, Arrays.asList(10, 11, 99)));
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @DisplayName("Should append a new subtask one gap after the last key")
+    void createSubtask_WithoutPosition_Appends() {
+        // Arrange
+        when(subtaskRepository.findOrderKeysByTodoId(1)).thenReturn(rows(
+                new Object[]{10, GAP}, new Object[]{11, 2 * GAP}));
+        when(subtaskRepository.save(any(Subtask.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        Subtask created = subtaskService.createSubtask(new Subtask(1, "New", false, null));
+
+        // Assert
+        assertEquals(3 * GAP, created.getOrderKey());
+        verifyNoInteractions(jdbcTemplate);
+        verify(todoRepository).adjustSubtaskCounters(1, 1, 0, 0L);
+    }
+
+    @Test
+    @DisplayName("Should insert between neighbours without touching other rows")
+    void createSubtask_AtPosition_TakesMidpoint() {
+        // Arrange
+        when(subtaskRepository.findOrderKeysByTodoId(1)).thenReturn(rows(
+                new Object[]{10, GAP}, new Object[]{11, 2 * GAP}));
+        when(subtaskRepository.save(any(Subtask.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        Subtask created = subtaskService.createSubtask(new Subtask(1, "New", false, 1));
+
+        // Assert
+        assertEquals(GAP + GAP / 2, created.getOrderKey());
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @DisplayName("Should rebalance inline when the gap between neighbours is exhausted")
+    @SuppressWarnings("unchecked")
+    void createSubtask_NoGapLeft_RebalancesFirst() {
+        // Arrange - adjacent keys, then the renumbered keys after the rebalance
+        when(subtaskRepository.findOrderKeysByTodoId(1))
+                .thenReturn(rows(new Object[]{10, 100L}, new Object[]{11, 101L}))
+                .thenReturn(rows(new Object[]{10, 100L}, new Object[]{11, 101L}))
+                .thenReturn(rows(new Object[]{10, GAP}, new Object[]{11, 2 * GAP}));
+        when(subtaskRepository.save(any(Subtask.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        Subtask created = subtaskService.createSubtask(new Subtask(1, "New", false, 1));
+
+        // Assert
+        ArgumentCaptor<List<Object[]>> batch = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), batch.capture());
+        assertArrayEquals(new Object[]{GAP, 10, 1}, batch.getValue().get(0));
+        assertArrayEquals(new Object[]{2 * GAP, 11, 1}, batch.getValue().get(1));
+        assertEquals(GAP + GAP / 2, created.getOrderKey());
+    }
+
+    @Test
+    @DisplayName("Should make a create wait for a running rebalance and key it among the renumbered subtasks")
+    @SuppressWarnings("unchecked")
+    void createSubtask_DuringRebalance_WaitsForTodoLock() throws Exception {
+        // Arrange - the todo row lock is held by whoever took it until that transaction commits
+        Semaphore todoRow = new Semaphore(1);
+        when(todoRepository.lockById(1)).thenAnswer(invocation -> {
+            todoRow.acquire();
+            return Optional.of(1);
+        });
+        Map<Integer, Long> keys = new ConcurrentHashMap<>(Map.of(10, 100L, 11, 110L));
+        when(subtaskRepository.findOrderKeysByTodoId(1)).thenAnswer(invocation -> keys.entrySet().stream()
+                .sorted(Map.Entry.comparingByValue())
+                .map(entry -> new Object[]{entry.getKey(), entry.getValue()})
+                .collect(Collectors.toCollection(ArrayList::new)));
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            for (Object[] change : (List<Object[]>) invocation.getArgument(1)) {
+                keys.put((Integer) change[1], (Long) change[0]);
+            }
+            return new int[0];
+        });
+        when(subtaskRepository.save(any(Subtask.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act - the rebalance has rewritten the keys but not committed when the insert arrives
+        subtaskService.rebalance(1);
+        CompletableFuture<Subtask> create = CompletableFuture.supplyAsync(
+                () -> subtaskService.createSubtask(new Subtask(1, "New", false, 1)));
+        assertThrows(TimeoutException.class, () -> create.get(200, TimeUnit.MILLISECONDS));
+        verify(subtaskRepository, times(1)).findOrderKeysByTodoId(1);
+        todoRow.release();
+        Subtask created = create.get(5, TimeUnit.SECONDS);
+
+        // Assert - a midpoint of the pre-rebalance keys (105) would now sort before both neighbours
+        assertEquals(GAP + GAP / 2, created.getOrderKey());
+    }
+
+    @Test
+    @DisplayName("Should lock the todo before reading the keys it rewrites")
+    void reorderAndRebalance_LockTodoFirst() {
+        // Arrange
+        when(subtaskRepository.findOrderKeysByTodoId(1)).thenReturn(rows(
+                new Object[]{10, GAP}, new Object[]{11, 2 * GAP}));
+
+        // Act
+        subtaskService.reorderSubtasks(1, Arrays.asList(11, 10));
+        subtaskService.rebalance(1);
+
+        // Assert
+        InOrder inOrder = inOrder(todoRepository, subtaskRepository);
+        inOrder.verify(todoRepository).lockById(1);
+        inOrder.verify(subtaskRepository).findOrderKeysByTodoId(1);
+        inOrder.verify(todoRepository).lockById(1);
+        inOrder.verify(subtaskRepository).findOrderKeysByTodoId(1);
+    }
+
+    @Test
+    @DisplayName("Should read stats for many todos from their counters in one query")
+    void getSubtaskStats_ManyTodos_ReadsCounters() {
+        // Arrange
+        List<Integer> todoIds = Arrays.asList(1, 2);
+        when(todoRepository.findSubtaskCountersByIds(todoIds)).thenReturn(rows(
+                new Object[]{1, 4, 1}, new Object[]{2, 0, 0}));
+
+        // Act
+        Map<Integer, SubtaskStats> stats = subtaskService.getSubtaskStats(todoIds);
+
+        // Assert
+        assertEquals(new SubtaskStats(4, 1), stats.get(1));
+        assertEquals(new SubtaskStats(0, 0), stats.get(2));
+        verify(todoRepository, times(1)).findSubtaskCountersByIds(todoIds);
+        verifyNoInteractions(subtaskRepository);
+    }
+
+    @Test
+    @DisplayName("Should attach stats from the todos' own counters without a query")
+    void attachSubtaskStats_UsesCounters() {
+        // Arrange
+        Todo todo = new Todo();
+        todo.setId(1);
+        todo.setSubtaskTotal(3);
+        todo.setSubtaskCompleted(1);
+
+        // Act
+        subtaskService.attachSubtaskStats(List.of(todo));
+
+        // Assert
+        assertEquals(new SubtaskStats(3, 1), todo.getSubtaskStats());
+        verifyNoInteractions(todoRepository, subtaskRepository);
+    }
+
+    @Test
+    @DisplayName("Should increment the completed counter once when a subtask is checked")
+    void updateSubtask_Toggle_AdjustsCompletedCounter() {
+        // Arrange
+        Subtask existing = new Subtask(1, "Step", false, null);
+        existing.setId(10);
+        when(subtaskRepository.findTodoIdById(10)).thenReturn(Optional.of(1));
+        when(subtaskRepository.findByIdForUpdate(10)).thenReturn(Optional.of(existing));
+        when(subtaskRepository.save(any(Subtask.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        Subtask details = new Subtask();
+        details.setIsCompleted(true);
+
+        // Act - the second toggle to the same value is a no-op
+        subtaskService.updateSubtask(10, details);
+        subtaskService.updateSubtask(10, details);
+
+        // Assert
+        verify(todoRepository, times(1)).adjustSubtaskCounters(eq(1), eq(0), eq(1), anyLong());
+    }
+
+    @Test
+    @DisplayName("Should stamp the todo with the owner's new version on a toggle, so the changes feed sends it again")
+    void updateSubtask_Toggle_StampsTodoForChangesFeed() {
+        // Arrange
+        Subtask existing = new Subtask(1, "Step", false, null);
+        existing.setId(10);
+        when(subtaskRepository.findTodoIdById(10)).thenReturn(Optional.of(1));
+        when(subtaskRepository.findByIdForUpdate(10)).thenReturn(Optional.of(existing));
+        when(subtaskRepository.save(any(Subtask.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(dataVersionService.bumpForTodo(1)).thenReturn(8L);
+        Subtask details = new Subtask();
+        details.setIsCompleted(true);
+
+        // Act
+        subtaskService.updateSubtask(10, details);
+
+        // Assert - a poll holding a token below 8 gets the todo (and its new progress) back
+        InOrder inOrder = inOrder(dataVersionService, todoRepository);
+        inOrder.verify(dataVersionService).bumpForTodo(1);
+        inOrder.verify(todoRepository).adjustSubtaskCounters(1, 0, 1, 8L);
+    }
+
+    @Test
+    @DisplayName("Should decrement both counters when a completed subtask is deleted")
+    void deleteSubtask_Completed_DecrementsCounters() {
+        // Arrange
+        Subtask existing = new Subtask(1, "Step", true, null);
+        existing.setId(10);
+        when(subtaskRepository.findTodoIdById(10)).thenReturn(Optional.of(1));
+        when(subtaskRepository.findByIdForUpdate(10)).thenReturn(Optional.of(existing));
+
+        // Act
+        boolean deleted = subtaskService.deleteSubtask(10);
+
+        // Assert
+        assertTrue(deleted);
+        verify(todoRepository).adjustSubtaskCounters(eq(1), eq(-1), eq(-1), anyLong());
+    }
+
+    private static List<Object[]> rows(Object[]... rows) {
+        return new ArrayList<>(Arrays.asList(rows));
+    }
+}
@@ -0,0 +1,187 @@
+package com.todo.service;
+
+import com.todo.repository.AttachmentBlobRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("ThumbnailService Unit Tests")
+class ThumbnailServiceTest {
+
+    private FileStorageService fileStorageService;
+
+    private ThumbnailService thumbnailService;
+
+    @TempDir
+    Path uploadDir;
+
+    @BeforeEach
+    void setUp() {
+        fileStorageService = LocalStorageFixture.wire(spy(new FileStorageService()), uploadDir, mock(AttachmentBlobRepository.class));
+
+        thumbnailService = new ThumbnailService();
+        ReflectionTestUtils.setField(thumbnailService, "fileStorageService", fileStorageService);
+        ReflectionTestUtils.setField(thumbnailService, "threads", 1);
+        ReflectionTestUtils.setField(thumbnailService, "queueCapacity", 10);
+        ReflectionTestUtils.setField(thumbnailService, "requestWaitMs", 5000L);
+        thumbnailService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        thumbnailService.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should scale a large image down to the thumbnail size, keeping its aspect ratio")
+    void ensureThumbnail_LargeImage_WritesScaledJpeg() throws Exception {
+        // Arrange
+        Path original = uploadDir.resolve("photo.png");
+        ImageIO.write(new BufferedImage(1200, 600, BufferedImage.TYPE_INT_ARGB), "png", original.toFile());
+
+        // Act
+        String thumbnail = thumbnailService.ensureThumbnail("photo.png");
+
+        // Assert
+        assertEquals(FileStorageService.thumbnailPath("photo.png"), thumbnail);
+        BufferedImage written = ImageIO.read(uploadDir.resolve(thumbnail).toFile());
+        assertEquals(ThumbnailService.THUMBNAIL_SIZE, written.getWidth());
+        assertEquals(ThumbnailService.THUMBNAIL_SIZE / 2, written.getHeight());
+        assertEquals(1L, thumbnailService.getStats().get("generated"));
+    }
+
+    @Test
+    @DisplayName("Should reuse an existing thumbnail without decoding the original again")
+    void ensureThumbnail_AlreadyExists_ReturnsIt() throws Exception {
+        // Arrange
+        Path existing = uploadDir.resolve(FileStorageService.thumbnailPath("photo.png"));
+        Files.write(existing, new byte[]{1});
+
+        // Act
+        String thumbnail = thumbnailService.ensureThumbnail("photo.png");
+
+        // Assert
+        assertEquals(FileStorageService.thumbnailPath("photo.png"), thumbnail);
+        verify(fileStorageService, never()).openFile(anyString());
+    }
+
+    @Test
+    @DisplayName("Should fail for files that are not decodable images")
+    void ensureThumbnail_NotAnImage_Throws() throws Exception {
+        // Arrange
+        Path original = uploadDir.resolve("notes.png");
+        Files.writeString(original, "not really a png");
+
+        // Act & Assert
+        assertThrows(IOException.class, () -> thumbnailService.ensureThumbnail("notes.png"));
+        assertFalse(Files.exists(uploadDir.resolve(FileStorageService.thumbnailPath("notes.png"))));
+        assertEquals(1L, thumbnailService.getStats().get("failed"));
+        try (var temp = Files.list(uploadDir.resolve("tmp"))) {
+            assertEquals(0, temp.count());
+        }
+    }
+
+    @Test
+    @DisplayName("Should build on-demand thumbnails on the thumbnail pool, not the request thread")
+    void awaitThumbnail_Missing_BuiltOnPool() throws Exception {
+        // Arrange
+        ImageIO.write(new BufferedImage(600, 600, BufferedImage.TYPE_INT_RGB), "png", uploadDir.resolve("photo.png").toFile());
+        AtomicReference<String> decodingThread = new AtomicReference<>();
+        doAnswer(invocation -> {
+            decodingThread.set(Thread.currentThread().getName());
+            return invocation.callRealMethod();
+        }).when(fileStorageService).openFile("photo.png");
+
+        // Act
+        Optional<String> thumbnail = thumbnailService.awaitThumbnail("photo.png");
+
+        // Assert
+        assertEquals(Optional.of(FileStorageService.thumbnailPath("photo.png")), thumbnail);
+        assertTrue(decodingThread.get().startsWith("thumbnail-"));
+        assertEquals(1L, thumbnailService.getStats().get("onDemand"));
+    }
+
+    @Test
+    @DisplayName("Should answer not-ready when the build outlasts the wait, and finish it in the background")
+    void awaitThumbnail_SlowBuild_EmptyThenReady() throws Exception {
+        // Arrange
+        ReflectionTestUtils.setField(thumbnailService, "requestWaitMs", 50L);
+        ImageIO.write(new BufferedImage(600, 600, BufferedImage.TYPE_INT_RGB), "png", uploadDir.resolve("slow.png").toFile());
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await();
+            return invocation.callRealMethod();
+        }).when(fileStorageService).openFile("slow.png");
+
+        // Act
+        Optional<String> first = thumbnailService.awaitThumbnail("slow.png");
+        release.countDown();
+        ReflectionTestUtils.setField(thumbnailService, "requestWaitMs", 5000L);
+        Optional<String> second = thumbnailService.awaitThumbnail("slow.png");
+
+        // Assert
+        assertTrue(first.isEmpty());
+        assertEquals(Optional.of(FileStorageService.thumbnailPath("slow.png")), second);
+        assertEquals(1L, thumbnailService.getStats().get("notReady"));
+    }
+
+    @Test
+    @DisplayName("Should share a running build between requests instead of parking a pool thread on it")
+    void awaitThumbnail_SameFileTwice_LeavesPoolFree() throws Exception {
+        // Arrange - two threads; slow.png's build holds one of them until released
+        thumbnailService.shutdown();
+        ReflectionTestUtils.setField(thumbnailService, "threads", 2);
+        ReflectionTestUtils.setField(thumbnailService, "requestWaitMs", 50L);
+        thumbnailService.init();
+        ImageIO.write(new BufferedImage(600, 600, BufferedImage.TYPE_INT_RGB), "png", uploadDir.resolve("slow.png").toFile());
+        ImageIO.write(new BufferedImage(600, 600, BufferedImage.TYPE_INT_RGB), "png", uploadDir.resolve("other.png").toFile());
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await();
+            return invocation.callRealMethod();
+        }).when(fileStorageService).openFile("slow.png");
+
+        try {
+            // Act - both requests for slow.png time out; the second must not take the other thread
+            Optional<String> first = thumbnailService.awaitThumbnail("slow.png");
+            Optional<String> second = thumbnailService.awaitThumbnail("slow.png");
+            ReflectionTestUtils.setField(thumbnailService, "requestWaitMs", 5000L);
+            Optional<String> other = thumbnailService.awaitThumbnail("other.png");
+
+            // Assert
+            assertTrue(first.isEmpty());
+            assertTrue(second.isEmpty());
+            assertEquals(Optional.of(FileStorageService.thumbnailPath("other.png")), other);
+        } finally {
+            release.countDown();
+        }
+        assertEquals(Optional.of(FileStorageService.thumbnailPath("slow.png")), thumbnailService.awaitThumbnail("slow.png"));
+        verify(fileStorageService, times(1)).openFile("slow.png");
+    }
+
+    @Test
+    @DisplayName("Should only queue thumbnails for image uploads")
+    void scheduleAfterCommit_NonImage_Ignored() {
+        // Act
+        thumbnailService.scheduleAfterCommit("doc.pdf", "application/pdf");
+        thumbnailService.scheduleAfterCommit("doc.bin", null);
+
+        // Assert
+        verify(fileStorageService, never()).fileExists(anyString());
+    }
+}
@@ -0,0 +1,132 @@
+package com.todo.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.todo.entity.Attachment;
+import com.todo.entity.Subtask;
+import com.todo.entity.Todo;
+import com.todo.repository.AttachmentRepository;
+import com.todo.repository.SubtaskRepository;
+import com.todo.repository.TodoRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("TodoExportService Unit Tests")
+class TodoExportServiceTest {
+
+    @Mock
+    private TodoRepository todoRepository;
+
+    @Mock
+    private SubtaskRepository subtaskRepository;
+
+    @Mock
+    private AttachmentRepository attachmentRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @InjectMocks
+    private TodoExportService todoExportService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private Todo todo1;
+    private Todo todo2;
+    private Todo todo3;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(todoExportService, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(todoExportService, "chunkSize", 2);
+
+        todo1 = todo(1, "First");
+        todo2 = todo(2, "Second");
+        todo3 = todo(3, "=HYPERLINK(\"http://evil\")");
+
+        // Chunk size 2: todos 1, 2 form the first chunk and todo 3 the second
+        when(todoRepository.streamByUserId(1)).thenReturn(Stream.of(todo1, todo2, todo3));
+        Subtask step = new Subtask(1, "Step", true, null);
+        Subtask other = new Subtask(3, "Other", false, null);
+        when(subtaskRepository.findByTodoIdInOrderByTodoIdAscPositionAsc(List.of(1, 2))).thenReturn(List.of(step));
+        when(subtaskRepository.findByTodoIdInOrderByTodoIdAscPositionAsc(List.of(3))).thenReturn(List.of(other));
+        Attachment attachment = new Attachment("notes.pdf", "blobs/x", 10L, "application/pdf", 1, todo3, "url");
+        attachment.setId(7);
+        when(attachmentRepository.findByTodo_IdInOrderByCreatedAtDesc(List.of(1, 2))).thenReturn(List.of());
+        when(attachmentRepository.findByTodo_IdInOrderByCreatedAtDesc(List.of(3))).thenReturn(List.of(attachment));
+    }
+
+    @Test
+    @DisplayName("Should write one NDJSON line per todo, joined with the subtasks and attachments of its chunk")
+    void exportTodos_Ndjson_JoinsAcrossChunks() throws Exception {
+        // Arrange
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        todoExportService.exportTodos(1, TodoExportService.FORMAT_NDJSON, out);
+
+        // Assert
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, lines.length);
+        JsonNode first = objectMapper.readTree(lines[0]);
+        JsonNode third = objectMapper.readTree(lines[2]);
+        assertEquals("Step", first.get("subtasks").get(0).get("title").asText());
+        assertEquals("Other", third.get("subtasks").get(0).get("title").asText());
+        assertEquals("notes.pdf", third.get("attachments").get(0).get("fileName").asText());
+        assertEquals(0, objectMapper.readTree(lines[1]).get("subtasks").size());
+        verify(entityManager, times(2)).clear();
+    }
+
+    @Test
+    @DisplayName("Should write a CSV row per todo across chunks and neutralize formula cells")
+    void exportTodos_Csv_JoinsAcrossChunksAndEscapes() throws Exception {
+        // Arrange
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        todoExportService.exportTodos(1, TodoExportService.FORMAT_CSV, out);
+
+        // Assert
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(4, lines.length);
+        assertTrue(lines[0].startsWith("id,title,"));
+        assertTrue(lines[1].startsWith("1,First,,false,"));
+        assertTrue(lines[1].endsWith(",[x] Step,"));
+        assertTrue(lines[3].startsWith("3,\"'=HYPERLINK(\"\"http://evil\"\")\","));
+        assertTrue(lines[3].endsWith(",[ ] Other,notes.pdf"));
+    }
+
+    @Test
+    @DisplayName("Should prefix cells that a spreadsheet would run as formulas")
+    void csvField_FormulaPrefixes_AreNeutralized() {
+        assertEquals("'=1+1", TodoExportService.csvField("=1+1"));
+        assertEquals("'+SUM(A1)", TodoExportService.csvField("+SUM(A1)"));
+        assertEquals("'-2", TodoExportService.csvField("-2"));
+        assertEquals("'@cmd", TodoExportService.csvField("@cmd"));
+        assertEquals("\"'=A1,B1\"", TodoExportService.csvField("=A1,B1"));
+        assertEquals("plain - text", TodoExportService.csvField("plain - text"));
+        assertEquals("", TodoExportService.csvField(null));
+    }
+
+    private static Todo todo(int id, String title) {
+        Todo todo = new Todo();
+        todo.setId(id);
+        todo.setTitle(title);
+        return todo;
+    }
+}
@@ -0,0 +1,71 @@
+package com.todo.service;
+
+import com.todo.entity.Todo;
+import com.todo.entity.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("TodoSearchIndex Unit Tests")
+class TodoSearchIndexTest {
+
+    private TodoSearchIndex searchIndex;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        searchIndex = new TodoSearchIndex();
+
+        user = new User();
+        user.setId(1);
+
+        searchIndex.index(todo(1, "Buy groceries", "milk, bread and eggs"));
+        searchIndex.index(todo(2, "Write report", "quarterly grocery spending"));
+        searchIndex.index(todo(3, "Call plumber", null));
+    }
+
+    @Test
+    @DisplayName("Should match token prefixes and rank title hits above description hits")
+    void search_PrefixMatchesRankedByField() {
+        List<Integer> result = searchIndex.search(1, "groc", 10);
+
+        assertEquals(List.of(1, 2), result);
+    }
+
+    @Test
+    @DisplayName("Should require every query term to match")
+    void search_AllTermsMustMatch() {
+        assertEquals(List.of(1), searchIndex.search(1, "buy MILK", 10));
+        assertTrue(searchIndex.search(1, "buy plumber", 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should drop removed and replaced terms")
+    void search_AfterUpdateAndRemove() {
+        searchIndex.index(todo(3, "Call electrician", null));
+        searchIndex.remove(1, 1);
+
+        assertTrue(searchIndex.search(1, "plumber", 10).isEmpty());
+        assertEquals(List.of(3), searchIndex.search(1, "electrician", 10));
+        assertEquals(List.of(2), searchIndex.search(1, "grocer", 10));
+    }
+
+    @Test
+    @DisplayName("Should not return another user's todos")
+    void search_IsScopedPerUser() {
+        assertTrue(searchIndex.search(2, "groceries", 10).isEmpty());
+    }
+
+    private Todo todo(Integer id, String title, String description) {
+        Todo todo = new Todo();
+        todo.setId(id);
+        todo.setTitle(title);
+        todo.setDescription(description);
+        todo.setUser(user);
+        return todo;
+    }
+}
@@ -0,0 +1,91 @@
+package com.todo.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("TodoSequenceService Unit Tests")
+class TodoSequenceServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private TodoSequenceService todoSequenceService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(todoSequenceService, "seedOnStartup", true);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                ((TransactionCallback<?>) invocation.getArgument(0)).doInTransaction(null));
+        when(jdbcTemplate.queryForObject(TodoSequenceService.MAX_ID_SQL, Long.class)).thenReturn(120L);
+    }
+
+    @Test
+    @DisplayName("Should move a sequence created at 1 past the existing todo ids")
+    void alignWithExistingIds_SequenceBehind_SeedsFromMaxId() {
+        // Arrange - Hibernate created todo_seq itself
+        when(jdbcTemplate.queryForList(TodoSequenceService.LOCK_SEQUENCE_SQL, Long.class)).thenReturn(List.of(1L));
+
+        // Act
+        todoSequenceService.alignWithExistingIds();
+
+        // Assert
+        verify(jdbcTemplate).update(TodoSequenceService.UPDATE_SEQUENCE_SQL, 120L + TodoSequenceService.ALLOCATION_SIZE + 1);
+    }
+
+    @Test
+    @DisplayName("Should insert the sequence row when the table is empty")
+    void alignWithExistingIds_NoRow_InsertsSeededRow() {
+        // Arrange
+        when(jdbcTemplate.queryForList(TodoSequenceService.LOCK_SEQUENCE_SQL, Long.class)).thenReturn(List.of());
+
+        // Act
+        todoSequenceService.alignWithExistingIds();
+
+        // Assert
+        verify(jdbcTemplate).update(TodoSequenceService.INSERT_SEQUENCE_SQL, 120L + TodoSequenceService.ALLOCATION_SIZE + 1);
+    }
+
+    @Test
+    @DisplayName("Should leave a sequence that is already ahead untouched")
+    void alignWithExistingIds_SequenceAhead_NoUpdate() {
+        // Arrange
+        when(jdbcTemplate.queryForList(TodoSequenceService.LOCK_SEQUENCE_SQL, Long.class)).thenReturn(List.of(500L));
+
+        // Act
+        todoSequenceService.alignWithExistingIds();
+
+        // Assert
+        verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
+    }
+
+    @Test
+    @DisplayName("Should refuse to start when seeding is off and the sequence is behind")
+    void alignWithExistingIds_SeedingOff_FailsFast() {
+        // Arrange
+        ReflectionTestUtils.setField(todoSequenceService, "seedOnStartup", false);
+        when(jdbcTemplate.queryForList(TodoSequenceService.LOCK_SEQUENCE_SQL, Long.class)).thenReturn(List.of(1L));
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> todoSequenceService.alignWithExistingIds());
+        verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
+    }
+}
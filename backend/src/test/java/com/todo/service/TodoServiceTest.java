@@ -1,19 +1,34 @@
 package com.todo.service;
 
+import com.todo.dto.TodoBatchOperation;
+import com.todo.dto.TodoBatchResult;
+import com.todo.dto.TodoCursor;
+import com.todo.dto.TodoPageResponse;
 import com.todo.entity.Todo;
+import com.todo.entity.TodoDeletion;
+import com.todo.entity.User;
+import com.todo.repository.TodoDeletionRepository;
 import com.todo.repository.TodoRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.LocalDateTime;
+
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 @DisplayName("TodoService Unit Tests")
@@ -22,6 +37,21 @@ class TodoServiceTest {
     @Mock
     private TodoRepository todoRepository;
 
+    @Mock
+    private TodoDeletionRepository todoDeletionRepository;
+
+    @Mock
+    private TodoSearchIndex searchIndex;
+
+    @Mock
+    private GoogleCalendarService calendarService;
+
+    @Mock
+    private DataVersionService dataVersionService;
+
+    @Mock
+    private OwnershipResolver ownershipResolver;
+
     @InjectMocks
     private TodoService todoService;
 
@@ -79,6 +109,7 @@ class TodoServiceTest {
     void deleteTodo_WhenExists_ShouldReturnTrue() {
         // Arrange
         when(todoRepository.existsById(1)).thenReturn(true);
+        when(todoRepository.findById(1)).thenReturn(Optional.of(todo1));
         doNothing().when(todoRepository).deleteById(1);
 
         // Act
@@ -89,4 +120,182 @@ class TodoServiceTest {
         verify(todoRepository, times(1)).existsById(1);
         verify(todoRepository, times(1)).deleteById(1);
     }
+
+    @Test
+    @DisplayName("Should return a keyset page with a continuation cursor when more rows exist")
+    void getTodosPage_WhenMoreRows_ReturnsCursor() {
+        // Arrange
+        todo1.setCreatedAt(LocalDateTime.of(2025, 1, 1, 10, 0));
+        todo2.setCreatedAt(LocalDateTime.of(2025, 1, 2, 10, 0));
+        Todo todo3 = new Todo();
+        todo3.setId(3);
+        todo3.setCreatedAt(LocalDateTime.of(2025, 1, 3, 10, 0));
+        when(todoRepository.findFirstPageByUserId(eq(1), any(Pageable.class)))
+                .thenReturn(List.of(todo1, todo2, todo3));
+
+        // Act
+        TodoPageResponse page = todoService.getTodosPage(1, null, null, 2);
+
+        // Assert
+        assertEquals(2, page.getItems().size());
+        assertTrue(page.isHasMore());
+        TodoCursor cursor = TodoCursor.decode(page.getNextCursor());
+        assertEquals(todo2.getCreatedAt(), cursor.getCreatedAt());
+        assertEquals(2, cursor.getId());
+    }
+
+    @Test
+    @DisplayName("Should return search hits in index relevance order")
+    void searchTodos_ReturnsTodosInRankedOrder() {
+        // Arrange
+        when(searchIndex.isReady()).thenReturn(true);
+        when(searchIndex.search(1, "todo", 10)).thenReturn(List.of(2, 1));
+        when(todoRepository.findAllById(List.of(2, 1))).thenReturn(List.of(todo1, todo2));
+
+        // Act
+        List<Todo> result = todoService.searchTodos(1, "todo", 10);
+
+        // Assert
+        assertEquals(List.of(todo2, todo1), result);
+    }
+
+    @Test
+    @DisplayName("Should page search results with a rank cursor that the next request continues from")
+    void getTodosPage_Search_ReturnsRankCursor() {
+        // Arrange - ranking 2, 1, 3
+        Todo todo3 = new Todo();
+        todo3.setId(3);
+        when(searchIndex.isReady()).thenReturn(true);
+        when(searchIndex.search(eq(1), eq("todo"), anyInt())).thenAnswer(invocation ->
+                List.of(2, 1, 3).subList(0, Math.min(3, invocation.<Integer>getArgument(2))));
+        when(todoRepository.findAllById(any())).thenAnswer(invocation -> {
+            List<Todo> found = new ArrayList<>();
+            for (Integer id : invocation.<Iterable<Integer>>getArgument(0)) {
+                found.add(id == 1 ? todo1 : id == 2 ? todo2 : todo3);
+            }
+            return found;
+        });
+
+        // Act
+        TodoPageResponse first = todoService.getTodosPage(1, "todo", null, 2);
+        TodoPageResponse second = todoService.getTodosPage(1, "todo", first.getNextCursor(), 2);
+
+        // Assert
+        assertEquals(List.of(todo2, todo1), first.getItems());
+        assertTrue(first.isHasMore());
+        assertNotNull(first.getNextCursor());
+        assertEquals(List.of(todo3), second.getItems());
+        assertFalse(second.isHasMore());
+        assertNull(second.getNextCursor());
+        assertThrows(IllegalArgumentException.class, () -> todoService.getTodosPage(1, "todo",
+                new TodoCursor(LocalDateTime.now(), 1).encode(), 2));
+    }
+
+    @Test
+    @DisplayName("Should report each batch operation's result individually")
+    void applyBatch_ReportsPerOperationStatus() {
+        // Arrange
+        User owner = new User();
+        owner.setId(1);
+        User other = new User();
+        other.setId(2);
+        todo1.setUser(owner);
+        todo2.setUser(other);
+
+        Todo newTodo = new Todo();
+        newTodo.setTitle("Offline todo");
+        Todo rename = new Todo();
+        rename.setTitle("Renamed");
+
+        when(todoRepository.findAllById(anyCollection())).thenReturn(List.of(todo1, todo2));
+        when(dataVersionService.bumpForUser(1)).thenReturn(7L);
+
+        List<TodoBatchOperation> operations = List.of(
+                new TodoBatchOperation(TodoBatchOperation.Type.CREATE, null, newTodo),
+                new TodoBatchOperation(TodoBatchOperation.Type.UPDATE, 1, rename),
+                new TodoBatchOperation(TodoBatchOperation.Type.DELETE, 2, null),
+                new TodoBatchOperation(TodoBatchOperation.Type.DELETE, 99, null)
+        );
+
+        // Act
+        List<TodoBatchResult> results = todoService.applyBatch(owner, operations);
+
+        // Assert
+        assertEquals(List.of(201, 200, 403, 404), results.stream().map(TodoBatchResult::getStatus).toList());
+        assertEquals("Renamed", todo1.getTitle());
+        assertSame(owner, newTodo.getUser());
+        verify(todoRepository, times(1)).findAllById(anyCollection());
+        verify(todoRepository).saveAll(List.of(newTodo));
+        verify(todoRepository).deleteAll(List.of());
+        verify(dataVersionService, times(1)).bumpForUser(1);
+        assertEquals(7L, newTodo.getChangeVersion());
+        assertEquals(7L, todo1.getChangeVersion());
+    }
+
+    @Test
+    @DisplayName("Should keep syncing the rest of a batch when one todo fails to reach the calendar")
+    void applyBatch_CalendarFailure_SyncsRemainingTodos() {
+        // Arrange
+        User owner = new User();
+        owner.setId(1);
+        Todo first = new Todo();
+        first.setTitle("First offline todo");
+        Todo second = new Todo();
+        second.setTitle("Second offline todo");
+        when(calendarService.isCalendarConnected(1)).thenReturn(true);
+        doThrow(new RuntimeException("Calendar API down")).when(calendarService).syncTodoToCalendar(first, 1);
+
+        // Act
+        List<TodoBatchResult> results = todoService.applyBatch(owner, List.of(
+                new TodoBatchOperation(TodoBatchOperation.Type.CREATE, null, first),
+                new TodoBatchOperation(TodoBatchOperation.Type.CREATE, null, second)));
+
+        // Assert
+        assertEquals(List.of(201, 201), results.stream().map(TodoBatchResult::getStatus).toList());
+        verify(calendarService).syncTodoToCalendar(first, 1);
+        verify(calendarService).syncTodoToCalendar(second, 1);
+    }
+
+    @Test
+    @DisplayName("Should call Google Calendar only after the todo's transaction has committed")
+    void createTodo_CalendarSyncRunsAfterCommit() {
+        // Arrange
+        User owner = new User();
+        owner.setId(1);
+        todo1.setUser(owner);
+        when(todoRepository.save(todo1)).thenReturn(todo1);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // Act
+            todoService.createTodo(todo1);
+
+            // Assert - nothing external while the users row is still locked
+            verifyNoInteractions(calendarService);
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            verify(calendarService).syncTodoToCalendar(todo1, 1);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("Should stamp the tombstone of a deleted todo with the owner's new data version")
+    void deleteTodo_StampsTombstoneWithVersion() {
+        // Arrange
+        User owner = new User();
+        owner.setId(1);
+        todo1.setUser(owner);
+        when(todoRepository.existsById(1)).thenReturn(true);
+        when(todoRepository.findById(1)).thenReturn(Optional.of(todo1));
+        when(dataVersionService.bumpForUser(1)).thenReturn(12L);
+
+        // Act
+        todoService.deleteTodo(1);
+
+        // Assert
+        ArgumentCaptor<TodoDeletion> tombstone = ArgumentCaptor.forClass(TodoDeletion.class);
+        verify(todoDeletionRepository).save(tombstone.capture());
+        assertEquals(1, tombstone.getValue().getTodoId());
+        assertEquals(12L, tombstone.getValue().getChangeVersion());
+    }
 }
@@ -0,0 +1,136 @@
+package com.todo.service;
+
+import com.todo.dto.TodoChangesResponse;
+import com.todo.entity.Todo;
+import com.todo.repository.TodoDeletionRepository;
+import com.todo.repository.TodoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("TodoSyncService Unit Tests")
+class TodoSyncServiceTest {
+
+    @Mock
+    private TodoRepository todoRepository;
+
+    @Mock
+    private TodoDeletionRepository todoDeletionRepository;
+
+    @Mock
+    private DataVersionService dataVersionService;
+
+    @InjectMocks
+    private TodoSyncService todoSyncService;
+
+    private Todo todo;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(todoSyncService, "tombstoneRetentionDays", 30);
+        todo = new Todo();
+        todo.setId(5);
+        todo.setTitle("Synced");
+    }
+
+    @Test
+    @DisplayName("Should round-trip the version and issue time through the token")
+    void encodeToken_DecodeToken_RoundTrip() {
+        // Arrange
+        LocalDateTime issuedAt = LocalDateTime.of(2026, 3, 1, 12, 30, 15);
+
+        // Act
+        TodoSyncService.SyncToken decoded = TodoSyncService.decodeToken(TodoSyncService.encodeToken(42L, issuedAt));
+
+        // Assert
+        assertEquals(42L, decoded.version());
+        assertEquals(issuedAt, decoded.issuedAt());
+    }
+
+    @Test
+    @DisplayName("Should return everything with reset and a token at the current version when no token is given")
+    void getChangesSince_NoToken_ResetsAtCurrentVersion() {
+        // Arrange
+        when(dataVersionService.currentVersion(1)).thenReturn(9L);
+        when(todoRepository.findTodosByUserIdIs(1)).thenReturn(List.of(todo));
+
+        // Act
+        TodoChangesResponse response = todoSyncService.getChangesSince(1, null);
+
+        // Assert
+        assertTrue(response.isReset());
+        assertEquals(List.of(todo), response.getChanged());
+        assertEquals(9L, TodoSyncService.decodeToken(response.getNextToken()).version());
+        verify(todoRepository, never()).findChangedBetween(anyInt(), anyLong(), anyLong());
+    }
+
+    @Test
+    @DisplayName("Should return rows and tombstones written after the token's version, up to the current one")
+    void getChangesSince_ValidToken_ReturnsChangesAndTombstones() {
+        // Arrange
+        when(dataVersionService.currentVersion(1)).thenReturn(12L);
+        when(todoRepository.findChangedBetween(1, 9L, 12L)).thenReturn(List.of(todo));
+        when(todoDeletionRepository.findDeletedTodoIdsBetween(1, 9L, 12L)).thenReturn(List.of(3, 4));
+        String token = TodoSyncService.encodeToken(9L, LocalDateTime.now().minusMinutes(5));
+
+        // Act
+        TodoChangesResponse response = todoSyncService.getChangesSince(1, token);
+
+        // Assert
+        assertFalse(response.isReset());
+        assertEquals(List.of(todo), response.getChanged());
+        assertEquals(List.of(3, 4), response.getDeleted());
+        assertEquals(12L, TodoSyncService.decodeToken(response.getNextToken()).version());
+    }
+
+    @Test
+    @DisplayName("Should reset when the token is older than the tombstone retention")
+    void getChangesSince_ExpiredToken_Resets() {
+        // Arrange
+        when(dataVersionService.currentVersion(1)).thenReturn(12L);
+        when(todoRepository.findTodosByUserIdIs(1)).thenReturn(List.of(todo));
+        String token = TodoSyncService.encodeToken(9L, LocalDateTime.now().minusDays(31));
+
+        // Act
+        TodoChangesResponse response = todoSyncService.getChangesSince(1, token);
+
+        // Assert
+        assertTrue(response.isReset());
+        verify(todoDeletionRepository, never()).findDeletedTodoIdsBetween(anyInt(), anyLong(), anyLong());
+    }
+
+    @Test
+    @DisplayName("Should reset clients still holding a timestamp token")
+    void getChangesSince_LegacyToken_Resets() {
+        // Arrange
+        when(dataVersionService.currentVersion(1)).thenReturn(12L);
+        String legacy = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(LocalDateTime.now().toString().getBytes(StandardCharsets.UTF_8));
+
+        // Act
+        TodoChangesResponse response = todoSyncService.getChangesSince(1, legacy);
+
+        // Assert
+        assertTrue(response.isReset());
+    }
+
+    @Test
+    @DisplayName("Should reject a token that is not one of ours")
+    void getChangesSince_GarbageToken_Throws() {
+        assertThrows(IllegalArgumentException.class, () -> todoSyncService.getChangesSince(1, "not-a-token"));
+    }
+}
@@ -0,0 +1,218 @@
+package com.todo.service;
+
+import com.todo.dto.UploadSessionDTO;
+import com.todo.dto.UploadSessionRequest;
+import com.todo.repository.AttachmentBlobRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("UploadSessionService Unit Tests")
+class UploadSessionServiceTest {
+
+    private static final byte[] CONTENT = "0123456789abcdefXYZ".getBytes(StandardCharsets.UTF_8);
+
+    private FileStorageService fileStorageService;
+
+    private UploadSessionService uploadSessionService;
+
+    @TempDir
+    Path uploadDir;
+
+    @BeforeEach
+    void setUp() {
+        fileStorageService = LocalStorageFixture.wire(spy(new FileStorageService()), uploadDir, mock(AttachmentBlobRepository.class));
+
+        uploadSessionService = new UploadSessionService();
+        ReflectionTestUtils.setField(uploadSessionService, "fileStorageService", fileStorageService);
+        ReflectionTestUtils.setField(uploadSessionService, "maxFileSize", 1024L);
+        ReflectionTestUtils.setField(uploadSessionService, "chunkSize", 8L);
+        ReflectionTestUtils.setField(uploadSessionService, "sessionTtlMinutes", 60L);
+        ReflectionTestUtils.setField(uploadSessionService, "maxSessionsPerUser", 2);
+        uploadSessionService.init();
+    }
+
+    @Test
+    @DisplayName("Should assemble chunks sent out of order and checksum them as they arrive")
+    void writeChunk_OutOfOrder_CompletesWithWholeFileHash() throws Exception {
+        // Arrange
+        UploadSessionDTO session = uploadSessionService.initiate(1, request(sha256(CONTENT)), 1);
+        assertEquals(List.of(0, 1, 2), session.getMissingChunks());
+
+        // Act - last (short) chunk first, then the rest
+        chunk(session, 16, null);
+        chunk(session, 0, null);
+        UploadSessionDTO status = chunk(session, 8, null);
+        UploadSessionService.CompletedUpload upload = uploadSessionService.finish(session.getUploadId(), 1);
+
+        // Assert
+        assertEquals(CONTENT.length, status.getReceivedBytes());
+        assertTrue(status.getMissingChunks().isEmpty());
+        assertEquals(sha256(CONTENT), upload.sha256());
+        assertArrayEquals(CONTENT, Files.readAllBytes(upload.file()));
+        assertEquals("notes.txt", upload.fileName());
+    }
+
+    @Test
+    @DisplayName("Should acknowledge a re-sent chunk without writing it again")
+    void writeChunk_AlreadyReceived_Acknowledged() throws Exception {
+        // Arrange
+        UploadSessionDTO session = uploadSessionService.initiate(1, request(null), 1);
+        chunk(session, 0, null);
+
+        // Act - a retry after a lost response, even with different bytes, leaves the stored chunk alone
+        UploadSessionDTO status = uploadSessionService.writeChunk(session.getUploadId(), 1, 0, 8, null,
+                new ByteArrayInputStream("XXXXXXXX".getBytes(StandardCharsets.UTF_8)));
+
+        // Assert
+        assertEquals(List.of(1, 2), status.getMissingChunks());
+        chunk(session, 8, null);
+        chunk(session, 16, null);
+        assertEquals(sha256(CONTENT), uploadSessionService.finish(session.getUploadId(), 1).sha256());
+    }
+
+    @Test
+    @DisplayName("Should reject a chunk whose checksum does not match and keep it missing")
+    void writeChunk_ChecksumMismatch_Rejected() throws Exception {
+        // Arrange
+        UploadSessionDTO session = uploadSessionService.initiate(1, request(null), 1);
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> chunk(session, 0, sha256("other".getBytes(StandardCharsets.UTF_8))));
+        assertEquals(List.of(0, 1, 2), uploadSessionService.getStatus(session.getUploadId(), 1).getMissingChunks());
+        UploadSessionDTO status = chunk(session, 0, sha256(slice(0)));
+        assertEquals(List.of(1, 2), status.getMissingChunks());
+    }
+
+    @Test
+    @DisplayName("Should reject misaligned offsets and wrong chunk lengths")
+    void writeChunk_BadOffsetOrLength_Rejected() throws Exception {
+        UploadSessionDTO session = uploadSessionService.initiate(1, request(null), 1);
+
+        assertThrows(IllegalArgumentException.class, () -> uploadSessionService.writeChunk(session.getUploadId(), 1, 3, 8, null,
+                new ByteArrayInputStream(slice(0))));
+        assertThrows(IllegalArgumentException.class, () -> uploadSessionService.writeChunk(session.getUploadId(), 1, 8, -1, null,
+                new ByteArrayInputStream("short".getBytes(StandardCharsets.UTF_8))));
+    }
+
+    @Test
+    @DisplayName("Should not complete while chunks are missing")
+    void finish_MissingChunks_Throws() throws Exception {
+        UploadSessionDTO session = uploadSessionService.initiate(1, request(null), 1);
+        chunk(session, 0, null);
+
+        assertThrows(IllegalStateException.class, () -> uploadSessionService.finish(session.getUploadId(), 1));
+    }
+
+    @Test
+    @DisplayName("Should drop the session when the file does not match the declared sha256")
+    void finish_WholeFileMismatch_Discards() throws Exception {
+        // Arrange
+        UploadSessionDTO session = uploadSessionService.initiate(1, request("0".repeat(64)), 1);
+        chunk(session, 0, null);
+        chunk(session, 8, null);
+        chunk(session, 16, null);
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> uploadSessionService.finish(session.getUploadId(), 1));
+        assertThrows(NoSuchElementException.class, () -> uploadSessionService.getStatus(session.getUploadId(), 1));
+    }
+
+    @Test
+    @DisplayName("Should hide sessions from other users and cap open sessions per user")
+    void initiate_OtherUserAndLimit() throws Exception {
+        UploadSessionDTO session = uploadSessionService.initiate(1, request(null), 1);
+        uploadSessionService.initiate(1, request(null), 1);
+
+        assertThrows(NoSuchElementException.class, () -> uploadSessionService.getStatus(session.getUploadId(), 2));
+        assertThrows(IllegalArgumentException.class, () -> uploadSessionService.initiate(1, request(null), 1));
+    }
+
+    @Test
+    @DisplayName("Should remove idle sessions and their staging files")
+    void expireSessions_Idle_Removed() throws Exception {
+        // Arrange
+        UploadSessionDTO session = uploadSessionService.initiate(1, request(null), 1);
+        ReflectionTestUtils.setField(uploadSessionService, "sessionTtlMinutes", -1L);
+
+        // Act
+        uploadSessionService.expireSessions();
+
+        // Assert
+        assertThrows(NoSuchElementException.class, () -> uploadSessionService.getStatus(session.getUploadId(), 1));
+        try (var temp = Files.list(uploadDir.resolve("tmp"))) {
+            assertEquals(0, temp.count());
+        }
+        assertEquals(1L, uploadSessionService.getStats().get("expired"));
+    }
+
+    @Test
+    @DisplayName("Should count open sessions against free space, since staging files are sparse")
+    void initiate_SpaceReservedByOtherSessions_Rejected() throws Exception {
+        // Arrange - open sessions already claim all but 10 bytes of the disk
+        long usable = Files.getFileStore(uploadDir).getUsableSpace();
+        AtomicLong reserved = (AtomicLong) ReflectionTestUtils.getField(uploadSessionService, "reservedBytes");
+        reserved.set(usable - 10);
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> uploadSessionService.initiate(1, request(null), 1));
+        assertEquals(usable - 10, uploadSessionService.getStats().get("reservedBytes"));
+
+        reserved.set(0);
+        UploadSessionDTO session = uploadSessionService.initiate(1, request(null), 1);
+        assertEquals((long) CONTENT.length, uploadSessionService.getStats().get("reservedBytes"));
+        uploadSessionService.abort(session.getUploadId(), 1);
+        assertEquals(0L, uploadSessionService.getStats().get("reservedBytes"));
+    }
+
+    @Test
+    @DisplayName("Should refuse sessions on remote storage unless requests are routed to one node")
+    void initiate_RemoteStorageWithoutStickyRouting_Unsupported() throws Exception {
+        // Arrange
+        doReturn(false).when(fileStorageService).isLocalStorage();
+
+        // Act & Assert
+        assertThrows(UnsupportedOperationException.class, () -> uploadSessionService.initiate(1, request(null), 1));
+        ReflectionTestUtils.setField(uploadSessionService, "stickyRouting", true);
+        assertNotNull(uploadSessionService.initiate(1, request(null), 1).getUploadId());
+    }
+
+    private UploadSessionDTO chunk(UploadSessionDTO session, int offset, String chunkSha256) throws Exception {
+        byte[] bytes = slice(offset);
+        return uploadSessionService.writeChunk(session.getUploadId(), 1, offset, bytes.length, chunkSha256,
+                new ByteArrayInputStream(bytes));
+    }
+
+    private static byte[] slice(int offset) {
+        return Arrays.copyOfRange(CONTENT, offset, Math.min(offset + 8, CONTENT.length));
+    }
+
+    private static UploadSessionRequest request(String sha256) {
+        UploadSessionRequest request = new UploadSessionRequest();
+        request.setFileName("notes.txt");
+        request.setFileSize((long) CONTENT.length);
+        request.setContentType("text/plain");
+        request.setSha256(sha256);
+        return request;
+    }
+
+    private static String sha256(byte[] bytes) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+    }
+}
@@ -0,0 +1,133 @@
+package com.todo.service;
+
+import com.todo.dto.UserDTO;
+import com.todo.entity.Role;
+import com.todo.entity.User;
+import com.todo.repository.TodoRepository;
+import com.todo.repository.UserRepository;
+import com.todo.security.AuthenticatedUser;
+import com.todo.security.PrincipalCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("UserService Unit Tests")
+class UserServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private TodoRepository todoRepository;
+
+    @Mock
+    private PrincipalCache principalCache;
+
+    @InjectMocks
+    private UserService userService;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+
+        user = new User();
+        user.setId(1);
+        user.setUsername("user1");
+        user.setEmail("user1@test.com");
+        user.setRole(Role.USER);
+        user.setIsActive(true);
+    }
+
+    @Test
+    @DisplayName("Should list users from a single grouped projection query")
+    void getAllUsers_UsesProjectionQuery() {
+        // Arrange
+        UserDTO dto = new UserDTO(1, "user1", "user1@test.com", Role.USER, true, LocalDateTime.now(), 3L, null);
+        when(userRepository.findAllWithTodoCounts()).thenReturn(List.of(dto));
+
+        // Act
+        List<UserDTO> result = userService.getAllUsers();
+
+        // Assert
+        assertEquals(1, result.size());
+        assertEquals("USER", result.get(0).getRole());
+        assertEquals(3, result.get(0).getTodoCount());
+        verify(userRepository, never()).findAll();
+        verifyNoInteractions(todoRepository);
+    }
+
+    @Test
+    @DisplayName("Should count a single user's todos without loading them")
+    void getUserById_CountsTodos() {
+        // Arrange
+        when(userRepository.findById(1)).thenReturn(Optional.of(user));
+        when(todoRepository.countByUserId(1)).thenReturn(5L);
+
+        // Act
+        Optional<UserDTO> result = userService.getUserById(1);
+
+        // Assert
+        assertTrue(result.isPresent());
+        assertEquals(5, result.get().getTodoCount());
+        verify(todoRepository, never()).findAll();
+    }
+
+    @Test
+    @DisplayName("Should resolve a cached principal without querying the users table")
+    void getUserByUsername_CachedPrincipal_UsesReference() {
+        // Arrange
+        when(principalCache.get("user1")).thenReturn(new AuthenticatedUser(1, "user1", Role.USER, true));
+        when(userRepository.getReferenceById(1)).thenReturn(user);
+
+        // Act
+        Optional<User> result = userService.getUserByUsername("user1");
+
+        // Assert
+        assertTrue(result.isPresent());
+        assertEquals(1, result.get().getId());
+        verify(userRepository, never()).findByUsername(anyString());
+    }
+
+    @Test
+    @DisplayName("Should invalidate the cached principal when the role changes")
+    void updateRole_InvalidatesPrincipal() {
+        // Arrange
+        when(userRepository.findById(1)).thenReturn(Optional.of(user));
+        when(userRepository.save(user)).thenReturn(user);
+
+        // Act
+        Optional<UserDTO> result = userService.updateRole(1, Role.ADMIN);
+
+        // Assert
+        assertTrue(result.isPresent());
+        assertEquals(Role.ADMIN, user.getRole());
+        verify(principalCache).invalidateUser(1);
+    }
+
+    @Test
+    @DisplayName("Should invalidate the cached principal when the user is deleted")
+    void deleteUser_InvalidatesPrincipal() {
+        // Arrange
+        when(userRepository.existsById(1)).thenReturn(true);
+
+        // Act
+        boolean deleted = userService.deleteUser(1);
+
+        // Assert
+        assertTrue(deleted);
+        verify(userRepository).deleteById(1);
+        verify(principalCache).invalidateUser(1);
+    }
+}
@@ -0,0 +1,356 @@
+package com.todo.storage;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("S3StorageBackend Unit Tests")
+class S3StorageBackendTest {
+
+    private static final String BUCKET = "attachments";
+
+    private FakeS3 fakeS3;
+    private S3StorageBackend storageBackend;
+
+    @TempDir
+    Path stagingDir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        fakeS3 = new FakeS3();
+        storageBackend = new S3StorageBackend();
+        ReflectionTestUtils.setField(storageBackend, "endpoint", "http://localhost:" + fakeS3.port());
+        ReflectionTestUtils.setField(storageBackend, "region", "us-east-1");
+        ReflectionTestUtils.setField(storageBackend, "bucket", BUCKET);
+        ReflectionTestUtils.setField(storageBackend, "accessKey", "minio");
+        ReflectionTestUtils.setField(storageBackend, "secretKey", "minio-secret");
+        ReflectionTestUtils.setField(storageBackend, "createBucket", true);
+        ReflectionTestUtils.setField(storageBackend, "partSize", S3StorageBackend.MIN_PART_SIZE);
+        ReflectionTestUtils.setField(storageBackend, "uploadThreads", 3);
+        ReflectionTestUtils.setField(storageBackend, "maxConnections", 4);
+        ReflectionTestUtils.setField(storageBackend, "maxStreams", 4);
+        ReflectionTestUtils.setField(storageBackend, "streamWaitMs", 100L);
+        ReflectionTestUtils.setField(storageBackend, "connectTimeoutMs", 2000L);
+        ReflectionTestUtils.setField(storageBackend, "requestTimeoutMs", 10000L);
+        storageBackend.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        storageBackend.shutdown();
+        fakeS3.stop();
+    }
+
+    @Test
+    @DisplayName("Should store a small file with one PUT and read it back")
+    void put_SmallFile_SinglePut() throws Exception {
+        // Arrange
+        Path staged = Files.writeString(stagingDir.resolve("small.part"), "hello attachments");
+
+        // Act
+        storageBackend.put("blobs/ab/cd/small", staged);
+
+        // Assert
+        assertTrue(fakeS3.bucketCreated);
+        assertTrue(storageBackend.exists("blobs/ab/cd/small"));
+        assertEquals(17, storageBackend.size("blobs/ab/cd/small"));
+        try (InputStream in = storageBackend.open("blobs/ab/cd/small")) {
+            assertEquals("hello attachments", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        assertEquals(0, fakeS3.partsReceived.get());
+    }
+
+    @Test
+    @DisplayName("Should upload a large file as parallel multipart parts and assemble it in order")
+    void put_LargeFile_MultipartUpload() throws Exception {
+        // Arrange - 2 full parts and a short last one
+        byte[] content = new byte[(int) (S3StorageBackend.MIN_PART_SIZE * 2 + 1234)];
+        new Random(42).nextBytes(content);
+        Path staged = Files.write(stagingDir.resolve("large.part"), content);
+
+        // Act
+        storageBackend.put("blobs/ef/01/large", staged);
+
+        // Assert
+        assertEquals(3, fakeS3.partsReceived.get());
+        assertArrayEquals(content, fakeS3.objects.get("blobs/ef/01/large"));
+        assertEquals(1L, storageBackend.getStats().get("multipartUploads"));
+        try (InputStream in = storageBackend.openRange("blobs/ef/01/large", 100, 199)) {
+            assertArrayEquals(Arrays.copyOfRange(content, 100, 200), in.readAllBytes());
+        }
+    }
+
+    @Test
+    @DisplayName("Should skip the upload when the key already exists")
+    void put_ExistingKey_NotUploadedAgain() throws Exception {
+        // Arrange
+        fakeS3.objects.put("blobs/ab/cd/same", "stored".getBytes(StandardCharsets.UTF_8));
+        Path staged = Files.writeString(stagingDir.resolve("same.part"), "stored");
+        int requestsBefore = fakeS3.puts.get();
+
+        // Act
+        storageBackend.put("blobs/ab/cd/same", staged);
+
+        // Assert
+        assertEquals(requestsBefore, fakeS3.puts.get());
+    }
+
+    @Test
+    @DisplayName("Should copy server-side and delete objects")
+    void copyAndDelete_ServerSide() throws Exception {
+        // Arrange
+        fakeS3.objects.put("blobs/old", "content".getBytes(StandardCharsets.UTF_8));
+
+        // Act
+        storageBackend.copy("blobs/old", "blobs/ne/w0/new");
+        boolean deleted = storageBackend.delete("blobs/old");
+
+        // Assert
+        assertTrue(deleted);
+        assertArrayEquals("content".getBytes(StandardCharsets.UTF_8), fakeS3.objects.get("blobs/ne/w0/new"));
+        assertFalse(storageBackend.exists("blobs/old"));
+        assertTrue(storageBackend.localPath("blobs/ne/w0/new").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should report missing keys as NoSuchFileException and release the connection")
+    void open_MissingKey_Throws() {
+        assertThrows(NoSuchFileException.class, () -> storageBackend.open("blobs/missing"));
+        assertThrows(NoSuchFileException.class, () -> storageBackend.size("blobs/missing"));
+        assertEquals(0, storageBackend.getStats().get("connectionsInUse"));
+        assertEquals(0, storageBackend.getStats().get("streamsOpen"));
+    }
+
+    @Test
+    @DisplayName("Should keep uploads going while every download stream is held open, and reject extra streams")
+    void open_StreamsExhausted_PutStillCompletes() throws Exception {
+        // Arrange - more slow readers than there are connection permits
+        fakeS3.objects.put("blobs/ab/cd/shared", "download me".getBytes(StandardCharsets.UTF_8));
+        List<InputStream> open = new ArrayList<>();
+        try {
+            for (int i = 0; i < 4; i++) {
+                open.add(storageBackend.open("blobs/ab/cd/shared"));
+            }
+            Path staged = Files.writeString(stagingDir.resolve("other.part"), "uploaded meanwhile");
+
+            // Act
+            assertTimeoutPreemptively(Duration.ofSeconds(5), () -> storageBackend.put("blobs/ef/gh/other", staged));
+
+            // Assert
+            assertArrayEquals("uploaded meanwhile".getBytes(StandardCharsets.UTF_8), fakeS3.objects.get("blobs/ef/gh/other"));
+            assertThrows(StorageBusyException.class, () -> storageBackend.open("blobs/ab/cd/shared"));
+            assertEquals(4, storageBackend.getStats().get("streamsOpen"));
+            assertEquals(1L, storageBackend.getStats().get("streamsRejected"));
+        } finally {
+            for (InputStream in : open) {
+                in.close();
+            }
+        }
+        assertEquals(0, storageBackend.getStats().get("streamsOpen"));
+    }
+
+    /**
+     * Minimal in-memory S3 stand-in: objects, ranged GET, server-side copy and multipart uploads
+     */
+    private static class FakeS3 {
+
+        private static final Pattern PART_NUMBER = Pattern.compile("<PartNumber>(\\d+)</PartNumber>");
+
+        final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+        final Map<String, Map<Integer, byte[]>> uploads = new ConcurrentHashMap<>();
+        final AtomicInteger partsReceived = new AtomicInteger();
+        final AtomicInteger puts = new AtomicInteger();
+        volatile boolean bucketCreated;
+
+        private final HttpServer server;
+        private final AtomicInteger uploadIds = new AtomicInteger();
+
+        FakeS3() throws IOException {
+            server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            server.createContext("/", this::handle);
+            server.setExecutor(Executors.newFixedThreadPool(8));
+            server.start();
+        }
+
+        int port() {
+            return server.getAddress().getPort();
+        }
+
+        void stop() {
+            server.stop(0);
+        }
+
+        private void handle(HttpExchange exchange) throws IOException {
+            try (exchange) {
+                String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+                if (authorization == null || !authorization.startsWith("AWS4-HMAC-SHA256 Credential=minio/")) {
+                    respond(exchange, 403, "<Error><Code>AccessDenied</Code></Error>");
+                    return;
+                }
+
+                String path = URLDecoder.decode(exchange.getRequestURI().getRawPath(), StandardCharsets.UTF_8);
+                String method = exchange.getRequestMethod();
+                Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+                byte[] body = exchange.getRequestBody().readAllBytes();
+
+                if (path.equals("/" + BUCKET)) {
+                    if (method.equals("PUT")) {
+                        bucketCreated = true;
+                        respond(exchange, 200, "");
+                    } else {
+                        respond(exchange, bucketCreated ? 200 : 404, (byte[]) null);
+                    }
+                    return;
+                }
+                String key = path.substring(BUCKET.length() + 2);
+
+                switch (method) {
+                    case "HEAD" -> {
+                        byte[] object = objects.get(key);
+                        if (object == null) {
+                            respond(exchange, 404, (byte[]) null);
+                        } else {
+                            exchange.getResponseHeaders().set("Content-Length", String.valueOf(object.length));
+                            exchange.sendResponseHeaders(200, -1);
+                        }
+                    }
+                    case "GET" -> get(exchange, key);
+                    case "PUT" -> put(exchange, key, query, body);
+                    case "POST" -> post(exchange, key, query, body);
+                    case "DELETE" -> {
+                        if (query.containsKey("uploadId")) {
+                            uploads.remove(query.get("uploadId"));
+                        } else {
+                            objects.remove(key);
+                        }
+                        respond(exchange, 204, (byte[]) null);
+                    }
+                    default -> respond(exchange, 405, (byte[]) null);
+                }
+            }
+        }
+
+        private void get(HttpExchange exchange, String key) throws IOException {
+            byte[] object = objects.get(key);
+            if (object == null) {
+                respond(exchange, 404, "<Error><Code>NoSuchKey</Code></Error>");
+                return;
+            }
+            String range = exchange.getRequestHeaders().getFirst("Range");
+            if (range == null) {
+                respond(exchange, 200, object);
+                return;
+            }
+            String[] bounds = range.substring("bytes=".length()).split("-");
+            int start = Integer.parseInt(bounds[0]);
+            int end = Math.min(Integer.parseInt(bounds[1]), object.length - 1);
+            exchange.getResponseHeaders().set("Content-Range", "bytes " + start + "-" + end + "/" + object.length);
+            respond(exchange, 206, Arrays.copyOfRange(object, start, end + 1));
+        }
+
+        private void put(HttpExchange exchange, String key, Map<String, String> query, byte[] body) throws IOException {
+            puts.incrementAndGet();
+            if (query.containsKey("uploadId")) {
+                Map<Integer, byte[]> parts = uploads.get(query.get("uploadId"));
+                if (parts == null) {
+                    respond(exchange, 404, "<Error><Code>NoSuchUpload</Code></Error>");
+                    return;
+                }
+                int partNumber = Integer.parseInt(query.get("partNumber"));
+                parts.put(partNumber, body);
+                partsReceived.incrementAndGet();
+                exchange.getResponseHeaders().set("ETag", "\"part-" + partNumber + "\"");
+                respond(exchange, 200, "");
+                return;
+            }
+            String copySource = exchange.getRequestHeaders().getFirst("x-amz-copy-source");
+            if (copySource != null) {
+                String source = URLDecoder.decode(copySource, StandardCharsets.UTF_8).substring(BUCKET.length() + 2);
+                byte[] object = objects.get(source);
+                if (object == null) {
+                    respond(exchange, 404, "<Error><Code>NoSuchKey</Code></Error>");
+                    return;
+                }
+                objects.put(key, object);
+                respond(exchange, 200, "<CopyObjectResult/>");
+                return;
+            }
+            objects.put(key, body);
+            respond(exchange, 200, "");
+        }
+
+        private void post(HttpExchange exchange, String key, Map<String, String> query, byte[] body) throws IOException {
+            if (query.containsKey("uploads")) {
+                String uploadId = "upload-" + uploadIds.incrementAndGet();
+                uploads.put(uploadId, new TreeMap<>());
+                respond(exchange, 200, "<InitiateMultipartUploadResult><UploadId>" + uploadId + "</UploadId></InitiateMultipartUploadResult>");
+                return;
+            }
+            Map<Integer, byte[]> parts = uploads.remove(query.get("uploadId"));
+            if (parts == null) {
+                respond(exchange, 404, "<Error><Code>NoSuchUpload</Code></Error>");
+                return;
+            }
+            ByteArrayOutputStream assembled = new ByteArrayOutputStream();
+            Matcher matcher = PART_NUMBER.matcher(new String(body, StandardCharsets.UTF_8));
+            while (matcher.find()) {
+                assembled.write(parts.get(Integer.parseInt(matcher.group(1))));
+            }
+            objects.put(key, assembled.toByteArray());
+            respond(exchange, 200, "<CompleteMultipartUploadResult/>");
+        }
+
+        private static Map<String, String> query(String rawQuery) {
+            Map<String, String> params = new TreeMap<>();
+            if (rawQuery != null) {
+                for (String param : rawQuery.split("&")) {
+                    int eq = param.indexOf('=');
+                    params.put(eq < 0 ? param : param.substring(0, eq), eq < 0 ? "" : param.substring(eq + 1));
+                }
+            }
+            return params;
+        }
+
+        private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+            respond(exchange, status, body == null ? null : body.getBytes(StandardCharsets.UTF_8));
+        }
+
+        private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+            if (body == null || body.length == 0 || "HEAD".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(status, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(status, body.length);
+            exchange.getResponseBody().write(body);
+        }
+    }
+}
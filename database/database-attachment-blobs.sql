@@ -0,0 +1,14 @@
+USE todo_db;
+
+-- Content-addressed attachment storage: one file per distinct SHA-256, shared by every
+-- attachment with that content (attachments.file_path = attachment_blobs.file_path)
+CREATE TABLE IF NOT EXISTS attachment_blobs (
+    content_hash CHAR(64) PRIMARY KEY,
+    file_path VARCHAR(500) NOT NULL,
+    file_size BIGINT NOT NULL,
+    ref_count INT NOT NULL COMMENT 'Attachments pointing at this blob',
+    created_at DATETIME(6) NOT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Used by the reference recount in the blob GC job
+CREATE INDEX idx_attachments_file_path ON attachments (file_path);
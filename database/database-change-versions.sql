@@ -0,0 +1,11 @@
+USE todo_db;
+
+-- Commit-ordered change stamps for GET /todos/changes. Every write stamps the rows it touches with the
+-- owner's new users.data_version, taken under that row's lock, so sync tokens carry a version, not a clock
+ALTER TABLE todos
+    ADD COLUMN change_version BIGINT NOT NULL DEFAULT 0,
+    ADD INDEX idx_todos_user_change (user_id, change_version);
+
+ALTER TABLE todo_deletions
+    ADD COLUMN change_version BIGINT NOT NULL DEFAULT 0,
+    ADD INDEX idx_todo_deletions_user_change (user_id, change_version);
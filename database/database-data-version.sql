@@ -0,0 +1,4 @@
+USE todo_db;
+
+-- Per-user data version, bumped on every todo/subtask/attachment write and sent as ETag
+ALTER TABLE users ADD COLUMN data_version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,15 @@
+USE todo_db;
+
+-- Keyset pagination for GET /todos: WHERE user_id = ? ORDER BY created_at, id
+CREATE INDEX idx_todos_user_created ON todos (user_id, created_at, id);
+
+-- Delta sync for GET /todos/changes: WHERE user_id = ? AND updated_at >= ?
+CREATE INDEX idx_todos_user_updated ON todos (user_id, updated_at);
+
+-- Admin statistics: GROUP BY is_completed scans these narrow indexes instead of the tables
+-- (is_completed, created_at, id) also serves admin browsing filtered by completion
+CREATE INDEX idx_todos_completed ON todos (is_completed, created_at, id);
+CREATE INDEX idx_subtasks_completed ON subtasks (is_completed);
+
+-- Admin browsing across all users: newest first, keyset on (created_at, id)
+CREATE INDEX idx_todos_created ON todos (created_at, id);
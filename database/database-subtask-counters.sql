@@ -0,0 +1,16 @@
+USE todo_db;
+
+-- Denormalized subtask counters on todos, so progress bars never run COUNT queries.
+-- The application keeps them in step with relative UPDATEs; POST /api/admin/subtask-counters/repair recomputes them
+ALTER TABLE todos
+    ADD COLUMN subtask_total INT NOT NULL DEFAULT 0,
+    ADD COLUMN subtask_completed INT NOT NULL DEFAULT 0;
+
+UPDATE todos t
+JOIN (
+    SELECT todo_id, COUNT(*) AS total, SUM(is_completed) AS completed
+    FROM subtasks
+    GROUP BY todo_id
+) s ON s.todo_id = t.id
+SET t.subtask_total = s.total,
+    t.subtask_completed = s.completed;
@@ -0,0 +1,16 @@
+USE todo_db;
+
+-- Replace the dense subtasks.position with sparse order keys (gaps of 65536),
+-- so inserting or moving a subtask rewrites one row instead of every row after it
+ALTER TABLE subtasks ADD COLUMN order_key BIGINT NOT NULL DEFAULT 0;
+
+UPDATE subtasks s
+JOIN (
+    SELECT id, ROW_NUMBER() OVER (PARTITION BY todo_id ORDER BY position, id) AS rn
+    FROM subtasks
+) ranked ON ranked.id = s.id
+SET s.order_key = ranked.rn * 65536;
+
+CREATE INDEX idx_subtasks_todo_order ON subtasks (todo_id, order_key);
+
+ALTER TABLE subtasks DROP COLUMN position;
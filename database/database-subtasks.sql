@@ -6,15 +6,16 @@ CREATE TABLE IF NOT EXISTS subtasks (
     todo_id INT NOT NULL,
     title VARCHAR(255) NOT NULL,
     is_completed BOOLEAN DEFAULT FALSE,
-    position INT DEFAULT 0,
+    order_key BIGINT NOT NULL DEFAULT 0,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     FOREIGN KEY (todo_id) REFERENCES todos(id) ON DELETE CASCADE,
-    INDEX idx_todo_id (todo_id)
+    INDEX idx_todo_id (todo_id),
+    INDEX idx_subtasks_todo_order (todo_id, order_key)
 );
 
 -- Sample data (optional)
-INSERT INTO subtasks (todo_id, title, is_completed, position) VALUES
-(8, 'Research project requirements', TRUE, 0),
-(8, 'Create initial design mockups', TRUE, 1),
-(8, 'Set up development environment', FALSE, 2),
-(8, 'Write initial code', FALSE, 3);
+INSERT INTO subtasks (todo_id, title, is_completed, order_key) VALUES
+(8, 'Research project requirements', TRUE, 65536),
+(8, 'Create initial design mockups', TRUE, 131072),
+(8, 'Set up development environment', FALSE, 196608),
+(8, 'Write initial code', FALSE, 262144);
@@ -0,0 +1,10 @@
+USE todo_db;
+
+-- Tombstones for hard-deleted todos, read by GET /todos/changes
+CREATE TABLE IF NOT EXISTS todo_deletions (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    todo_id INT NOT NULL,
+    user_id INT NOT NULL,
+    deleted_at DATETIME(6) NOT NULL,
+    INDEX idx_todo_deletions_user_deleted (user_id, deleted_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
@@ -0,0 +1,13 @@
+USE todo_db;
+
+-- Todo ids come from a pooled sequence (allocationSize = 50) so Hibernate can batch inserts.
+-- MySQL has no sequences, so Hibernate emulates it with a single-row table.
+-- The backend also checks this on startup (TodoSequenceService) and seeds the row if it is behind.
+CREATE TABLE IF NOT EXISTS todo_seq (
+    next_val BIGINT
+) ENGINE=InnoDB;
+
+-- Start past the existing AUTO_INCREMENT ids; the extra 51 covers the first pooled block
+DELETE FROM todo_seq;
+INSERT INTO todo_seq (next_val)
+SELECT COALESCE(MAX(id), 0) + 51 FROM todos;
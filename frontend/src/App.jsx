@@ -32,6 +32,8 @@ function App() {
     const [searchTerm, setSearchTerm] = useState(''); 
     const [isSearching, setIsSearching] = useState(false); 
     const [originalTodos, setOriginalTodos] = useState([]);
+    const [todosCursor, setTodosCursor] = useState(null);
+    const [loadingMore, setLoadingMore] = useState(false);
     const [searchLoading, setSearchLoading] = useState(false);
     const [searchError, setSearchError] = useState('');
     const [expandedSections, setExpandedSections] = useState({});
@@ -127,14 +129,33 @@ function App() {
     const fetchAllTodos = async () => {
         try {
             setLoading(true);
-            const response = isAuthenticated ? await apiCall('get', API_URL) : (await axios.get(API_URL)).data;
+            let response = [];
+            let cursor = null;
+            if (isAuthenticated) {
+                // First page only; further pages load on demand
+                const page = await apiCall('get', API_URL);
+                response = page.items;
+                cursor = page.hasMore ? page.nextCursor : null;
+            }
             setTodos(response);
+            setTodosCursor(cursor);
             setOriginalTodos(response); 
             setIsSearching(false); 
             setSearchTerm(''); 
         } catch (error) { console.error('Fetch error'); } finally { setLoading(false); }
     };
 
+    const loadMoreTodos = async () => {
+        if (!todosCursor) return;
+        try {
+            setLoadingMore(true);
+            const page = await apiCall('get', `${API_URL}?cursor=${encodeURIComponent(todosCursor)}`);
+            setTodos(prev => [...prev, ...page.items]);
+            setOriginalTodos(prev => [...prev, ...page.items]);
+            setTodosCursor(page.hasMore ? page.nextCursor : null);
+        } catch (error) { alert('Failed to load more todos'); } finally { setLoadingMore(false); }
+    };
+
     // --- SUBTASK LOGIC (Same as old code) ---
     const fetchSubtasks = async (todoId) => {
         if (!isAuthenticated) return;
@@ -413,6 +434,11 @@ function App() {
                                 );
                             })}
                         </div>
+                        {isAuthenticated && todosCursor && (
+                            <button className="btn btn-secondary" onClick={loadMoreTodos} disabled={loadingMore}>
+                                {loadingMore ? 'Loading...' : 'Load more'}
+                            </button>
+                        )}
                     </section>
                 </main>
             </div>
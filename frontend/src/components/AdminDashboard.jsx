@@ -8,6 +8,8 @@ const AdminDashboard = ({ onClose }) => {
     const [stats, setStats] = useState(null);
     const [recentActivity, setRecentActivity] = useState([]);
     const [allTodos, setAllTodos] = useState([]);
+    const [todosCursor, setTodosCursor] = useState(null);
+    const [loadingMore, setLoadingMore] = useState(false);
     const [loading, setLoading] = useState(true);
     const [activeTab, setActiveTab] = useState('stats');
 
@@ -26,7 +28,8 @@ const AdminDashboard = ({ onClose }) => {
 
             setStats(statsRes.data);
             setRecentActivity(activityRes.data);
-            setAllTodos(todosRes.data);
+            setAllTodos(todosRes.data.items);
+            setTodosCursor(todosRes.data.hasMore ? todosRes.data.nextCursor : null);
         } catch (error) {
             console.error('Error fetching dashboard data:', error);
             alert('Failed to load dashboard data');
@@ -35,6 +38,21 @@ const AdminDashboard = ({ onClose }) => {
         }
     };
 
+    const loadMoreTodos = async () => {
+        if (!todosCursor) return;
+        try {
+            setLoadingMore(true);
+            const res = await axios.get(`${API_URL}/todos`, { params: { cursor: todosCursor } });
+            setAllTodos(prev => [...prev, ...res.data.items]);
+            setTodosCursor(res.data.hasMore ? res.data.nextCursor : null);
+        } catch (error) {
+            console.error('Error loading more todos:', error);
+            alert('Failed to load more todos');
+        } finally {
+            setLoadingMore(false);
+        }
+    };
+
     const handleDeleteTodo = async (id) => {
         if (window.confirm('Are you sure you want to delete this todo (Admin action)?')) {
             try {
@@ -163,7 +181,7 @@ const AdminDashboard = ({ onClose }) => {
                                             <div className="activity-details">
                                                 <h4>{todo.title}</h4>
                                                 <p>
-                                                    User: {todo.user?.username || 'Unknown'} |
+                                                    User: {todo.username || 'Unknown'} |
                                                     Created: {new Date(todo.createdAt).toLocaleString()}
                                                 </p>
                                                 {todo.description && (
@@ -186,7 +204,7 @@ const AdminDashboard = ({ onClose }) => {
 
                     {activeTab === 'todos' && (
                         <div className="todos-management">
-                            <h3>All Todos Management ({allTodos.length})</h3>
+                            <h3>All Todos Management ({allTodos.length}{todosCursor ? '+' : ''})</h3>
                             {allTodos.length === 0 ? (
                                 <p className="empty-state">No todos found</p>
                             ) : (
@@ -208,7 +226,7 @@ const AdminDashboard = ({ onClose }) => {
                                             )}
 
                                             <div className="admin-todo-meta">
-                                                <span>👤 User: {todo.user?.username || 'Unknown'}</span>
+                                                <span>👤 User: {todo.username || 'Unknown'}</span>
                                                 <span>
                                                     {todo.isCompleted ? '✅ Completed' : '⏳ Pending'}
                                                 </span>
@@ -227,6 +245,15 @@ const AdminDashboard = ({ onClose }) => {
                                     ))}
                                 </div>
                             )}
+                            {todosCursor && (
+                                <button
+                                    className="admin-tab"
+                                    onClick={loadMoreTodos}
+                                    disabled={loadingMore}
+                                >
+                                    {loadingMore ? 'Loading...' : 'Load more'}
+                                </button>
+                            )}
                         </div>
                     )}
                 </div>
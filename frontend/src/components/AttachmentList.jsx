@@ -1,7 +1,59 @@
-import React from "react";
-import { deleteAttachment } from "../services/attachmentService";
+import React, { useEffect, useState } from "react";
+import {
+  deleteAttachment,
+  downloadAttachment,
+  getAttachmentThumbnail,
+} from "../services/attachmentService";
 
-const AttachmentList = ({ attachments, onDelete, onDownload }) => {
+// Tries before a preview that is still being built falls back to the paperclip for good
+const THUMBNAIL_ATTEMPTS = 5;
+
+// Small preview for image attachments; falls back to the paperclip if it can't be loaded
+const AttachmentThumbnail = ({ attachment }) => {
+  const [url, setUrl] = useState(null);
+
+  useEffect(() => {
+    let objectUrl = null;
+    let cancelled = false;
+    let timer = null;
+
+    const load = (attempt) => {
+      getAttachmentThumbnail(attachment.id)
+        .then((result) => {
+          if (cancelled) return;
+          if (result instanceof Blob) {
+            objectUrl = window.URL.createObjectURL(result);
+            setUrl(objectUrl);
+          } else if (attempt < THUMBNAIL_ATTEMPTS) {
+            // 202 - the server is building it; ask again when it says to
+            timer = setTimeout(() => load(attempt + 1), result.retryAfter * 1000);
+          }
+        })
+        .catch(() => {});
+    };
+    load(1);
+
+    return () => {
+      cancelled = true;
+      clearTimeout(timer);
+      if (objectUrl) window.URL.revokeObjectURL(objectUrl);
+    };
+  }, [attachment.id]);
+
+  if (!url) return <>📎 </>;
+
+  return (
+    <img
+      className="attachment-thumbnail"
+      src={url}
+      alt={attachment.fileName}
+      loading="lazy"
+      style={{ maxWidth: 48, maxHeight: 48, marginRight: 8, verticalAlign: "middle" }}
+    />
+  );
+};
+
+const AttachmentList = ({ attachments, onDelete, onDownload = downloadAttachment }) => {
   if (!attachments.length) {
     return <p className="no-attachments">No attachments yet</p>;
   }
@@ -34,7 +86,10 @@ const AttachmentList = ({ attachments, onDelete, onDownload }) => {
             onClick={() => handleDownload(att)}
             title="Download"
           >
-            📎 {att.fileName}
+            {att.fileType?.startsWith("image/")
+              ? <AttachmentThumbnail attachment={att} />
+              : "📎 "}
+            {att.fileName}
           </span>
 
           <div className="attachment-actions">
@@ -1,5 +1,9 @@
 import React, { useState } from "react";
-import { uploadAttachment } from "../services/attachmentService";
+import {
+  RESUMABLE_UPLOAD_THRESHOLD,
+  uploadAttachment,
+  uploadAttachmentResumable,
+} from "../services/attachmentService";
 
 const AttachmentUpload = ({ todoId, onUpload }) => {
   const [uploading, setUploading] = useState(false);
@@ -15,7 +19,10 @@ const AttachmentUpload = ({ todoId, onUpload }) => {
     setError("");
 
     try {
-      const attachment = await uploadAttachment(todoId, file, setProgress);
+      const upload = file.size > RESUMABLE_UPLOAD_THRESHOLD
+        ? uploadAttachmentResumable
+        : uploadAttachment;
+      const attachment = await upload(todoId, file, setProgress);
       onUpload(attachment);
       e.target.value = null;
     } catch (err) {
@@ -45,6 +45,125 @@ export const uploadAttachment = async (todoId, file, onProgress) => {
   }
 };
 
+// Files above this go through a resumable upload session instead of one multipart request
+export const RESUMABLE_UPLOAD_THRESHOLD = 5 * 1024 * 1024;
+
+// Largest file the single-request upload accepts (spring.servlet.multipart.max-file-size)
+const MULTIPART_UPLOAD_LIMIT = 10 * 1024 * 1024;
+
+const CHUNK_ATTEMPTS = 5;
+
+// Remembered per file so picking the same file again after a failure resumes it
+const resumeKey = (todoId, file) =>
+  `upload:${todoId}:${file.name}:${file.size}:${file.lastModified}`;
+
+const sha256Hex = async (blob) => {
+  if (!window.crypto?.subtle) return null;
+  const digest = await window.crypto.subtle.digest("SHA-256", await blob.arrayBuffer());
+  return Array.from(new Uint8Array(digest))
+    .map((b) => b.toString(16).padStart(2, "0"))
+    .join("");
+};
+
+const findResumableSession = async (key) => {
+  const uploadId = localStorage.getItem(key);
+  if (!uploadId) return null;
+  try {
+    const response = await axios.get(`${API_BASE_URL}/uploads/${uploadId}`, {
+      headers: authHeaders(),
+    });
+    return response.data;
+  } catch {
+    // Expired or completed elsewhere - start over
+    localStorage.removeItem(key);
+    return null;
+  }
+};
+
+const putChunk = async (session, file, index) => {
+  const offset = index * session.chunkSize;
+  const chunk = file.slice(offset, Math.min(offset + session.chunkSize, file.size));
+  const checksum = await sha256Hex(chunk);
+
+  for (let attempt = 1; ; attempt++) {
+    try {
+      const response = await axios.put(
+        `${API_BASE_URL}/uploads/${session.uploadId}?offset=${offset}`,
+        chunk,
+        {
+          headers: {
+            ...authHeaders(),
+            "Content-Type": "application/octet-stream",
+            ...(checksum ? { "X-Chunk-Sha256": checksum } : {}),
+          },
+        }
+      );
+      return response.data;
+    } catch (error) {
+      const status = error.response?.status;
+      // Only network errors, throttling and server errors are worth retrying
+      if (attempt >= CHUNK_ATTEMPTS || (status && status < 500 && status !== 429)) {
+        throw error;
+      }
+      await new Promise((resolve) => setTimeout(resolve, 500 * 2 ** (attempt - 1)));
+    }
+  }
+};
+
+/**
+ * Upload a large file in chunks; interrupted uploads continue from the missing chunks
+ */
+export const uploadAttachmentResumable = async (todoId, file, onProgress) => {
+  const key = resumeKey(todoId, file);
+  try {
+    let session = await findResumableSession(key);
+    if (!session) {
+      let response;
+      try {
+        response = await axios.post(
+          `${API_BASE_URL}/todo/${todoId}/uploads`,
+          {
+            fileName: file.name,
+            fileSize: file.size,
+            contentType: file.type,
+          },
+          { headers: authHeaders() }
+        );
+      } catch (error) {
+        // 501 - this deployment has no upload sessions; smaller files can still go in one request
+        if (error.response?.status === 501 && file.size <= MULTIPART_UPLOAD_LIMIT) {
+          return uploadAttachment(todoId, file, onProgress);
+        }
+        throw error;
+      }
+      session = response.data;
+      localStorage.setItem(key, session.uploadId);
+    }
+
+    for (const index of session.missingChunks) {
+      const status = await putChunk(session, file, index);
+      if (onProgress) {
+        onProgress(Math.round((status.receivedBytes * 100) / file.size));
+      }
+    }
+
+    const response = await axios.post(
+      `${API_BASE_URL}/uploads/${session.uploadId}/complete`,
+      null,
+      { headers: authHeaders() }
+    );
+    localStorage.removeItem(key);
+    return response.data;
+  } catch (error) {
+    if (error.response?.status === 404) {
+      // Session expired (or unknown to this server) - the next attempt starts a new one
+      localStorage.removeItem(key);
+    }
+    console.error("Resumable upload failed", error);
+    throw error.response?.data || error.message;
+  }
+};
+
 export const getAttachments = async (todoId) => {
   try {
     const response = await axios.get(
@@ -78,6 +197,27 @@ export const downloadAttachment = async (attachmentId) => {
   }
 };
 
+// Resolves to the image blob, or to the seconds to wait when the server is still building it (202)
+export const getAttachmentThumbnail = async (attachmentId) => {
+  try {
+    const response = await axios.get(
+      `${API_BASE_URL}/${attachmentId}/thumbnail`,
+      {
+        headers: authHeaders(),
+        responseType: "blob",
+      }
+    );
+
+    if (response.status === 202) {
+      return { retryAfter: Number(response.headers["retry-after"]) || 2 };
+    }
+    return response.data;
+  } catch (error) {
+    console.error("Get attachment thumbnail failed", error);
+    throw error.response?.data || error.message;
+  }
+};
+
 export const deleteAttachment = async (attachmentId) => {
   try {
     const response = await axios.delete(